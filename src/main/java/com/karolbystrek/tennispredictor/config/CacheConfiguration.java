@@ -1,36 +1,53 @@
 package com.karolbystrek.tennispredictor.config;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.karolbystrek.tennispredictor.service.PlayerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 
-import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
+/**
+ * Caffeine-backed caches, each configured with a Caffeine spec from the properties. Caches with a loader, like
+ * {@code playersCache}, can use {@code refreshAfterWrite}: the first read after the refresh interval still
+ * gets the current value while a new one is loaded in the background, so readers never wait for a reload.
+ * Caches created on demand use {@code tennis.predictor.caches.default-spec}. Every spec should include
+ * {@code recordStats} so that hit, miss, eviction and load-time statistics reach the {@code cache.*} metrics.
+ */
 @Configuration
 @EnableCaching
 @EnableScheduling
 public class CacheConfiguration {
 
+    public static final String PLAYERS_CACHE = "playersCache";
+
     private static final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
 
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setAllowNullValues(false);
-        cacheManager.setCacheNames(List.of("playersCache"));
-        return cacheManager;
+    public CacheManager cacheManager(PlayerService playerService,
+                                     @Value("${tennis.predictor.caches.default-spec:maximumSize=1000,expireAfterWrite=1h,recordStats}") String defaultSpec,
+                                     @Value("${tennis.predictor.caches.players.spec:maximumSize=1,refreshAfterWrite=1h,expireAfterWrite=1d,recordStats}") String playersSpec) {
+        return cacheManager(defaultSpec, playersSpec, key -> playerService.buildAllPlayersPayload(), ForkJoinPool.commonPool());
     }
 
-    @CacheEvict(value = "playersCache", allEntries = true)
-    @Scheduled(fixedDelay = 3_600_000, initialDelay = 3_600_000)
-    public void evictPlayersCache() {
-        log.info("Evicting players cache");
+    static CaffeineCacheManager cacheManager(String defaultSpec, String playersSpec, CacheLoader<Object, Object> playersLoader,
+                                             Executor refreshExecutor) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCacheSpecification(defaultSpec);
+        cacheManager.registerCustomCache(PLAYERS_CACHE, Caffeine.from(playersSpec)
+                .executor(refreshExecutor)
+                .build(playersLoader));
+        log.info("Cache '{}' uses spec '{}', other caches '{}'", PLAYERS_CACHE, playersSpec, defaultSpec);
+        return cacheManager;
     }
 }
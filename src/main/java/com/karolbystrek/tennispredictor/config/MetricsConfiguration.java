@@ -0,0 +1,149 @@
+package com.karolbystrek.tennispredictor.config;
+
+import com.karolbystrek.tennispredictor.service.PredictionAdmission;
+import com.karolbystrek.tennispredictor.service.PredictionCache;
+import com.karolbystrek.tennispredictor.service.PredictionClient;
+import com.karolbystrek.tennispredictor.service.PredictionDiskCache;
+import com.karolbystrek.tennispredictor.service.PredictionJobService;
+import com.karolbystrek.tennispredictor.service.PredictionMatrixStore;
+import com.karolbystrek.tennispredictor.service.PredictionService;
+import com.karolbystrek.tennispredictor.service.PredictionUpstreamGuard;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder predictionCacheMetrics(PredictionCache predictionCache, PredictionDiskCache predictionDiskCache) {
+        return registry -> {
+            FunctionCounter.builder("prediction.cache.hits", predictionCache, cache -> cache.stats().hits())
+                    .description("Predictions served from the prediction cache")
+                    .register(registry);
+            FunctionCounter.builder("prediction.cache.misses", predictionCache, cache -> cache.stats().misses())
+                    .description("Prediction cache lookups that required an upstream call")
+                    .register(registry);
+            FunctionCounter.builder("prediction.cache.evictions", predictionCache, cache -> cache.stats().evictions())
+                    .description("Prediction cache entries evicted because the cache was full")
+                    .register(registry);
+            FunctionCounter.builder("prediction.cache.expirations", predictionCache, cache -> cache.stats().expirations())
+                    .description("Prediction cache entries dropped after their TTL elapsed")
+                    .register(registry);
+            FunctionCounter.builder("prediction.cache.disk.loads", predictionCache, cache -> cache.stats().diskLoads())
+                    .description("Prediction cache misses filled from the persistent disk cache")
+                    .register(registry);
+            FunctionCounter.builder("prediction.cache.disk.failures", predictionDiskCache, PredictionDiskCache::getFailureCount)
+                    .description("Disk cache reads, writes and compactions that failed and were skipped")
+                    .register(registry);
+            Gauge.builder("prediction.cache.size", predictionCache, cache -> cache.stats().size())
+                    .description("Current number of entries in the prediction cache")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder predictionUpstreamMetrics(PredictionService predictionService) {
+        return registry -> {
+            Gauge.builder("prediction.upstream.in-flight", predictionService, PredictionService::getInFlightPredictionCount)
+                    .description("Distinct upstream prediction calls currently in flight")
+                    .register(registry);
+            FunctionCounter.builder("prediction.upstream.coalesced", predictionService, PredictionService::getCoalescedPredictionCount)
+                    .description("Prediction requests that joined an identical in-flight upstream call")
+                    .register(registry);
+            FunctionCounter.builder("prediction.fallback", predictionService, PredictionService::getFallbackPredictionCount)
+                    .description("Predictions served by the in-process Elo model because the upstream failed")
+                    .register(registry);
+            FunctionCounter.builder("prediction.stale", predictionService, PredictionService::getStalePredictionCount)
+                    .description("Predictions served from expired cache entries because the upstream failed")
+                    .register(registry);
+            Gauge.builder("prediction.stale.pending", predictionService, PredictionService::getPendingRevalidationCount)
+                    .description("Stale-served matchups waiting to be refreshed from the upstream")
+                    .register(registry);
+            FunctionCounter.builder("prediction.upstream.batches", predictionService, PredictionService::getUpstreamBatchCount)
+                    .description("Micro-batched requests sent to the prediction service")
+                    .register(registry);
+            FunctionCounter.builder("prediction.upstream.batched", predictionService, PredictionService::getUpstreamBatchedPredictionCount)
+                    .description("Predictions sent to the prediction service as part of a micro-batch")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder predictionReplicaMetrics(PredictionClient predictionClient) {
+        return registry -> {
+            Gauge.builder("prediction.upstream.replicas", predictionClient, PredictionClient::getReplicaCount)
+                    .description("Configured prediction service replicas")
+                    .register(registry);
+            Gauge.builder("prediction.upstream.replicas.available", predictionClient, PredictionClient::getAvailableReplicaCount)
+                    .description("Prediction service replicas that are not currently ejected")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder predictionMatrixMetrics(PredictionMatrixStore predictionMatrixStore) {
+        return registry -> {
+            FunctionCounter.builder("prediction.matrix.hits", predictionMatrixStore, PredictionMatrixStore::getHitCount)
+                    .description("Predictions answered from the precomputed pairwise matrix")
+                    .register(registry);
+            Gauge.builder("prediction.matrix.players", predictionMatrixStore, store -> store.current().playerCount())
+                    .description("Players covered by the current precomputed pairwise matrix")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder predictionUpstreamGuardMetrics(PredictionUpstreamGuard upstreamGuard) {
+        return registry -> {
+            Gauge.builder("prediction.upstream.circuit.state", upstreamGuard, guard -> guard.getCircuitState().ordinal())
+                    .description("Upstream circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .register(registry);
+            Gauge.builder("prediction.upstream.concurrency.limit", upstreamGuard, PredictionUpstreamGuard::getConcurrencyLimit)
+                    .description("Current adaptive limit on concurrent upstream prediction calls")
+                    .register(registry);
+            FunctionCounter.builder("prediction.upstream.rejected", upstreamGuard, PredictionUpstreamGuard::getCircuitRejectedCount)
+                    .description("Upstream prediction calls rejected without being sent")
+                    .tag("reason", "circuit-open")
+                    .register(registry);
+            FunctionCounter.builder("prediction.upstream.rejected", upstreamGuard, PredictionUpstreamGuard::getLimitRejectedCount)
+                    .description("Upstream prediction calls rejected without being sent")
+                    .tag("reason", "concurrency-limit")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder predictionAdmissionMetrics(PredictionAdmission predictionAdmission) {
+        return registry -> {
+            Gauge.builder("prediction.admission.in-flight", predictionAdmission, PredictionAdmission::getInFlightCount)
+                    .description("Admitted predictions currently running")
+                    .register(registry);
+            Gauge.builder("prediction.admission.queued", predictionAdmission, PredictionAdmission::getQueuedCount)
+                    .description("Predictions waiting to be admitted")
+                    .register(registry);
+            FunctionCounter.builder("prediction.admission.rejected", predictionAdmission, PredictionAdmission::getQueueFullRejectedCount)
+                    .description("Predictions refused by admission control")
+                    .tag("reason", "queue-full")
+                    .register(registry);
+            FunctionCounter.builder("prediction.admission.rejected", predictionAdmission, PredictionAdmission::getExpiredRejectedCount)
+                    .description("Predictions refused by admission control")
+                    .tag("reason", "deadline")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder predictionJobMetrics(PredictionJobService predictionJobService) {
+        return registry -> {
+            Gauge.builder("prediction.jobs.queued", predictionJobService, PredictionJobService::getQueuedJobCount)
+                    .description("Prediction jobs waiting for a worker")
+                    .register(registry);
+            Gauge.builder("prediction.jobs.running", predictionJobService, PredictionJobService::getRunningJobCount)
+                    .description("Prediction jobs currently being processed")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package com.karolbystrek.tennispredictor.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Dedicated Reactor Netty connection pool and transport settings for the prediction model server. Pool and
+ * request metrics are published under {@code reactor.netty.connection.provider.*} and
+ * {@code reactor.netty.http.client.*} with the pool name {@value #POOL_NAME}.
+ */
+@Configuration
+public class PredictionClientConfiguration {
+
+    public static final String POOL_NAME = "prediction-api";
+    private static final Logger log = LoggerFactory.getLogger(PredictionClientConfiguration.class);
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider predictionConnectionProvider(@Value("${tennis.predictor.client.max-connections:100}") int maxConnections,
+                                                           @Value("${tennis.predictor.client.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+                                                           @Value("${tennis.predictor.client.pending-acquire-timeout:PT2S}") Duration pendingAcquireTimeout,
+                                                           @Value("${tennis.predictor.client.max-idle-time:PT30S}") Duration maxIdleTime,
+                                                           @Value("${tennis.predictor.client.max-life-time:PT5M}") Duration maxLifeTime,
+                                                           @Value("${tennis.predictor.client.eviction-interval:PT30S}") Duration evictionInterval) {
+        log.info("Prediction API pool: {} connections, {} pending acquires (timeout {}), idle {}, lifetime {}",
+                maxConnections, pendingAcquireMaxCount, pendingAcquireTimeout, maxIdleTime, maxLifeTime);
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictionInterval)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public ClientHttpConnector predictionClientConnector(ConnectionProvider predictionConnectionProvider,
+                                                         @Value("${tennis.predictor.api.base-url}") String baseUrl,
+                                                         @Value("${tennis.predictor.client.connect-timeout:PT2S}") Duration connectTimeout,
+                                                         @Value("${tennis.predictor.client.read-timeout:PT10S}") Duration readTimeout,
+                                                         @Value("${tennis.predictor.client.response-timeout:PT10S}") Duration responseTimeout,
+                                                         @Value("${tennis.predictor.client.keep-alive:true}") boolean keepAlive,
+                                                         @Value("${tennis.predictor.client.http2:false}") boolean http2) {
+        return new ReactorClientHttpConnector(predictionHttpClient(predictionConnectionProvider, baseUrl,
+                connectTimeout, readTimeout, responseTimeout, keepAlive, http2));
+    }
+
+    static HttpClient predictionHttpClient(ConnectionProvider connectionProvider, String baseUrl, Duration connectTimeout,
+                                           Duration readTimeout, Duration responseTimeout, boolean keepAlive, boolean http2) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, keepAlive)
+                .keepAlive(keepAlive)
+                .responseTimeout(responseTimeout)
+                .doOnConnected(connection -> connection.addHandlerLast(
+                        new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS)))
+                .metrics(true, Function.identity());
+        if (!http2) {
+            return httpClient;
+        }
+        if ("https".equals(replicaScheme(baseUrl))) {
+            log.info("Prediction API client negotiating HTTP/2 over TLS");
+            return httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+        log.info("Prediction API client using cleartext HTTP/2 with prior knowledge");
+        return httpClient.protocol(HttpProtocol.H2C);
+    }
+
+    /**
+     * The HTTP/2 mode is chosen once for the shared client, so every replica in the comma-separated
+     * {@code baseUrl} has to use the same scheme.
+     */
+    static String replicaScheme(String baseUrl) {
+        List<String> schemes = Arrays.stream(baseUrl.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(PredictionClientConfiguration::scheme)
+                .distinct()
+                .toList();
+        if (schemes.size() != 1) {
+            throw new IllegalStateException("Prediction API replicas in 'tennis.predictor.api.base-url' must all use the same scheme, got "
+                    + (schemes.isEmpty() ? "none" : String.join(" and ", schemes)));
+        }
+        return schemes.get(0);
+    }
+
+    private static String scheme(String url) {
+        String scheme;
+        try {
+            scheme = URI.create(url).getScheme();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid prediction API URL '" + url + "' in 'tennis.predictor.api.base-url'", e);
+        }
+        if (scheme == null) {
+            throw new IllegalStateException("Prediction API URL '" + url + "' in 'tennis.predictor.api.base-url' has no scheme");
+        }
+        return scheme.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,57 @@
+package com.karolbystrek.tennispredictor.controller;
+
+import com.karolbystrek.tennispredictor.model.BatchPredictionRequest;
+import com.karolbystrek.tennispredictor.model.BatchPredictionResult;
+import com.karolbystrek.tennispredictor.service.BatchPredictionService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/predictions")
+public class BatchPredictionController {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchPredictionController.class);
+    private final BatchPredictionService batchPredictionService;
+
+    public BatchPredictionController(BatchPredictionService batchPredictionService) {
+        this.batchPredictionService = batchPredictionService;
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<List<BatchPredictionResult>>> predictBatch(@Valid @RequestBody BatchPredictionRequest request) {
+        log.info("POST /api/predictions/batch - Received batch of {} prediction requests", request.getRequests().size());
+        return batchPredictionService.predictBatchAsync(request.getRequests())
+                .map(results -> {
+                    long failed = results.stream().filter(result -> result.getErrorStatus() != null).count();
+                    log.info("POST /api/predictions/batch - Response with {} results ({} failed)", results.size(), failed);
+                    return ResponseEntity.ok(results);
+                });
+    }
+
+    /**
+     * Streams each result as a {@code prediction} (or {@code error}) event as soon as it completes, followed by
+     * a final {@code complete} event. Pending predictions are cancelled when the client disconnects.
+     */
+    @PostMapping(path = "/batch/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BatchPredictionResult>> streamBatch(@Valid @RequestBody BatchPredictionRequest request) {
+        log.info("POST /api/predictions/batch/stream - Streaming batch of {} prediction requests", request.getRequests().size());
+        return batchPredictionService.predictBatchStream(request.getRequests())
+                .map(result -> ServerSentEvent.builder(result)
+                        .id(String.valueOf(result.getIndex()))
+                        .event(result.getErrorStatus() == null ? "prediction" : "error")
+                        .build())
+                .concatWith(Mono.fromSupplier(() -> ServerSentEvent.<BatchPredictionResult>builder().event("complete").build()));
+    }
+}
@@ -1,11 +1,23 @@
 package com.karolbystrek.tennispredictor.controller;
 
+import com.karolbystrek.tennispredictor.model.PlayerChanges;
 import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import com.karolbystrek.tennispredictor.model.PlayerPage;
+import com.karolbystrek.tennispredictor.model.PlayerPageRequest;
+import com.karolbystrek.tennispredictor.service.PlayerSearchService;
+import com.karolbystrek.tennispredictor.service.PrecompressedPayload;
 import com.karolbystrek.tennispredictor.service.PlayerService;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -14,17 +26,114 @@ import java.util.List;
 public class PlayerController {
 
     private static final Logger log = LoggerFactory.getLogger(PlayerController.class);
+    private static final int MAX_CHANGES = 1000;
     private final PlayerService playerService;
+    private final PlayerSearchService playerSearchService;
 
-    public PlayerController(PlayerService playerService) {
+    public PlayerController(PlayerService playerService, PlayerSearchService playerSearchService) {
         this.playerService = playerService;
+        this.playerSearchService = playerSearchService;
     }
 
+    /**
+     * Without parameters, returns every player as a plain array, as before. With {@code cursor} and/or
+     * {@code size}, returns one keyset page and a {@code Link} header pointing to the next one.
+     */
     @GetMapping("/players")
-    public ResponseEntity<List<PlayerDTO>> getAllPlayers() {
-        log.info("GET /players - Request received for all players");
-        List<PlayerDTO> players = playerService.getAllPlayers();
-        log.info("GET /players - Response with {} players", players.size());
+    public ResponseEntity<?> getPlayers(@Valid PlayerPageRequest pageRequest,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (!pageRequest.isPaged()) {
+            return getAllPlayers(ifNoneMatch, acceptEncoding);
+        }
+        int size = pageRequest.getSize() == null ? PlayerPageRequest.DEFAULT_SIZE : pageRequest.getSize();
+        log.info("GET /players - Request received for {} players after cursor {}", size, pageRequest.getCursor());
+        PlayerPage page = playerService.getPlayerPage(pageRequest.getCursor(), size);
+        log.info("GET /players - Response with {} players, next cursor {}", page.getPlayers().size(), page.getNextCursor());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(HttpHeaders.LINK, "</players?cursor=" + page.getNextCursor() + "&size=" + size + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Writes the cached, pre-serialized player list as is, gzipped when the client accepts it, and answers a
+     * matching {@code If-None-Match} with 304. The ETag is that of the variant the client would receive.
+     */
+    private ResponseEntity<byte[]> getAllPlayers(String ifNoneMatch, String acceptEncoding) {
+        PrecompressedPayload payload = playerService.getAllPlayersPayload();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? payload.gzipEtag() : payload.etag();
+        if (payload.matches(ifNoneMatch)) {
+            log.info("GET /players - Not modified");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        byte[] body = gzip ? payload.gzip() : payload.identity();
+        log.info("GET /players - Response with {} bytes{}", body.length, gzip ? " (gzip)" : "");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && isZeroWeight(parameter.substring(2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZeroWeight(String weight) {
+        try {
+            return Double.parseDouble(weight) == 0.0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @GetMapping("/players/search")
+    public ResponseEntity<List<PlayerDTO>> searchPlayers(@RequestParam(name = "q", defaultValue = "") String query,
+                                                        @RequestParam(defaultValue = "10") int limit) {
+        List<PlayerDTO> players = playerSearchService.search(query, limit);
+        log.debug("GET /players/search - {} players match '{}'", players.size(), query);
         return ResponseEntity.ok(players);
     }
+
+    /**
+     * Returns the players inserted, updated or deleted after change version {@code since}, oldest first. Clients
+     * pass the returned {@code version} as the next {@code since}, and call again right away while {@code hasMore}.
+     */
+    @GetMapping("/players/changes")
+    public ResponseEntity<PlayerChanges> getPlayerChanges(@RequestParam(defaultValue = "0") long since,
+                                                          @RequestParam(defaultValue = "1000") int limit) {
+        PlayerChanges changes = playerService.getChangesSince(since, Math.clamp(limit, 1, MAX_CHANGES));
+        log.debug("GET /players/changes - {} upserts and {} deletions after version {}, now at {}",
+                changes.getUpserts().size(), changes.getDeletedPlayerIds().size(), since, changes.getVersion());
+        return ResponseEntity.ok(changes);
+    }
 }
@@ -0,0 +1,50 @@
+package com.karolbystrek.tennispredictor.controller;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.service.PredictionAdmission;
+import com.karolbystrek.tennispredictor.service.PredictionPriority;
+import com.karolbystrek.tennispredictor.service.PredictionService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * JSON variant of {@link PredictionController}. Handlers return the upstream {@link Mono} so the servlet
+ * request is processed asynchronously and no container thread is held while the model server responds.
+ */
+@RestController
+@RequestMapping("/api/predictions")
+public class PredictionApiController {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionApiController.class);
+    private final PredictionService predictionService;
+    private final PredictionAdmission predictionAdmission;
+
+    public PredictionApiController(PredictionService predictionService, PredictionAdmission predictionAdmission) {
+        this.predictionService = predictionService;
+        this.predictionAdmission = predictionAdmission;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<PredictionResponse>> predict(@Valid @RequestBody PredictionRequest request,
+                                                     Authentication authentication) {
+        log.info("POST /api/predictions - Received prediction request: {}", request);
+        return predictionAdmission.admit(PredictionPriority.of(authentication), () -> predictionService.predictAsync(request))
+                .switchIfEmpty(Mono.error(() -> new PredictionServiceException(
+                        "Prediction service returned an empty response", HttpStatus.INTERNAL_SERVER_ERROR.value())))
+                .map(response -> {
+                    log.info("POST /api/predictions - Prediction successful for request: {}", request);
+                    return ResponseEntity.ok(response);
+                });
+    }
+}
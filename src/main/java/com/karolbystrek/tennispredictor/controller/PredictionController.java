@@ -3,10 +3,13 @@ package com.karolbystrek.tennispredictor.controller;
 import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
 import com.karolbystrek.tennispredictor.model.PredictionRequest;
 import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.service.PredictionAdmission;
+import com.karolbystrek.tennispredictor.service.PredictionPriority;
 import com.karolbystrek.tennispredictor.service.PredictionService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -23,9 +26,11 @@ public class PredictionController {
 
     private static final Logger log = LoggerFactory.getLogger(PredictionController.class);
     private final PredictionService predictionService;
+    private final PredictionAdmission predictionAdmission;
 
-    public PredictionController(PredictionService predictionService) {
+    public PredictionController(PredictionService predictionService, PredictionAdmission predictionAdmission) {
         this.predictionService = predictionService;
+        this.predictionAdmission = predictionAdmission;
     }
 
     @GetMapping
@@ -51,7 +56,8 @@ public class PredictionController {
     @PostMapping
     public String makePrediction(@Valid @ModelAttribute("predictionRequest") PredictionRequest request,
                                  BindingResult bindingResult,
-                                 RedirectAttributes redirectAttributes) {
+                                 RedirectAttributes redirectAttributes,
+                                 Authentication authentication) {
         log.info("POST /prediction - Received prediction request: {}", request);
         if (bindingResult.hasErrors()) {
             log.warn("POST /prediction - Validation errors found: {}", bindingResult.getAllErrors());
@@ -60,7 +66,9 @@ public class PredictionController {
         }
 
         try {
-            PredictionResponse response = predictionService.predict(request);
+            PredictionResponse response = predictionAdmission
+                    .admit(PredictionPriority.of(authentication), () -> predictionService.predictAsync(request))
+                    .block();
             log.info("Prediction successful for request: {}", request);
             redirectAttributes.addFlashAttribute("predictionResponse", response);
             return "redirect:/prediction/result";
@@ -0,0 +1,47 @@
+package com.karolbystrek.tennispredictor.controller;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.BatchPredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionJob;
+import com.karolbystrek.tennispredictor.service.PredictionJobService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/prediction-jobs")
+public class PredictionJobController {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionJobController.class);
+    private final PredictionJobService predictionJobService;
+
+    public PredictionJobController(PredictionJobService predictionJobService) {
+        this.predictionJobService = predictionJobService;
+    }
+
+    @PostMapping
+    public ResponseEntity<PredictionJob> submit(@Valid @RequestBody BatchPredictionRequest request) {
+        log.info("POST /api/prediction-jobs - Received job with {} prediction requests", request.getRequests().size());
+        PredictionJob job = predictionJobService.submit(request.getRequests());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/prediction-jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<PredictionJob> get(@PathVariable String id) {
+        return predictionJobService.find(id)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new PredictionServiceException("Prediction job not found: " + id, HttpStatus.NOT_FOUND.value()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.karolbystrek.tennispredictor.controller;
+
+import com.karolbystrek.tennispredictor.model.TournamentSimulationRequest;
+import com.karolbystrek.tennispredictor.model.TournamentSimulationResult;
+import com.karolbystrek.tennispredictor.service.TournamentSimulationService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/simulations")
+public class TournamentSimulationController {
+
+    private static final Logger log = LoggerFactory.getLogger(TournamentSimulationController.class);
+    private final TournamentSimulationService tournamentSimulationService;
+
+    public TournamentSimulationController(TournamentSimulationService tournamentSimulationService) {
+        this.tournamentSimulationService = tournamentSimulationService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<TournamentSimulationResult>> simulate(@Valid @RequestBody TournamentSimulationRequest request) {
+        log.info("POST /api/simulations - Received draw of {} players for {} simulations",
+                request.getDraw().size(), request.getSimulations());
+        return tournamentSimulationService.simulate(request)
+                .map(result -> {
+                    log.info("POST /api/simulations - Simulation of {} players finished", result.getPlayers().size());
+                    return ResponseEntity.ok(result);
+                });
+    }
+}
@@ -2,6 +2,7 @@ package com.karolbystrek.tennispredictor.exceptions;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -28,8 +30,9 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(PredictionServiceException.class)
     public ResponseEntity<ErrorResponse> handlePredictionServiceException(PredictionServiceException ex) {
         log.error("Handling PredictionServiceException (Status {}): {}", ex.getStatusCode(), ex.getMessage(), ex);
-        return ResponseEntity.status(ex.getStatusCode())
-                .body(new ErrorResponse(ex.getMessage()));
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(ex.getStatusCode());
+        ex.getRetryAfter().ifPresent(retryAfter -> response.header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(retryAfter)));
+        return response.body(new ErrorResponse(ex.getMessage()));
     }
 
     @ExceptionHandler(UserAlreadyExistsException.class)
@@ -69,4 +72,9 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ErrorResponse("An unexpected internal error occurred. Please try again later."));
     }
+
+    private static String retryAfterSeconds(Duration retryAfter) {
+        long millis = Math.max(retryAfter.toMillis(), 0);
+        return String.valueOf(Math.max(1, (millis + 999) / 1000));
+    }
 }
@@ -1,14 +1,27 @@
 package com.karolbystrek.tennispredictor.exceptions;
 
+import java.time.Duration;
+import java.util.Optional;
+
 public class PredictionServiceException extends RuntimeException {
     private final int statusCode;
+    private final Duration retryAfter;
 
     public PredictionServiceException(String message, int statusCode) {
+        this(message, statusCode, null);
+    }
+
+    public PredictionServiceException(String message, int statusCode, Duration retryAfter) {
         super(message);
         this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
     }
 
     public int getStatusCode() {
         return statusCode;
     }
+
+    public Optional<Duration> getRetryAfter() {
+        return Optional.ofNullable(retryAfter);
+    }
 }
@@ -0,0 +1,21 @@
+package com.karolbystrek.tennispredictor.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchPredictionRequest {
+
+    @NotEmpty(message = "At least one prediction request is required")
+    private List<@Valid @NotNull(message = "Prediction request cannot be null") PredictionRequest> requests;
+}
@@ -0,0 +1,31 @@
+package com.karolbystrek.tennispredictor.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPredictionResult {
+
+    private int index;
+
+    private PredictionResponse prediction;
+
+    private Integer errorStatus;
+
+    private String errorMessage;
+
+    public static BatchPredictionResult success(int index, PredictionResponse prediction) {
+        return new BatchPredictionResult(index, prediction, null, null);
+    }
+
+    public static BatchPredictionResult failure(int index, int errorStatus, String errorMessage) {
+        return new BatchPredictionResult(index, null, errorStatus, errorMessage);
+    }
+}
@@ -80,4 +80,10 @@ public class Player {
     @Min(value = 0, message = "Elo clay must be a positive number")
     @Column(name = "elo_clay")
     private Integer eloClay;
+
+    /**
+     * Version of the last insert or update of this row in the player change log. Assigned by the database.
+     */
+    @Column(name = "change_version", insertable = false, updatable = false)
+    private Long changeVersion;
 }
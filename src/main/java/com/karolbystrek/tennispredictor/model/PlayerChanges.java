@@ -0,0 +1,26 @@
+package com.karolbystrek.tennispredictor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayerChanges {
+
+    /**
+     * Highest change version included; pass it as {@code since} to continue.
+     */
+    private long version;
+
+    private List<PlayerDTO> upserts;
+
+    private List<Long> deletedPlayerIds;
+
+    private boolean hasMore;
+}
@@ -0,0 +1,24 @@
+package com.karolbystrek.tennispredictor.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlayerPage {
+
+    private List<PlayerDTO> players;
+
+    /**
+     * Cursor for the next page, or {@code null} on the last page.
+     */
+    private Long nextCursor;
+}
@@ -0,0 +1,27 @@
+package com.karolbystrek.tennispredictor.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayerPageRequest {
+
+    public static final int DEFAULT_SIZE = 100;
+
+    private Long cursor;
+
+    @Min(value = 1, message = "Page size must be at least 1")
+    @Max(value = 1000, message = "Page size must be at most 1000")
+    private Integer size;
+
+    public boolean isPaged() {
+        return cursor != null || size != null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.karolbystrek.tennispredictor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayerTournamentOdds {
+
+    private Long playerId;
+
+    private String playerName;
+
+    private Map<String, Double> reachProbabilities;
+
+    private Double titleProbability;
+}
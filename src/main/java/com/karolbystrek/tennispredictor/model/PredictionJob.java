@@ -0,0 +1,36 @@
+package com.karolbystrek.tennispredictor.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PredictionJob {
+
+    private String id;
+
+    private PredictionJobStatus status;
+
+    private int total;
+
+    private int completed;
+
+    private Instant submittedAt;
+
+    private Instant startedAt;
+
+    private Instant completedAt;
+
+    private List<BatchPredictionResult> results;
+
+    private String error;
+}
@@ -0,0 +1,8 @@
+package com.karolbystrek.tennispredictor.model;
+
+public enum PredictionJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -24,4 +24,17 @@ public class PredictionResponse {
     private Long winnerId;
 
     private Float confidence;
+
+    private PredictionSource source = PredictionSource.MODEL;
+
+    public PredictionResponse(String player1Name,
+                              String player2Name,
+                              Float player1WinProbability,
+                              Float player2WinProbability,
+                              String winnerName,
+                              Long winnerId,
+                              Float confidence) {
+        this(player1Name, player2Name, player1WinProbability, player2WinProbability, winnerName, winnerId, confidence,
+                PredictionSource.MODEL);
+    }
 }
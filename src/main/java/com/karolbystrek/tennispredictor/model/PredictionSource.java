@@ -0,0 +1,7 @@
+package com.karolbystrek.tennispredictor.model;
+
+public enum PredictionSource {
+    MODEL,
+    ELO_FALLBACK,
+    STALE_CACHE
+}
@@ -0,0 +1,38 @@
+package com.karolbystrek.tennispredictor.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TournamentSimulationRequest {
+
+    @NotEmpty(message = "Draw cannot be empty")
+    private List<@NotNull(message = "Draw cannot contain empty slots") Long> draw;
+
+    @NotBlank(message = "Surface is required")
+    private String surface;
+
+    @NotBlank(message = "Tourney level is required")
+    private String tourneyLevel;
+
+    @Min(value = 1, message = "Best of must be positive")
+    @NotNull(message = "Best of is required")
+    private Integer bestOf;
+
+    @Min(value = 1, message = "At least one simulation is required")
+    @Max(value = 1_000_000, message = "At most 1000000 simulations are allowed")
+    @NotNull(message = "Number of simulations is required")
+    private Integer simulations = 10_000;
+}
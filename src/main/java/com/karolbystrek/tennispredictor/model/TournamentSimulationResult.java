@@ -0,0 +1,21 @@
+package com.karolbystrek.tennispredictor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TournamentSimulationResult {
+
+    private int simulations;
+
+    private List<String> rounds;
+
+    private List<PlayerTournamentOdds> players;
+}
@@ -1,9 +1,33 @@
 package com.karolbystrek.tennispredictor.repository;
 
 import com.karolbystrek.tennispredictor.model.Player;
+import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface PlayerRepository extends JpaRepository<Player, Long> {
+
+    List<Player> findByRankIsNotNullOrderByRankAsc(Limit limit);
+
+    @Query("SELECT new com.karolbystrek.tennispredictor.model.PlayerDTO(p.playerId, p.firstName, p.lastName, p.ioc) "
+            + "FROM Player p ORDER BY p.playerId")
+    List<PlayerDTO> findAllSummaries();
+
+    /**
+     * Keyset page of player summaries: the players with an ID greater than {@code afterId}, in ID order.
+     */
+    @Query("SELECT new com.karolbystrek.tennispredictor.model.PlayerDTO(p.playerId, p.firstName, p.lastName, p.ioc) "
+            + "FROM Player p WHERE p.playerId > :afterId ORDER BY p.playerId")
+    List<PlayerDTO> findSummariesAfter(@Param("afterId") long afterId, Limit limit);
+
+    List<Player> findByChangeVersionGreaterThanOrderByChangeVersionAsc(long changeVersion, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(p.changeVersion), 0) FROM Player p")
+    long findMaxChangeVersion();
 }
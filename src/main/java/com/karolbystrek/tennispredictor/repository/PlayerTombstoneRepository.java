@@ -0,0 +1,18 @@
+package com.karolbystrek.tennispredictor.repository;
+
+import com.karolbystrek.tennispredictor.model.PlayerTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PlayerTombstoneRepository extends JpaRepository<PlayerTombstone, Long> {
+
+    List<PlayerTombstone> findByChangeVersionGreaterThanOrderByChangeVersionAsc(long changeVersion, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(t.changeVersion), 0) FROM PlayerTombstone t")
+    long findMaxChangeVersion();
+}
@@ -39,7 +39,7 @@ public class SecurityConfiguration {
         return httpSecurity
                 .authorizeHttpRequests(authorize -> {
                     authorize.requestMatchers("/css/**", "/js/**", "/images/**").permitAll();
-                    authorize.requestMatchers("/login", "/register", "/players").permitAll();
+                    authorize.requestMatchers("/login", "/register", "/players", "/players/search", "/players/changes").permitAll();
                     authorize.requestMatchers("/prediction/**").authenticated();
                     authorize.anyRequest().authenticated();
                 })
@@ -0,0 +1,110 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PlayerNotFoundException;
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.BatchPredictionResult;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+public class BatchPredictionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchPredictionService.class);
+    private final PredictionService predictionService;
+    private final PredictionAdmission predictionAdmission;
+    private final int maxConcurrency;
+    private final int maxBatchSize;
+
+    public BatchPredictionService(PredictionService predictionService,
+                                  PredictionAdmission predictionAdmission,
+                                  @Value("${tennis.predictor.batch.max-concurrency:16}") int maxConcurrency,
+                                  @Value("${tennis.predictor.batch.max-size:256}") int maxBatchSize) {
+        if (maxConcurrency < 1) {
+            throw new IllegalStateException("Batch max concurrency 'tennis.predictor.batch.max-concurrency' must be positive");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalStateException("Batch max size 'tennis.predictor.batch.max-size' must be positive");
+        }
+        this.predictionService = predictionService;
+        this.predictionAdmission = predictionAdmission;
+        this.maxConcurrency = maxConcurrency;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Mono<List<BatchPredictionResult>> predictBatchAsync(List<PredictionRequest> requests) {
+        checkBatchSize(requests);
+        log.info("Running batch of {} predictions with concurrency {}", requests.size(), maxConcurrency);
+
+        return Flux.range(0, requests.size())
+                .flatMapSequential(index -> predictOne(index, requests.get(index)), maxConcurrency)
+                .collectList()
+                .doOnNext(results -> log.info("Batch of {} predictions finished", results.size()));
+    }
+
+    /**
+     * Emits each result as soon as it is ready, in completion order, with at most {@code max-concurrency}
+     * predictions in flight. Cancelling the subscription cancels the predictions that are still pending.
+     */
+    public Flux<BatchPredictionResult> predictBatchStream(List<PredictionRequest> requests) {
+        checkBatchSize(requests);
+        log.info("Streaming batch of {} predictions with concurrency {}", requests.size(), maxConcurrency);
+
+        return Flux.range(0, requests.size())
+                .flatMap(index -> predictOne(index, requests.get(index)), maxConcurrency)
+                .doOnCancel(() -> log.info("Streamed batch of {} predictions cancelled", requests.size()));
+    }
+
+    /**
+     * Predicts one entry of a batch at {@link PredictionPriority#BATCH}; failures, including admission
+     * rejections, become error results instead of failing the batch.
+     */
+    Mono<BatchPredictionResult> predictOne(int index, PredictionRequest request) {
+        return toResult(index, predictionAdmission.admit(PredictionPriority.BATCH, () -> predictionService.predictAsync(request)));
+    }
+
+    /**
+     * Predicts one entry of a prediction job at {@link PredictionPriority#BATCH}. Unlike {@link #predictOne}, an
+     * admission rejection is not a result: the entry waits and asks again, since jobs are meant to tolerate delay.
+     */
+    Mono<BatchPredictionResult> predictJobEntry(int index, PredictionRequest request) {
+        return toResult(index, predictionAdmission.admitWhenAvailable(PredictionPriority.BATCH, () -> predictionService.predictAsync(request)));
+    }
+
+    private Mono<BatchPredictionResult> toResult(int index, Mono<PredictionResponse> prediction) {
+        return prediction
+                .map(response -> BatchPredictionResult.success(index, response))
+                .switchIfEmpty(Mono.fromSupplier(() -> BatchPredictionResult.failure(
+                        index, HttpStatus.INTERNAL_SERVER_ERROR.value(), "Prediction service returned an empty response")))
+                .onErrorResume(e -> {
+                    log.warn("Batch prediction {} failed: {}", index, e.getMessage());
+                    return Mono.just(toFailure(index, e));
+                });
+    }
+
+    private void checkBatchSize(List<PredictionRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new PredictionServiceException(
+                    "Batch of " + requests.size() + " predictions exceeds the limit of " + maxBatchSize,
+                    HttpStatus.BAD_REQUEST.value());
+        }
+    }
+
+    private static BatchPredictionResult toFailure(int index, Throwable e) {
+        if (e instanceof PredictionServiceException predictionServiceException) {
+            return BatchPredictionResult.failure(index, predictionServiceException.getStatusCode(), e.getMessage());
+        }
+        if (e instanceof PlayerNotFoundException) {
+            return BatchPredictionResult.failure(index, HttpStatus.NOT_FOUND.value(), e.getMessage());
+        }
+        return BatchPredictionResult.failure(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), "Prediction service internal server error: " + e.getMessage());
+    }
+}
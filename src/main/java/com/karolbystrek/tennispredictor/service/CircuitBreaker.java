@@ -0,0 +1,159 @@
+package com.karolbystrek.tennispredictor.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures in a row the circuit opens and
+ * rejects calls for {@code openDuration}; it then lets up to {@code halfOpenCalls} probe calls through and
+ * closes once that many have succeeded, or opens again on the first failed probe.
+ * <p>
+ * Every state change starts a new generation, and each permission is stamped with the generation it was
+ * granted in. Results reported for an older generation are ignored, so a slow call admitted before the
+ * circuit opened cannot close or reopen it as if it were a probe.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    /**
+     * Returned by {@link #tryAcquirePermission()} when the call is rejected.
+     */
+    public static final long REJECTED = -1;
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder rejected = new LongAdder();
+
+    private State state = State.CLOSED;
+    private long generation;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenCalls, LongSupplier nanoClock) {
+        if (failureThreshold < 1 || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("Circuit breaker failure threshold and half-open calls must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the generation of the permission if a call may proceed, or {@link #REJECTED}. Every permitted
+     * call must be followed by exactly one of {@link #onSuccess(long)}, {@link #onFailure(long)} or
+     * {@link #releasePermission(long)} with that generation.
+     */
+    public long tryAcquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openedAt < openNanos) {
+                    rejected.increment();
+                    return REJECTED;
+                }
+                transitionTo(State.HALF_OPEN);
+                probesInFlight = 0;
+                probeSuccesses = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight >= halfOpenCalls) {
+                    rejected.increment();
+                    return REJECTED;
+                }
+                probesInFlight++;
+            }
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void releasePermission(long permission) {
+        lock.lock();
+        try {
+            if (permission == generation && state == State.HALF_OPEN && probesInFlight > 0) {
+                probesInFlight--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long permission) {
+        lock.lock();
+        try {
+            if (permission != generation) {
+                return;
+            }
+            consecutiveFailures = 0;
+            if (state == State.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                if (++probeSuccesses >= halfOpenCalls) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure(long permission) {
+        lock.lock();
+        try {
+            if (permission != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN || (state == State.CLOSED && ++consecutiveFailures >= failureThreshold)) {
+                transitionTo(State.OPEN);
+                openedAt = nanoClock.getAsLong();
+                consecutiveFailures = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Time until the open circuit lets the next probe through, or zero when it is not open.
+     */
+    public Duration getRemainingOpenTime() {
+        lock.lock();
+        try {
+            if (state != State.OPEN) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos(Math.max(0, openNanos - (nanoClock.getAsLong() - openedAt)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void transitionTo(State next) {
+        state = next;
+        generation++;
+    }
+}
@@ -0,0 +1,217 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.Player;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.model.PredictionSource;
+import com.karolbystrek.tennispredictor.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-process win probability model based on the surface-specific Elo ratings stored on {@link Player}.
+ * Ratings are held in primitive arrays indexed through a {@link PlayerIndex}, so scoring a matchup does not
+ * allocate. The Elo expectation is treated as a best-of-3 probability and rescaled for other match lengths
+ * through the implied per-set win probability.
+ */
+@Component
+public class EloPredictionEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(EloPredictionEngine.class);
+    private static final int MISSING = -1;
+    private static final int SET_PROBABILITY_ITERATIONS = 40;
+
+    private final PlayerRepository playerRepository;
+    private final boolean enabled;
+    private volatile Ratings ratings = Ratings.EMPTY;
+
+    public EloPredictionEngine(PlayerRepository playerRepository,
+                               @Value("${tennis.predictor.fallback.enabled:true}") boolean enabled) {
+        this.playerRepository = playerRepository;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${tennis.predictor.fallback.refresh-interval:PT1H}")
+    public void refreshRatings() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Player> players = playerRepository.findAll();
+            ratings = Ratings.of(players);
+            log.info("Loaded Elo ratings for {} players", ratings.index().size());
+        } catch (Exception e) {
+            log.error("Failed to refresh Elo ratings, keeping {} previously loaded players", ratings.index().size(), e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getRatedPlayerCount() {
+        return ratings.index().size();
+    }
+
+    /**
+     * Returns the probability that player 1 wins, or {@link Double#NaN} when either player has no rating.
+     */
+    public double winProbability(long player1Id, long player2Id, String surface, int bestOf) {
+        return winProbability(ratings, player1Id, player2Id, surface, bestOf);
+    }
+
+    private static double winProbability(Ratings current, long player1Id, long player2Id, String surface, int bestOf) {
+        int player1 = current.index().indexOf(player1Id);
+        int player2 = current.index().indexOf(player2Id);
+        if (player1 == PlayerIndex.NOT_FOUND || player2 == PlayerIndex.NOT_FOUND) {
+            return Double.NaN;
+        }
+        int[] surfaceRatings = current.forSurface(surface);
+        double rating1 = effectiveRating(current.overall(), surfaceRatings, player1);
+        double rating2 = effectiveRating(current.overall(), surfaceRatings, player2);
+        if (Double.isNaN(rating1) || Double.isNaN(rating2)) {
+            return Double.NaN;
+        }
+        double bestOfThree = 1.0 / (1.0 + Math.pow(10.0, (rating2 - rating1) / 400.0));
+        return adjustForBestOf(bestOfThree, bestOf);
+    }
+
+    public Optional<PredictionResponse> predict(PredictionRequest request) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Ratings current = ratings;
+        double probability = winProbability(current, request.getPlayer1Id(), request.getPlayer2Id(), request.getSurface(), request.getBestOf());
+        if (Double.isNaN(probability)) {
+            return Optional.empty();
+        }
+        float player1Probability = (float) probability;
+        float player2Probability = 1.0f - player1Probability;
+        String player1Name = current.nameOf(request.getPlayer1Id());
+        String player2Name = current.nameOf(request.getPlayer2Id());
+        boolean player1Wins = player1Probability >= player2Probability;
+        return Optional.of(new PredictionResponse(
+                player1Name,
+                player2Name,
+                player1Probability,
+                player2Probability,
+                player1Wins ? player1Name : player2Name,
+                player1Wins ? request.getPlayer1Id() : request.getPlayer2Id(),
+                Math.abs(player1Probability - player2Probability),
+                PredictionSource.ELO_FALLBACK
+        ));
+    }
+
+    private static double effectiveRating(int[] overall, int[] surfaceRatings, int player) {
+        int overallRating = overall[player];
+        int surfaceRating = surfaceRatings == null ? MISSING : surfaceRatings[player];
+        if (overallRating == MISSING) {
+            return surfaceRating == MISSING ? Double.NaN : surfaceRating;
+        }
+        return surfaceRating == MISSING ? overallRating : (overallRating + surfaceRating) / 2.0;
+    }
+
+    static double adjustForBestOf(double bestOfThreeProbability, int bestOf) {
+        if (bestOf == 3 || bestOf < 1) {
+            return bestOfThreeProbability;
+        }
+        double low = 0.0;
+        double high = 1.0;
+        for (int i = 0; i < SET_PROBABILITY_ITERATIONS; i++) {
+            double mid = (low + high) / 2.0;
+            if (matchProbability(mid, 3) < bestOfThreeProbability) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return matchProbability((low + high) / 2.0, bestOf);
+    }
+
+    /**
+     * Probability of winning a best-of-n match given the probability of winning a single set.
+     */
+    static double matchProbability(double setProbability, int bestOf) {
+        int setsToWin = (bestOf + 1) / 2;
+        double lossProbability = 1.0 - setProbability;
+        double winAllSets = Math.pow(setProbability, setsToWin);
+        double sum = 0.0;
+        double combinations = 1.0;
+        double lossPower = 1.0;
+        for (int setsLost = 0; setsLost < setsToWin; setsLost++) {
+            if (setsLost > 0) {
+                combinations = combinations * (setsToWin - 1 + setsLost) / setsLost;
+                lossPower *= lossProbability;
+            }
+            sum += combinations * lossPower;
+        }
+        return winAllSets * sum;
+    }
+
+    private record Ratings(PlayerIndex index,
+                           int[] overall,
+                           int[] hard,
+                           int[] clay,
+                           int[] grass,
+                           int[] carpet,
+                           String[] names) {
+
+        static final Ratings EMPTY = of(List.of());
+
+        static Ratings of(List<Player> players) {
+            List<Player> rated = players.stream().filter(player -> player.getPlayerId() != null).toList();
+            int size = rated.size();
+            long[] playerIds = new long[size];
+            int[] overall = new int[size];
+            int[] hard = new int[size];
+            int[] clay = new int[size];
+            int[] grass = new int[size];
+            int[] carpet = new int[size];
+            String[] names = new String[size];
+            for (int i = 0; i < size; i++) {
+                Player player = rated.get(i);
+                playerIds[i] = player.getPlayerId();
+                overall[i] = ratingOf(player.getElo());
+                hard[i] = ratingOf(player.getEloHard());
+                clay[i] = ratingOf(player.getEloClay());
+                grass[i] = ratingOf(player.getEloGrass());
+                carpet[i] = ratingOf(player.getEloCarpet());
+                names[i] = player.getFirstName() + " " + player.getLastName();
+            }
+            return new Ratings(new PlayerIndex(playerIds), overall, hard, clay, grass, carpet, names);
+        }
+
+        int[] forSurface(String surface) {
+            if (surface == null) {
+                return null;
+            }
+            if ("Hard".equalsIgnoreCase(surface)) {
+                return hard;
+            }
+            if ("Clay".equalsIgnoreCase(surface)) {
+                return clay;
+            }
+            if ("Grass".equalsIgnoreCase(surface)) {
+                return grass;
+            }
+            if ("Carpet".equalsIgnoreCase(surface)) {
+                return carpet;
+            }
+            return null;
+        }
+
+        String nameOf(long playerId) {
+            return names[index.indexOf(playerId)];
+        }
+
+        private static int ratingOf(Integer elo) {
+            return elo == null || elo <= 0 ? MISSING : elo;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+
+import java.util.Locale;
+
+/**
+ * Order-independent identity of a matchup: (p1, p2) and (p2, p1) with the same match conditions map to the
+ * same key, with the lower player ID always in the first slot.
+ */
+public record MatchupKey(long firstPlayerId,
+                         long secondPlayerId,
+                         String surface,
+                         String tourneyLevel,
+                         int bestOf,
+                         String round) {
+
+    public static MatchupKey of(PredictionRequest request) {
+        long player1Id = request.getPlayer1Id();
+        long player2Id = request.getPlayer2Id();
+        return new MatchupKey(
+                Math.min(player1Id, player2Id),
+                Math.max(player1Id, player2Id),
+                normalize(request.getSurface()),
+                normalize(request.getTourneyLevel()),
+                request.getBestOf(),
+                normalize(request.getRound())
+        );
+    }
+
+    public boolean isReversed(PredictionRequest request) {
+        return request.getPlayer1Id() != firstPlayerId;
+    }
+
+    /**
+     * Flips the response between the canonical orientation of this key and the orientation of the request.
+     * The operation is its own inverse and always returns a new instance.
+     */
+    public PredictionResponse orient(PredictionResponse response, PredictionRequest request) {
+        if (!isReversed(request)) {
+            return copyOf(response);
+        }
+        return new PredictionResponse(
+                response.getPlayer2Name(),
+                response.getPlayer1Name(),
+                response.getPlayer2WinProbability(),
+                response.getPlayer1WinProbability(),
+                response.getWinnerName(),
+                response.getWinnerId(),
+                response.getConfidence(),
+                response.getSource()
+        );
+    }
+
+    private static PredictionResponse copyOf(PredictionResponse response) {
+        return new PredictionResponse(
+                response.getPlayer1Name(),
+                response.getPlayer2Name(),
+                response.getPlayer1WinProbability(),
+                response.getPlayer2WinProbability(),
+                response.getWinnerName(),
+                response.getWinnerId(),
+                response.getConfidence(),
+                response.getSource()
+        );
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,84 @@
+package com.karolbystrek.tennispredictor.service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collects individually submitted items for up to {@code window} (or until {@code maxSize} items are waiting)
+ * and hands them to {@code batchCall} as one list. The batch call must answer with one result per item, in
+ * the same order; each result, or the batch error, is delivered to the caller that submitted the item.
+ */
+public class MicroBatcher<T, R> {
+
+    private static final Duration EMIT_RETRY = Duration.ofMillis(100);
+
+    private final Function<List<T>, Mono<List<R>>> batchCall;
+    private final Sinks.Many<Pending<T, R>> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable subscription;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder items = new LongAdder();
+
+    public MicroBatcher(int maxSize, Duration window, int maxConcurrentBatches, Function<List<T>, Mono<List<R>>> batchCall) {
+        if (maxSize < 1 || maxConcurrentBatches < 1) {
+            throw new IllegalArgumentException("Micro-batch size and concurrency must be positive");
+        }
+        this.batchCall = batchCall;
+        this.subscription = queue.asFlux()
+                .bufferTimeout(maxSize, window, true)
+                .flatMap(this::dispatch, maxConcurrentBatches)
+                .subscribe();
+    }
+
+    public Mono<R> submit(T item) {
+        return Mono.defer(() -> {
+            Sinks.One<R> result = Sinks.one();
+            try {
+                queue.emitNext(new Pending<>(item, result), Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY));
+            } catch (Sinks.EmissionException e) {
+                return Mono.error(new IllegalStateException("Micro-batcher is not accepting items", e));
+            }
+            return result.asMono();
+        });
+    }
+
+    public void dispose() {
+        queue.tryEmitComplete();
+        subscription.dispose();
+    }
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    public long itemCount() {
+        return items.sum();
+    }
+
+    private Mono<Void> dispatch(List<Pending<T, R>> pending) {
+        batches.increment();
+        items.add(pending.size());
+        List<T> batch = pending.stream().map(Pending::item).toList();
+        return Mono.defer(() -> batchCall.apply(batch))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Batch call completed without results")))
+                .doOnNext(results -> {
+                    if (results.size() != pending.size()) {
+                        throw new IllegalStateException("Batch call returned " + results.size() + " results for " + pending.size() + " items");
+                    }
+                    for (int i = 0; i < pending.size(); i++) {
+                        pending.get(i).result().tryEmitValue(results.get(i));
+                    }
+                })
+                .doOnError(e -> pending.forEach(item -> item.result().tryEmitError(e)))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private record Pending<T, R>(T item, Sinks.One<R> result) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.config.CacheConfiguration;
+import com.karolbystrek.tennispredictor.model.PlayerChanges;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the player search index and the cached player list up to date by polling the player change feed.
+ * Changes are applied to the index in place, and the cached list is re-serialized from the index rather
+ * than reloaded from the player table.
+ */
+@Component
+public class PlayerChangeSync {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerChangeSync.class);
+
+    private final PlayerService playerService;
+    private final PlayerSearchService playerSearchService;
+    private final CacheManager cacheManager;
+    private final int batchSize;
+
+    public PlayerChangeSync(PlayerService playerService,
+                            PlayerSearchService playerSearchService,
+                            CacheManager cacheManager,
+                            @Value("${tennis.predictor.players.sync.batch-size:1000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalStateException("Player sync batch size 'tennis.predictor.players.sync.batch-size' must be positive");
+        }
+        this.playerService = playerService;
+        this.playerSearchService = playerSearchService;
+        this.cacheManager = cacheManager;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${tennis.predictor.players.sync.interval:PT1M}",
+            fixedDelayString = "${tennis.predictor.players.sync.interval:PT1M}")
+    public void sync() {
+        long since = playerSearchService.getSyncedVersion();
+        if (since < 0) {
+            log.debug("Player search index not loaded yet, skipping player change sync");
+            return;
+        }
+        try {
+            int changed = 0;
+            PlayerChanges changes;
+            do {
+                changes = playerService.getChangesSince(since, batchSize);
+                if (!playerSearchService.apply(since, changes)) {
+                    // a rebuild replaced the index while the batch was being read; the next sync resumes from it
+                    break;
+                }
+                changed += changes.getUpserts().size() + changes.getDeletedPlayerIds().size();
+                since = changes.getVersion();
+            } while (changes.isHasMore());
+
+            if (changed > 0) {
+                refreshPlayersCache();
+                log.info("Applied {} player changes, now at version {}", changed, since);
+            }
+        } catch (Exception e) {
+            log.error("Failed to sync player changes after version {}", since, e);
+        }
+    }
+
+    private void refreshPlayersCache() {
+        Cache cache = cacheManager.getCache(CacheConfiguration.PLAYERS_CACHE);
+        if (cache != null) {
+            cache.put(SimpleKey.EMPTY, playerService.toPayload(playerSearchService.getIndexedPlayers()));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.karolbystrek.tennispredictor.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable open-addressing map from player ID to a dense index {@code 0..size-1}, so per-player data can be
+ * kept in primitive arrays and looked up without boxing.
+ */
+public final class PlayerIndex {
+
+    public static final int NOT_FOUND = -1;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long[] keys;
+    private final int[] values;
+    private final long[] playerIds;
+    private final int mask;
+
+    public PlayerIndex(long[] playerIds) {
+        int capacity = Integer.highestOneBit(Math.max(2, playerIds.length * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.playerIds = playerIds.clone();
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < playerIds.length; i++) {
+            long playerId = playerIds[i];
+            if (playerId == EMPTY) {
+                throw new IllegalArgumentException("Unsupported player ID " + playerId);
+            }
+            int slot = slot(playerId);
+            while (keys[slot] != EMPTY && keys[slot] != playerId) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == playerId) {
+                throw new IllegalArgumentException("Duplicate player ID " + playerId);
+            }
+            keys[slot] = playerId;
+            values[slot] = i;
+        }
+    }
+
+    public int indexOf(long playerId) {
+        int slot = slot(playerId);
+        while (true) {
+            long key = keys[slot];
+            if (key == playerId) {
+                return values[slot];
+            }
+            if (key == EMPTY) {
+                return NOT_FOUND;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public long playerIdAt(int index) {
+        return playerIds[index];
+    }
+
+    public int size() {
+        return playerIds.length;
+    }
+
+    private int slot(long playerId) {
+        long hash = playerId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,438 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PlayerDTO;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable name index over players. Names are normalized (accents stripped, lower-cased, split on anything
+ * that is not a letter or digit) into a sorted token array with a posting list per token, so prefix lookups
+ * are a binary search plus a short scan. Each player has a stable slot, and postings hold slots. A separate
+ * display order (last name, first name, ID) maps slots to ranks, and matches are collected by rank, so results
+ * come out sorted without a sort per query.
+ * <p>
+ * {@link #withChanges} returns a new index that shares every posting list the changes do not touch. Only the
+ * changed and deleted players are tokenized again. Upserted players take new slots at the end, and the slots
+ * they leave behind stay empty until the index is rebuilt. The rebuild happens on its own once more than half
+ * of the slots are empty.
+ * <p>
+ * Every query token has to match some name token. Prefix matches rank first; when they do not fill the limit,
+ * tokens of at least {@value #MIN_FUZZY_LENGTH} characters also match names whose prefix is one edit (insertion,
+ * deletion, substitution or transposition of adjacent characters) away. Only name tokens that start with the
+ * query token's first or second character are compared, which are two contiguous ranges of the sorted tokens,
+ * so the first letter has to be right unless it was swapped with the second or typed in front of the name.
+ */
+public final class PlayerSearchIndex {
+
+    public static final PlayerSearchIndex EMPTY = build(List.of());
+
+    static final int MIN_FUZZY_LENGTH = 3;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** Players by slot; {@code null} for slots freed by changes. */
+    private final PlayerDTO[] players;
+    private final String[] sortKeys;
+    /** Occupied slots in display order. */
+    private final int[] displayOrder;
+    /** Position of each slot in {@link #displayOrder}, or -1 for a free slot. */
+    private final int[] ranks;
+    private final Map<Long, Integer> slotsByPlayerId;
+    private final String[] tokens;
+    /** Slots per token, ascending. */
+    private final int[][] postings;
+
+    private PlayerSearchIndex(PlayerDTO[] players, String[] sortKeys, int[] displayOrder, Map<Long, Integer> slotsByPlayerId,
+                              String[] tokens, int[][] postings) {
+        this.players = players;
+        this.sortKeys = sortKeys;
+        this.displayOrder = displayOrder;
+        this.ranks = new int[players.length];
+        Arrays.fill(ranks, -1);
+        for (int rank = 0; rank < displayOrder.length; rank++) {
+            ranks[displayOrder[rank]] = rank;
+        }
+        this.slotsByPlayerId = slotsByPlayerId;
+        this.tokens = tokens;
+        this.postings = postings;
+    }
+
+    public static PlayerSearchIndex build(Collection<PlayerDTO> source) {
+        PlayerDTO[] players = source.toArray(PlayerDTO[]::new);
+        String[] sortKeys = new String[players.length];
+        Map<Long, Integer> slotsByPlayerId = new HashMap<>();
+        TreeMap<String, List<Integer>> tokenPostings = new TreeMap<>();
+        for (int slot = 0; slot < players.length; slot++) {
+            sortKeys[slot] = sortKey(players[slot]);
+            slotsByPlayerId.put(players[slot].getPlayerId(), slot);
+            for (String token : tokens(players[slot])) {
+                tokenPostings.computeIfAbsent(token, t -> new ArrayList<>()).add(slot);
+            }
+        }
+        int[] displayOrder = sortedSlots(players, sortKeys, 0, players.length);
+
+        String[] tokens = tokenPostings.keySet().toArray(String[]::new);
+        int[][] postings = new int[tokens.length][];
+        for (int i = 0; i < tokens.length; i++) {
+            postings[i] = tokenPostings.get(tokens[i]).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new PlayerSearchIndex(players, sortKeys, displayOrder, slotsByPlayerId, tokens, postings);
+    }
+
+    /**
+     * Returns a new index in which the upserted players are added or replace the player with the same ID, and
+     * the deleted IDs are gone. An upsert wins over a deletion of the same ID. This index is left as it is.
+     */
+    public PlayerSearchIndex withChanges(Collection<PlayerDTO> upserts, Collection<Long> deletedPlayerIds) {
+        Map<Long, PlayerDTO> added = new LinkedHashMap<>();
+        for (PlayerDTO player : upserts) {
+            added.put(player.getPlayerId(), player);
+        }
+        Set<Long> removedIds = new LinkedHashSet<>(deletedPlayerIds);
+        removedIds.addAll(added.keySet());
+        BitSet removedSlots = new BitSet(players.length);
+        for (Long playerId : removedIds) {
+            Integer slot = slotsByPlayerId.get(playerId);
+            if (slot != null) {
+                removedSlots.set(slot);
+            }
+        }
+        if (added.isEmpty() && removedSlots.isEmpty()) {
+            return this;
+        }
+        int liveCount = displayOrder.length - removedSlots.cardinality() + added.size();
+        if ((players.length + added.size()) > 2 * liveCount) {
+            return build(compactedPlayers(removedSlots, added.values()));
+        }
+
+        int firstAddedSlot = players.length;
+        PlayerDTO[] newPlayers = Arrays.copyOf(players, players.length + added.size());
+        String[] newSortKeys = Arrays.copyOf(sortKeys, newPlayers.length);
+        Map<Long, Integer> newSlots = new HashMap<>(slotsByPlayerId);
+        deletedPlayerIds.forEach(newSlots::remove);
+        for (int slot = removedSlots.nextSetBit(0); slot >= 0; slot = removedSlots.nextSetBit(slot + 1)) {
+            newPlayers[slot] = null;
+            newSortKeys[slot] = null;
+        }
+        int slot = firstAddedSlot;
+        for (PlayerDTO player : added.values()) {
+            newPlayers[slot] = player;
+            newSortKeys[slot] = sortKey(player);
+            newSlots.put(player.getPlayerId(), slot);
+            slot++;
+        }
+
+        int[] newDisplayOrder = mergeDisplayOrder(newPlayers, newSortKeys, removedSlots, firstAddedSlot);
+        return withPostings(newPlayers, newSortKeys, newDisplayOrder, newSlots, changedPostings(removedSlots, newPlayers, firstAddedSlot));
+    }
+
+    public List<PlayerDTO> search(String query, int limit) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0 || limit < 1 || displayOrder.length == 0) {
+            return List.of();
+        }
+
+        BitSet[] tokenPrefixMatches = new BitSet[queryTokens.length];
+        BitSet prefixMatches = null;
+        for (int i = 0; i < queryTokens.length; i++) {
+            tokenPrefixMatches[i] = prefixMatches(queryTokens[i]);
+            prefixMatches = intersect(prefixMatches, tokenPrefixMatches[i]);
+        }
+        List<PlayerDTO> results = new ArrayList<>(Math.min(limit, displayOrder.length));
+        collect(prefixMatches, null, limit, results);
+        if (results.size() >= limit) {
+            return results;
+        }
+
+        BitSet fuzzyMatches = null;
+        for (int i = 0; i < queryTokens.length; i++) {
+            // the per-token prefix matches are reused, and no longer needed as they are once extended here
+            BitSet matches = tokenPrefixMatches[i];
+            if (queryTokens[i].length() >= MIN_FUZZY_LENGTH) {
+                addFuzzyMatches(queryTokens[i], matches);
+            }
+            fuzzyMatches = intersect(fuzzyMatches, matches);
+        }
+        collect(fuzzyMatches, prefixMatches, limit, results);
+        return results;
+    }
+
+    /**
+     * The indexed players in display order.
+     */
+    public List<PlayerDTO> players() {
+        PlayerDTO[] ordered = new PlayerDTO[displayOrder.length];
+        for (int rank = 0; rank < displayOrder.length; rank++) {
+            ordered[rank] = players[displayOrder[rank]];
+        }
+        return List.of(ordered);
+    }
+
+    public int size() {
+        return displayOrder.length;
+    }
+
+    private List<PlayerDTO> compactedPlayers(BitSet removedSlots, Collection<PlayerDTO> added) {
+        List<PlayerDTO> remaining = new ArrayList<>(displayOrder.length + added.size());
+        for (int slot : displayOrder) {
+            if (!removedSlots.get(slot)) {
+                remaining.add(players[slot]);
+            }
+        }
+        remaining.addAll(added);
+        return remaining;
+    }
+
+    /**
+     * Drops the removed slots from the current display order and merges in the added slots, which are sorted
+     * on their own first.
+     */
+    private int[] mergeDisplayOrder(PlayerDTO[] newPlayers, String[] newSortKeys, BitSet removedSlots, int firstAddedSlot) {
+        int[] addedOrder = sortedSlots(newPlayers, newSortKeys, firstAddedSlot, newPlayers.length);
+        Comparator<Integer> displayComparator = displayComparator(newPlayers, newSortKeys);
+        int[] merged = new int[displayOrder.length - removedSlots.cardinality() + addedOrder.length];
+        int next = 0;
+        int a = 0;
+        for (int slot : displayOrder) {
+            if (removedSlots.get(slot)) {
+                continue;
+            }
+            while (a < addedOrder.length && displayComparator.compare(addedOrder[a], slot) < 0) {
+                merged[next++] = addedOrder[a++];
+            }
+            merged[next++] = slot;
+        }
+        while (a < addedOrder.length) {
+            merged[next++] = addedOrder[a++];
+        }
+        return merged;
+    }
+
+    /**
+     * New posting lists for the tokens of the removed and added players only. An empty list means the token
+     * is gone.
+     */
+    private TreeMap<String, int[]> changedPostings(BitSet removedSlots, PlayerDTO[] newPlayers, int firstAddedSlot) {
+        TreeMap<String, int[]> changed = new TreeMap<>();
+        for (int slot = removedSlots.nextSetBit(0); slot >= 0; slot = removedSlots.nextSetBit(slot + 1)) {
+            for (String token : tokens(players[slot])) {
+                changed.computeIfAbsent(token, t -> Arrays.stream(postingsOf(t))
+                        .filter(posting -> !removedSlots.get(posting))
+                        .toArray());
+            }
+        }
+        for (int slot = firstAddedSlot; slot < newPlayers.length; slot++) {
+            for (String token : tokens(newPlayers[slot])) {
+                int[] current = changed.computeIfAbsent(token, t -> Arrays.stream(postingsOf(t))
+                        .filter(posting -> !removedSlots.get(posting))
+                        .toArray());
+                // added slots come after every existing one, so appending keeps the list ascending
+                int[] extended = Arrays.copyOf(current, current.length + 1);
+                extended[current.length] = slot;
+                changed.put(token, extended);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Merges the changed posting lists into the sorted token array, sharing the unchanged lists with this index.
+     */
+    private PlayerSearchIndex withPostings(PlayerDTO[] newPlayers, String[] newSortKeys, int[] newDisplayOrder,
+                                           Map<Long, Integer> newSlots, TreeMap<String, int[]> changed) {
+        List<String> newTokens = new ArrayList<>(tokens.length + changed.size());
+        List<int[]> newPostings = new ArrayList<>(tokens.length + changed.size());
+        int i = 0;
+        for (Map.Entry<String, int[]> entry : changed.entrySet()) {
+            while (i < tokens.length && tokens[i].compareTo(entry.getKey()) < 0) {
+                newTokens.add(tokens[i]);
+                newPostings.add(postings[i++]);
+            }
+            if (i < tokens.length && tokens[i].equals(entry.getKey())) {
+                i++;
+            }
+            if (entry.getValue().length > 0) {
+                newTokens.add(entry.getKey());
+                newPostings.add(entry.getValue());
+            }
+        }
+        while (i < tokens.length) {
+            newTokens.add(tokens[i]);
+            newPostings.add(postings[i++]);
+        }
+        return new PlayerSearchIndex(newPlayers, newSortKeys, newDisplayOrder, newSlots,
+                newTokens.toArray(String[]::new), newPostings.toArray(int[][]::new));
+    }
+
+    private int[] postingsOf(String token) {
+        int index = Arrays.binarySearch(tokens, token);
+        return index < 0 ? new int[0] : postings[index];
+    }
+
+    private static int[] sortedSlots(PlayerDTO[] players, String[] sortKeys, int from, int to) {
+        Integer[] slots = new Integer[to - from];
+        for (int slot = from; slot < to; slot++) {
+            slots[slot - from] = slot;
+        }
+        Arrays.sort(slots, displayComparator(players, sortKeys));
+        return Arrays.stream(slots).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Comparator<Integer> displayComparator(PlayerDTO[] players, String[] sortKeys) {
+        return Comparator.<Integer, String>comparing(slot -> sortKeys[slot])
+                .thenComparing(slot -> players[slot].getPlayerId(), Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    private static String sortKey(PlayerDTO player) {
+        return normalize(player.getLastName()) + '\u0000' + normalize(player.getFirstName());
+    }
+
+    /**
+     * The distinct tokens of a player's first and last name.
+     */
+    private static Set<String> tokens(PlayerDTO player) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokens.addAll(Arrays.asList(tokenize(player.getFirstName())));
+        tokens.addAll(Arrays.asList(tokenize(player.getLastName())));
+        return tokens;
+    }
+
+    /**
+     * Strips accents and case, e.g. {@code "Đoković"} becomes {@code "djokovic"}.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = stripped.charAt(i);
+            switch (c) {
+                case 'đ' -> normalized.append("dj");
+                case 'ø' -> normalized.append('o');
+                case 'ł' -> normalized.append('l');
+                case 'æ' -> normalized.append("ae");
+                case 'ß' -> normalized.append("ss");
+                default -> normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static String[] tokenize(String value) {
+        return Arrays.stream(SEPARATORS.split(normalize(value)))
+                .filter(token -> !token.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private BitSet prefixMatches(String prefix) {
+        BitSet matches = new BitSet(displayOrder.length);
+        for (int i = insertionPoint(prefix); i < tokens.length && tokens[i].startsWith(prefix); i++) {
+            for (int slot : postings[i]) {
+                matches.set(ranks[slot]);
+            }
+        }
+        return matches;
+    }
+
+    private void addFuzzyMatches(String queryToken, BitSet matches) {
+        addFuzzyMatches(queryToken, queryToken.charAt(0), matches);
+        if (queryToken.charAt(1) != queryToken.charAt(0)) {
+            addFuzzyMatches(queryToken, queryToken.charAt(1), matches);
+        }
+    }
+
+    private void addFuzzyMatches(String queryToken, char firstChar, BitSet matches) {
+        int length = queryToken.length();
+        int end = firstChar == Character.MAX_VALUE ? tokens.length : insertionPoint(String.valueOf((char) (firstChar + 1)));
+        for (int i = insertionPoint(String.valueOf(firstChar)); i < end; i++) {
+            String token = tokens[i];
+            if (token.length() < length - 1) {
+                continue;
+            }
+            if (withinOneEdit(queryToken, token, length - 1)
+                    || withinOneEdit(queryToken, token, length)
+                    || withinOneEdit(queryToken, token, length + 1)) {
+                for (int slot : postings[i]) {
+                    matches.set(ranks[slot]);
+                }
+            }
+        }
+    }
+
+    private int insertionPoint(String key) {
+        int index = Arrays.binarySearch(tokens, key);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    /**
+     * Whether {@code query} is at most one edit away from the first {@code prefixLength} characters of {@code token}.
+     */
+    static boolean withinOneEdit(String query, String token, int prefixLength) {
+        if (prefixLength > token.length() || prefixLength < 0) {
+            return false;
+        }
+        int n = query.length();
+        int m = prefixLength;
+        if (Math.abs(n - m) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < n && i < m && query.charAt(i) == token.charAt(i)) {
+            i++;
+        }
+        if (i == n && i == m) {
+            return true;
+        }
+        if (n == m) {
+            if (regionEquals(query, i + 1, token, i + 1, n - i - 1)) {
+                return true;
+            }
+            return i + 1 < n
+                    && query.charAt(i) == token.charAt(i + 1)
+                    && query.charAt(i + 1) == token.charAt(i)
+                    && regionEquals(query, i + 2, token, i + 2, n - i - 2);
+        }
+        if (n > m) {
+            return regionEquals(query, i + 1, token, i, m - i);
+        }
+        return regionEquals(query, i, token, i + 1, n - i);
+    }
+
+    private static boolean regionEquals(String a, int aOffset, String b, int bOffset, int length) {
+        return length <= 0 || a.regionMatches(aOffset, b, bOffset, length);
+    }
+
+    private static BitSet intersect(BitSet accumulated, BitSet matches) {
+        if (accumulated == null) {
+            return (BitSet) matches.clone();
+        }
+        accumulated.and(matches);
+        return accumulated;
+    }
+
+    private void collect(BitSet matches, BitSet exclude, int limit, List<PlayerDTO> results) {
+        for (int position = matches.nextSetBit(0); position >= 0 && results.size() < limit; position = matches.nextSetBit(position + 1)) {
+            if (exclude == null || !exclude.get(position)) {
+                results.add(players[displayOrder[position]]);
+            }
+        }
+    }
+}
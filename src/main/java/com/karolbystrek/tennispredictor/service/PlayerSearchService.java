@@ -0,0 +1,104 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PlayerChanges;
+import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Serves player name searches from a {@link PlayerSearchIndex}. The index is loaded from the player table at
+ * startup and every {@code refresh-interval}; {@link #apply} folds player changes into a copy of the index that
+ * re-tokenizes only the changed players and shares everything else, and remembers the change version the index
+ * is synced to. Either way the new index is built off to the side and published with a single volatile write,
+ * so searches never wait for a rebuild.
+ */
+@Service
+public class PlayerSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerSearchService.class);
+
+    private final PlayerService playerService;
+    private final int maxResults;
+    private volatile PlayerSearchIndex index = PlayerSearchIndex.EMPTY;
+    private volatile long syncedVersion = -1;
+
+    public PlayerSearchService(PlayerService playerService,
+                               @Value("${tennis.predictor.players.search.max-results:50}") int maxResults) {
+        if (maxResults < 1) {
+            throw new IllegalStateException("Player search max results 'tennis.predictor.players.search.max-results' must be positive");
+        }
+        this.playerService = playerService;
+        this.maxResults = maxResults;
+    }
+
+    public List<PlayerDTO> search(String query, int limit) {
+        return index.search(query, Math.min(limit, maxResults));
+    }
+
+    @Scheduled(initialDelayString = "${tennis.predictor.players.search.initial-delay:PT0S}",
+            fixedDelayString = "${tennis.predictor.players.search.refresh-interval:PT1H}")
+    public void rebuild() {
+        try {
+            long start = System.nanoTime();
+            // read the version first: changes made while loading are replayed by the next sync, which is harmless
+            long version = playerService.getCurrentChangeVersion();
+            List<PlayerDTO> players = playerService.getAllPlayers();
+            PlayerSearchIndex rebuilt = PlayerSearchIndex.build(players);
+            synchronized (this) {
+                index = rebuilt;
+                syncedVersion = version;
+            }
+            log.info("Indexed {} players for search in {} ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to rebuild the player search index, keeping the previous one", e);
+        }
+    }
+
+    /**
+     * Adds or replaces the upserted players and drops the deleted ones in a new index built from the current one.
+     * The changes must have been read after version {@code since}; if the index has moved on from that version
+     * in the meantime, e.g. because a rebuild published a newer snapshot, the batch is stale and is dropped so it
+     * cannot overwrite newer players. Returns whether the changes were applied.
+     */
+    public synchronized boolean apply(long since, PlayerChanges changes) {
+        if (since != syncedVersion) {
+            log.debug("Dropping player changes read after version {}, the index is at version {}", since, syncedVersion);
+            return false;
+        }
+        List<PlayerDTO> upserts = changes.getUpserts();
+        List<Long> removedPlayerIds = changes.getDeletedPlayerIds();
+        syncedVersion = changes.getVersion();
+        if (upserts.isEmpty() && removedPlayerIds.isEmpty()) {
+            return true;
+        }
+        index = index.withChanges(upserts, removedPlayerIds);
+        log.debug("Applied {} player updates and {} removals to the search index", upserts.size(), removedPlayerIds.size());
+        return true;
+    }
+
+    /**
+     * The indexed players ordered by ID, i.e. in the same order as {@link PlayerService#getAllPlayers()}.
+     */
+    public List<PlayerDTO> getIndexedPlayers() {
+        return index.players().stream()
+                .sorted(Comparator.comparing(PlayerDTO::getPlayerId))
+                .toList();
+    }
+
+    /**
+     * The change version the index reflects, or -1 until the index has been loaded.
+     */
+    public long getSyncedVersion() {
+        return syncedVersion;
+    }
+
+    public int getIndexedPlayerCount() {
+        return index.size();
+    }
+}
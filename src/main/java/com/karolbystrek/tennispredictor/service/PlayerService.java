@@ -1,31 +1,134 @@
 package com.karolbystrek.tennispredictor.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karolbystrek.tennispredictor.config.CacheConfiguration;
 import com.karolbystrek.tennispredictor.model.Player;
+import com.karolbystrek.tennispredictor.model.PlayerChanges;
 import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import com.karolbystrek.tennispredictor.model.PlayerPage;
+import com.karolbystrek.tennispredictor.model.PlayerTombstone;
 import com.karolbystrek.tennispredictor.repository.PlayerRepository;
+import com.karolbystrek.tennispredictor.repository.PlayerTombstoneRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class PlayerService {
 
     private static final Logger log = LoggerFactory.getLogger(PlayerService.class);
     private final PlayerRepository playerRepository;
+    private final PlayerTombstoneRepository playerTombstoneRepository;
+    private final ObjectMapper objectMapper;
 
-    public PlayerService(PlayerRepository playerRepository) {
+    public PlayerService(PlayerRepository playerRepository,
+                         PlayerTombstoneRepository playerTombstoneRepository,
+                         ObjectMapper objectMapper) {
         this.playerRepository = playerRepository;
+        this.playerTombstoneRepository = playerTombstoneRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * The full player list as ready-to-send JSON and gzip bytes with their ETag. This, not the player list, is
+     * what gets cached, so a cache hit costs no serialization or compression.
+     */
+    @Cacheable(CacheConfiguration.PLAYERS_CACHE)
+    public PrecompressedPayload getAllPlayersPayload() {
+        return buildAllPlayersPayload();
+    }
+
+    /**
+     * Loads and serializes the player list, bypassing the cache. Also used by the cache to refresh the entry.
+     */
+    public PrecompressedPayload buildAllPlayersPayload() {
+        return toPayload(getAllPlayers());
+    }
+
+    public PrecompressedPayload toPayload(List<PlayerDTO> players) {
+        try {
+            PrecompressedPayload payload = PrecompressedPayload.of(objectMapper.writeValueAsBytes(players));
+            log.info("Serialized {} players into {} bytes ({} gzipped), ETag {}",
+                    players.size(), payload.identity().length, payload.gzip().length, payload.etag());
+            return payload;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the player list", e);
+        }
     }
 
-    @Cacheable("playersCache")
     public List<PlayerDTO> getAllPlayers() {
-        log.info("Fetching all players from repository (cacheable)");
-        List<Player> players = playerRepository.findAll();
-        List<PlayerDTO> playerDTOs = players.stream().map(PlayerDTO::new).toList();
+        log.info("Fetching all players from repository");
+        List<PlayerDTO> players = playerRepository.findAllSummaries();
         log.debug("Found {} players in repository", players.size());
-        return playerDTOs;
+        return players;
+    }
+
+    /**
+     * Returns up to {@code size} players with an ID greater than {@code cursor} (or from the start when it is
+     * {@code null}), ordered by ID. One extra row is fetched to tell whether another page follows.
+     */
+    public PlayerPage getPlayerPage(Long cursor, int size) {
+        List<PlayerDTO> players = playerRepository.findSummariesAfter(cursor == null ? Long.MIN_VALUE : cursor, Limit.of(size + 1));
+        if (players.size() <= size) {
+            return new PlayerPage(players, null);
+        }
+        List<PlayerDTO> page = players.subList(0, size);
+        return new PlayerPage(page, page.get(size - 1).getPlayerId());
+    }
+
+    /**
+     * Returns up to {@code limit} player changes with a version greater than {@code since}, oldest first.
+     * A player changed more than once in the window is reported once, in its latest state. One extra row is
+     * fetched from each table to tell whether more changes follow.
+     */
+    public PlayerChanges getChangesSince(long since, int limit) {
+        List<Player> updated = playerRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(since, Limit.of(limit + 1));
+        List<PlayerTombstone> deleted = playerTombstoneRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(since, Limit.of(limit + 1));
+
+        Map<Long, Object> latest = new LinkedHashMap<>();
+        long version = since;
+        int u = 0;
+        int d = 0;
+        for (int taken = 0; taken < limit && (u < updated.size() || d < deleted.size()); taken++) {
+            boolean takeUpdate = d == deleted.size()
+                    || (u < updated.size() && updated.get(u).getChangeVersion() < deleted.get(d).getChangeVersion());
+            if (takeUpdate) {
+                Player player = updated.get(u++);
+                latest.remove(player.getPlayerId());
+                latest.put(player.getPlayerId(), player);
+                version = player.getChangeVersion();
+            } else {
+                PlayerTombstone tombstone = deleted.get(d++);
+                latest.remove(tombstone.getPlayerId());
+                latest.put(tombstone.getPlayerId(), tombstone);
+                version = tombstone.getChangeVersion();
+            }
+        }
+
+        List<PlayerDTO> upserts = new ArrayList<>();
+        List<Long> deletedPlayerIds = new ArrayList<>();
+        latest.forEach((playerId, change) -> {
+            if (change instanceof Player player) {
+                upserts.add(new PlayerDTO(player));
+            } else {
+                deletedPlayerIds.add(playerId);
+            }
+        });
+        boolean hasMore = u < updated.size() || d < deleted.size();
+        log.debug("Found {} upserted and {} deleted players between versions {} and {}",
+                upserts.size(), deletedPlayerIds.size(), since, version);
+        return new PlayerChanges(version, upserts, deletedPlayerIds, hasMore);
+    }
+
+    public long getCurrentChangeVersion() {
+        return Math.max(playerRepository.findMaxChangeVersion(), playerTombstoneRepository.findMaxChangeVersion());
     }
 }
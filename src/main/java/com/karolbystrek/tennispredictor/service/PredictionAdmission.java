@@ -0,0 +1,259 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of {@link PredictionService}. At most {@code max-in-flight} predictions run at
+ * once; the rest wait in a queue ordered by {@link PredictionPriority} and then by arrival. When the queue is
+ * full, a newcomer displaces the newest waiter of a lower priority, or is rejected with 429 if there is none.
+ * Waiters that are not admitted within {@code max-queue-wait} are dropped with 503 instead of being run late.
+ * Both rejections carry a Retry-After hint, so overload shows up as fast refusals rather than as slow answers
+ * for everyone.
+ */
+@Component
+public class PredictionAdmission {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionAdmission.class);
+
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Duration maxQueueWait;
+    private final Duration retryAfter;
+    private final Scheduler timer;
+    private final TreeSet<Waiter> queue = new TreeSet<>(Comparator
+            .comparing((Waiter waiter) -> waiter.priority)
+            .thenComparingLong(waiter -> waiter.sequence));
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder queueFullRejections = new LongAdder();
+    private final LongAdder expiredRejections = new LongAdder();
+
+    private int inFlight;
+    private long sequence;
+
+    @Autowired
+    public PredictionAdmission(@Value("${tennis.predictor.admission.max-in-flight:64}") int maxInFlight,
+                               @Value("${tennis.predictor.admission.max-queued:256}") int maxQueued,
+                               @Value("${tennis.predictor.admission.max-queue-wait:PT2S}") Duration maxQueueWait,
+                               @Value("${tennis.predictor.admission.retry-after:PT1S}") Duration retryAfter) {
+        this(maxInFlight, maxQueued, maxQueueWait, retryAfter, Schedulers.parallel());
+        log.info("Prediction admission allows {} in flight and {} queued for at most {}", maxInFlight, maxQueued, maxQueueWait);
+    }
+
+    PredictionAdmission(int maxInFlight, int maxQueued, Duration maxQueueWait, Duration retryAfter, Scheduler timer) {
+        if (maxInFlight < 1 || maxQueued < 0) {
+            throw new IllegalStateException("Prediction admission needs a positive in-flight limit and a non-negative queue size");
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.maxQueueWait = maxQueueWait;
+        this.retryAfter = retryAfter;
+        this.timer = timer;
+    }
+
+    /**
+     * Runs {@code call} once it is admitted and keeps its slot until the returned {@link Mono} terminates or is
+     * cancelled.
+     */
+    public <T> Mono<T> admit(PredictionPriority priority, Supplier<Mono<T>> call) {
+        return run(acquire(priority), call);
+    }
+
+    /**
+     * Like {@link #admit}, but when the queue refuses or drops the call, it asks again after {@code retry-after}
+     * instead of failing, for callers such as prediction jobs that would rather wait out a peak. Errors of
+     * {@code call} itself are passed on as they are.
+     */
+    public <T> Mono<T> admitWhenAvailable(PredictionPriority priority, Supplier<Mono<T>> call) {
+        return admitWithRetries(priority, Long.MAX_VALUE, call);
+    }
+
+    /**
+     * Like {@link #admitWhenAvailable}, but gives up after {@code maxRetries} more attempts and fails with the
+     * last rejection.
+     */
+    public <T> Mono<T> admitWithRetries(PredictionPriority priority, long maxRetries, Supplier<Mono<T>> call) {
+        return run(acquire(priority).retryWhen(Retry.fixedDelay(maxRetries, retryAfter)
+                .scheduler(timer)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure())), call);
+    }
+
+    private <T> Mono<T> run(Mono<Permit> admission, Supplier<Mono<T>> call) {
+        return Mono.usingWhen(admission, permit -> call.get(),
+                permit -> Mono.fromRunnable(() -> release(permit)),
+                (permit, e) -> Mono.fromRunnable(() -> release(permit)),
+                permit -> Mono.fromRunnable(() -> release(permit)));
+    }
+
+    public int getInFlightCount() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getQueueFullRejectedCount() {
+        return queueFullRejections.sum();
+    }
+
+    public long getExpiredRejectedCount() {
+        return expiredRejections.sum();
+    }
+
+    private Mono<Permit> acquire(PredictionPriority priority) {
+        return Mono.create(sink -> {
+            Permit granted = null;
+            Waiter displaced = null;
+            Waiter waiter = null;
+            lock.lock();
+            try {
+                if (inFlight < maxInFlight && queue.isEmpty()) {
+                    inFlight++;
+                    granted = new Permit();
+                } else if (queue.size() < maxQueued) {
+                    waiter = enqueue(priority, sink);
+                } else if (!queue.isEmpty() && queue.last().priority.compareTo(priority) > 0) {
+                    displaced = queue.pollLast();
+                    waiter = enqueue(priority, sink);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (granted != null) {
+                sink.success(granted);
+                return;
+            }
+            if (displaced != null) {
+                disposeTimeout(displaced);
+                reject(displaced.sink, "Prediction request was displaced by higher-priority traffic");
+            }
+            if (waiter == null) {
+                reject(sink, "Prediction queue is full");
+                return;
+            }
+            Waiter queued = waiter;
+            sink.onCancel(() -> cancel(queued));
+            queued.timeout = timer.schedule(() -> expire(queued), maxQueueWait.toNanos(), TimeUnit.NANOSECONDS);
+        });
+    }
+
+    private Waiter enqueue(PredictionPriority priority, MonoSink<Permit> sink) {
+        Waiter waiter = new Waiter(priority, sequence++, sink);
+        queue.add(waiter);
+        return waiter;
+    }
+
+    private void reject(MonoSink<Permit> sink, String message) {
+        queueFullRejections.increment();
+        sink.error(new PredictionServiceException(message, HttpStatus.TOO_MANY_REQUESTS.value(), retryAfter));
+    }
+
+    private void expire(Waiter waiter) {
+        lock.lock();
+        try {
+            if (!queue.remove(waiter)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        expiredRejections.increment();
+        log.debug("Dropping {} prediction after waiting {}", waiter.priority, maxQueueWait);
+        waiter.sink.error(new PredictionServiceException("Prediction request waited too long to be admitted",
+                HttpStatus.SERVICE_UNAVAILABLE.value(), retryAfter));
+    }
+
+    private void cancel(Waiter waiter) {
+        boolean removed;
+        lock.lock();
+        try {
+            removed = queue.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+        if (removed) {
+            disposeTimeout(waiter);
+        } else if (waiter.permit != null) {
+            // Admitted concurrently with the cancellation, so nobody downstream will release the slot
+            release(waiter.permit);
+        }
+    }
+
+    private void release(Permit permit) {
+        if (!permit.released.compareAndSet(false, true)) {
+            return;
+        }
+        Waiter next;
+        lock.lock();
+        try {
+            next = queue.pollFirst();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+            // The slot passes straight to the next waiter, so inFlight stays the same
+            next.permit = new Permit();
+        } finally {
+            lock.unlock();
+        }
+        disposeTimeout(next);
+        next.sink.success(next.permit);
+    }
+
+    private static void disposeTimeout(Waiter waiter) {
+        Disposable timeout = waiter.timeout;
+        if (timeout != null) {
+            timeout.dispose();
+        }
+    }
+
+    private static final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+    }
+
+    private static final class Waiter {
+
+        private final PredictionPriority priority;
+        private final long sequence;
+        private final MonoSink<Permit> sink;
+        private volatile Disposable timeout;
+        private volatile Permit permit;
+
+        private Waiter(PredictionPriority priority, long sequence, MonoSink<Permit> sink) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded LRU cache of upstream predictions with a time-to-live. Entries are stored in the canonical
+ * orientation of their {@link MatchupKey}. Expired entries are kept for up to {@code maxStaleness} more, so
+ * they can still be served through {@link #getStale} while the upstream is failing. When the
+ * {@link PredictionDiskCache} is enabled, every entry is also written there and memory misses are filled from
+ * it, so the cache is warm right after a restart.
+ */
+@Component
+public class PredictionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionCache.class);
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long maxStalenessNanos;
+    private final LongSupplier nanoClock;
+    private final PredictionDiskCache diskCache;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<MatchupKey, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder diskLoads = new LongAdder();
+
+    @Autowired
+    public PredictionCache(@Value("${tennis.predictor.cache.max-size:10000}") int maxSize,
+                           @Value("${tennis.predictor.cache.ttl:PT30M}") Duration ttl,
+                           @Value("${tennis.predictor.cache.max-staleness:PT0S}") Duration maxStaleness,
+                           PredictionDiskCache diskCache) {
+        this(maxSize, ttl, maxStaleness, diskCache, System::nanoTime);
+    }
+
+    public PredictionCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, Duration.ZERO, PredictionDiskCache.disabled(), System::nanoTime);
+    }
+
+    PredictionCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this(maxSize, ttl, Duration.ZERO, PredictionDiskCache.disabled(), nanoClock);
+    }
+
+    PredictionCache(int maxSize, Duration ttl, Duration maxStaleness, LongSupplier nanoClock) {
+        this(maxSize, ttl, maxStaleness, PredictionDiskCache.disabled(), nanoClock);
+    }
+
+    PredictionCache(int maxSize, Duration ttl, Duration maxStaleness, PredictionDiskCache diskCache, LongSupplier nanoClock) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Prediction cache max size must not be negative");
+        }
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("Prediction cache TTL must not be negative");
+        }
+        if (maxStaleness.isNegative()) {
+            throw new IllegalArgumentException("Prediction cache max staleness must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.nanoClock = nanoClock;
+        this.diskCache = diskCache;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MatchupKey, Entry> eldest) {
+                if (size() > PredictionCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        log.info("Prediction cache configured with max size {}, TTL {} and max staleness {}", maxSize, ttl, maxStaleness);
+    }
+
+    public Optional<PredictionResponse> get(MatchupKey key) {
+        long now = nanoClock.getAsLong();
+        Entry entry = entryOrLoad(key, now);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (now - entry.expiresAt() >= 0) {
+            if (now - entry.expiresAt() >= maxStalenessNanos) {
+                lock.lock();
+                try {
+                    if (entries.remove(key, entry)) {
+                        expirations.increment();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.response());
+    }
+
+    /**
+     * Returns the entry for the key even if its TTL has elapsed, as long as it is not older than the maximum
+     * staleness. Does not count as a hit or miss.
+     */
+    public Optional<PredictionResponse> getStale(MatchupKey key) {
+        long now = nanoClock.getAsLong();
+        Entry entry = entryOrLoad(key, now);
+        if (entry == null || now - entry.expiresAt() >= maxStalenessNanos) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.response());
+    }
+
+    public void put(MatchupKey key, PredictionResponse canonicalResponse) {
+        if (maxSize == 0 || ttlNanos == 0) {
+            return;
+        }
+        Entry entry = new Entry(canonicalResponse, nanoClock.getAsLong() + ttlNanos);
+        lock.lock();
+        try {
+            entries.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+        diskCache.put(key, canonicalResponse);
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+        diskCache.clear();
+    }
+
+    /**
+     * Looks the key up in memory and, on a miss, in the disk cache; an entry loaded from disk keeps the TTL
+     * it had left when it was written. The disk cache is read without holding the lock, so a slow read never
+     * holds up other lookups.
+     */
+    private Entry entryOrLoad(MatchupKey key, long now) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null || maxSize == 0 || ttlNanos == 0 || !diskCache.isEnabled()) {
+                return entry;
+            }
+        } finally {
+            lock.unlock();
+        }
+        Optional<PredictionDiskCache.Stored> stored = diskCache.get(key);
+        if (stored.isEmpty()) {
+            return null;
+        }
+        Entry loaded = new Entry(stored.get().response(), now + ttlNanos - stored.get().ageNanos());
+        lock.lock();
+        try {
+            Entry current = entries.putIfAbsent(key, loaded);
+            if (current != null) {
+                return current;
+            }
+        } finally {
+            lock.unlock();
+        }
+        diskLoads.increment();
+        return loaded;
+    }
+
+    public Stats stats() {
+        int size;
+        lock.lock();
+        try {
+            size = entries.size();
+        } finally {
+            lock.unlock();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), diskLoads.sum(), size);
+    }
+
+    public record Stats(long hits, long misses, long evictions, long expirations, long diskLoads, int size) {
+    }
+
+    private record Entry(PredictionResponse response, long expiresAt) {
+    }
+}
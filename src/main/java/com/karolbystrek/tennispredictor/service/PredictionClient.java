@@ -0,0 +1,349 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PlayerNotFoundException;
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+/**
+ * HTTP client for the prediction model server. Translates upstream failures into
+ * {@link PredictionServiceException} and {@link PlayerNotFoundException}; the connection pool and transport
+ * settings come from the connector built in {@code PredictionClientConfiguration}.
+ */
+@Component
+public class PredictionClient {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionClient.class);
+    private final PredictionCodec jsonCodec = PredictionCodec.json();
+    private final PredictionCodec binaryCodec = PredictionCodec.cbor();
+    private final WebClient client;
+    private final String predictPath;
+    private final String batchPredictPath;
+    private final Duration timeout;
+    private final String healthPath;
+    private final ReplicaRing replicaRing;
+    private volatile boolean binaryEnabled;
+
+    @Autowired
+    public PredictionClient(WebClient.Builder webClientBuilder,
+                            ClientHttpConnector predictionClientConnector,
+                            @Value("${tennis.predictor.api.base-url}") String baseUrl,
+                            @Value("${tennis.predictor.api.key}") String apiKey,
+                            @Value("${tennis.predictor.api.predict-path}") String predictPath,
+                            @Value("${tennis.predictor.api.batch-predict-path:/predict/batch}") String batchPredictPath,
+                            @Value("${tennis.predictor.api.timeout:PT10S}") Duration timeout,
+                            @Value("${tennis.predictor.api.wire-format:json}") String wireFormat,
+                            @Value("${tennis.predictor.api.health-path:/health}") String healthPath,
+                            @Value("${tennis.predictor.api.replicas.virtual-nodes:100}") int virtualNodes,
+                            @Value("${tennis.predictor.api.replicas.failure-threshold:3}") int failureThreshold,
+                            @Value("${tennis.predictor.api.replicas.ejection-duration:PT30S}") Duration ejectionDuration) {
+        this(webClientBuilder.clientConnector(predictionClientConnector), baseUrl, apiKey, predictPath, batchPredictPath, timeout,
+                wireFormat, healthPath, virtualNodes, failureThreshold, ejectionDuration);
+    }
+
+    public PredictionClient(WebClient.Builder webClientBuilder,
+                            String baseUrl,
+                            String apiKey,
+                            String predictPath,
+                            String batchPredictPath,
+                            Duration timeout) {
+        this(webClientBuilder, baseUrl, apiKey, predictPath, batchPredictPath, timeout, "json");
+    }
+
+    public PredictionClient(WebClient.Builder webClientBuilder,
+                            String baseUrl,
+                            String apiKey,
+                            String predictPath,
+                            String batchPredictPath,
+                            Duration timeout,
+                            String wireFormat) {
+        this(webClientBuilder, baseUrl, apiKey, predictPath, batchPredictPath, timeout, wireFormat, "/health", 100, 3,
+                Duration.ofSeconds(30));
+    }
+
+    /**
+     * @param baseUrl    one model server URL, or a comma-separated list of replicas to route between by matchup
+     * @param wireFormat {@code json} or {@code cbor}; with {@code cbor} the client falls back to JSON for good
+     *                   as soon as the model server answers 415 Unsupported Media Type
+     */
+    public PredictionClient(WebClient.Builder webClientBuilder,
+                            String baseUrl,
+                            String apiKey,
+                            String predictPath,
+                            String batchPredictPath,
+                            Duration timeout,
+                            String wireFormat,
+                            String healthPath,
+                            int virtualNodes,
+                            int failureThreshold,
+                            Duration ejectionDuration) {
+        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("${PREDICTION_API_KEY}")) {
+            log.error("API key 'tennis.predictor.api.key' is not configured properly in application.properties or environment variables.");
+            throw new IllegalStateException("API key not configured for PredictionClient");
+        }
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            log.error("API base URL 'tennis.predictor.api.base-url' is not configured properly in application.properties.");
+            throw new IllegalStateException("API base URL not configured for PredictionClient");
+        }
+        if (predictPath == null || predictPath.isEmpty()) {
+            log.error("API predict path 'tennis.predictor.api.predict-path' is not configured properly in application.properties.");
+            throw new IllegalStateException("API predict path not configured for PredictionClient");
+        }
+        if (!"json".equalsIgnoreCase(wireFormat) && !"cbor".equalsIgnoreCase(wireFormat)) {
+            log.error("API wire format 'tennis.predictor.api.wire-format' must be 'json' or 'cbor', got '{}'.", wireFormat);
+            throw new IllegalStateException("Unsupported wire format for PredictionClient: " + wireFormat);
+        }
+
+        this.predictPath = predictPath;
+        this.batchPredictPath = batchPredictPath;
+        this.timeout = timeout;
+        this.binaryEnabled = "cbor".equalsIgnoreCase(wireFormat);
+        this.healthPath = healthPath;
+        this.replicaRing = new ReplicaRing(replicaUrls(baseUrl), virtualNodes, failureThreshold, ejectionDuration, System::nanoTime);
+        if (replicaRing.size() > 1) {
+            log.info("Routing predictions across {} replicas", replicaRing.size());
+        }
+
+        this.client = webClientBuilder
+                .defaultHeaders(headers -> {
+                    headers.setContentType(MediaType.APPLICATION_JSON);
+                    headers.set("X-API-KEY", apiKey);
+                })
+                .build();
+    }
+
+    public Mono<PredictionResponse> predict(PredictionRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug("Sending prediction request to {}: players {} vs {}", predictPath, request.getPlayer1Id(), request.getPlayer2Id());
+        }
+
+        ReplicaRing.Replica replica = replicaRing.select(MatchupKey.of(request));
+        return mapUpstreamErrors(post(replica, predictPath, (codec, bufferFactory) -> codec.encode(request, bufferFactory),
+                PredictionCodec::decode));
+    }
+
+    /**
+     * Splits the batch by the replica that owns each matchup, sends the parts in parallel and reassembles the
+     * answers in request order.
+     */
+    public Mono<List<PredictionResponse>> predictBatch(List<PredictionRequest> requests) {
+        log.debug("Sending batch of {} prediction requests to {}", requests.size(), batchPredictPath);
+
+        Map<ReplicaRing.Replica, List<Integer>> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            partitions.computeIfAbsent(replicaRing.select(MatchupKey.of(requests.get(i))), replica -> new ArrayList<>()).add(i);
+        }
+        PredictionResponse[] responses = new PredictionResponse[requests.size()];
+        return mapUpstreamErrors(Flux.fromIterable(partitions.entrySet())
+                .flatMap(partition -> {
+                    List<Integer> indices = partition.getValue();
+                    List<PredictionRequest> part = indices.stream().map(requests::get).toList();
+                    return post(partition.getKey(), batchPredictPath, (codec, bufferFactory) -> codec.encodeBatch(part, bufferFactory),
+                            PredictionCodec::decodeBatch)
+                            .flatMap(partResponses -> {
+                                if (partResponses.size() != part.size()) {
+                                    return Mono.error(new PredictionServiceException("Prediction service returned " + partResponses.size()
+                                            + " predictions for a batch of " + part.size(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+                                }
+                                for (int i = 0; i < indices.size(); i++) {
+                                    responses[indices.get(i)] = partResponses.get(i);
+                                }
+                                return Mono.just(partResponses);
+                            });
+                })
+                .then(Mono.fromSupplier(() -> Arrays.asList(responses))));
+    }
+
+    /**
+     * Probes every replica's health endpoint; a failed probe ejects the replica and a successful one readmits it.
+     * Nothing is probed when there is only one replica, since there is nowhere else to route.
+     */
+    @Scheduled(initialDelayString = "${tennis.predictor.api.health-check-interval:PT10S}",
+            fixedDelayString = "${tennis.predictor.api.health-check-interval:PT10S}")
+    public void checkReplicaHealth() {
+        if (replicaRing.size() < 2) {
+            return;
+        }
+        Flux.fromIterable(replicaRing.replicas())
+                .flatMap(replica -> client.get()
+                        .uri(replica.url() + healthPath)
+                        .retrieve()
+                        .toBodilessEntity()
+                        .timeout(timeout)
+                        .doOnSuccess(response -> replicaRing.onSuccess(replica))
+                        .onErrorResume(e -> {
+                            log.debug("Health check of prediction replica {} failed: {}", replica.url(), e.getMessage());
+                            replicaRing.onHealthCheckFailure(replica);
+                            return Mono.empty();
+                        }))
+                .blockLast();
+    }
+
+    public boolean isBinaryEnabled() {
+        return binaryEnabled;
+    }
+
+    public int getReplicaCount() {
+        return replicaRing.size();
+    }
+
+    public int getAvailableReplicaCount() {
+        return replicaRing.availableCount();
+    }
+
+    /**
+     * Sends the body in the negotiated wire format and decodes the answer according to its Content-Type. A 415
+     * for a binary body switches the client to JSON and repeats the call once.
+     */
+    private <T> Mono<T> post(ReplicaRing.Replica replica,
+                             String path,
+                             BiFunction<PredictionCodec, DataBufferFactory, DataBuffer> encoder,
+                             BiFunction<PredictionCodec, DataBuffer, T> decoder) {
+        return exchange(replica, path, encoder, decoder)
+                .doOnSuccess(response -> replicaRing.onSuccess(replica))
+                .doOnError(PredictionClient::isReplicaFailure, e -> replicaRing.onFailure(replica));
+    }
+
+    private <T> Mono<T> exchange(ReplicaRing.Replica replica,
+                                 String path,
+                                 BiFunction<PredictionCodec, DataBufferFactory, DataBuffer> encoder,
+                                 BiFunction<PredictionCodec, DataBuffer, T> decoder) {
+        PredictionCodec requestCodec = binaryEnabled ? binaryCodec : jsonCodec;
+        Mono<T> call = client.post()
+                .uri(replica.url() + path)
+                .accept(requestCodec.mediaType(), MediaType.APPLICATION_JSON)
+                .body(body(requestCodec, encoder))
+                .retrieve()
+                .toEntity(DataBuffer.class)
+                .mapNotNull(entity -> entity.getBody() == null ? null
+                        : decodeAndRelease(entity.getBody(), codecFor(entity.getHeaders().getContentType()), decoder));
+        if (requestCodec == jsonCodec) {
+            return call;
+        }
+        return call.onErrorResume(WebClientResponseException.UnsupportedMediaType.class, e -> {
+            if (binaryEnabled) {
+                binaryEnabled = false;
+                log.warn("Prediction service rejected {}; falling back to {}", requestCodec.mediaType(), MediaType.APPLICATION_JSON);
+            }
+            return exchange(replica, path, encoder, decoder);
+        });
+    }
+
+    private static boolean isReplicaFailure(Throwable e) {
+        return e instanceof WebClientRequestException
+                || e instanceof WebClientResponseException responseException && responseException.getStatusCode().is5xxServerError();
+    }
+
+    private static List<String> replicaUrls(String baseUrl) {
+        return Arrays.stream(baseUrl.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> url.endsWith("/") ? url.substring(0, url.length() - 1) : url)
+                .toList();
+    }
+
+    /**
+     * Encodes the body eagerly into a buffer from the request's own factory so the Content-Length is known
+     * before the headers are written.
+     */
+    private static BodyInserter<DataBuffer, ReactiveHttpOutputMessage> body(PredictionCodec codec,
+                                                                           BiFunction<PredictionCodec, DataBufferFactory, DataBuffer> encoder) {
+        return (message, context) -> {
+            DataBuffer buffer = encoder.apply(codec, message.bufferFactory());
+            message.getHeaders().setContentType(codec.mediaType());
+            message.getHeaders().setContentLength(buffer.readableByteCount());
+            return message.writeWith(Mono.just(buffer));
+        };
+    }
+
+    private PredictionCodec codecFor(MediaType contentType) {
+        return contentType != null && binaryCodec.mediaType().isCompatibleWith(contentType) ? binaryCodec : jsonCodec;
+    }
+
+    private static <T> T decodeAndRelease(DataBuffer buffer, PredictionCodec codec, BiFunction<PredictionCodec, DataBuffer, T> decoder) {
+        try {
+            return decoder.apply(codec, buffer);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Separates upstream slowness (read/response timeouts), an unreachable upstream and local pool starvation.
+     * Reactor Netty's pool exceptions live in a shaded package, so they are matched by name.
+     */
+    private static PredictionServiceException transportFailure(WebClientRequestException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof io.netty.handler.timeout.TimeoutException) {
+            return new PredictionServiceException("Prediction service timed out: " + e.getMessage(), HttpStatus.GATEWAY_TIMEOUT.value());
+        }
+        if (cause instanceof ConnectException) {
+            return new PredictionServiceException("Prediction service unreachable: " + e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+        if (cause != null && cause.getClass().getSimpleName().startsWith("PoolAcquire")) {
+            return new PredictionServiceException("Prediction service connection pool exhausted: " + cause.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+        return new PredictionServiceException("Prediction service internal server error: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value());
+    }
+
+    private <T> Mono<T> mapUpstreamErrors(Mono<T> upstreamCall) {
+        return upstreamCall
+                .timeout(timeout)
+                .onErrorResume(TimeoutException.class, e -> {
+                    log.error("API timeout after {}", timeout);
+                    return Mono.error(new PredictionServiceException("Prediction service timed out after " + timeout.toMillis() + " ms", HttpStatus.GATEWAY_TIMEOUT.value()));
+                })
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    log.error("API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
+                    return switch (e.getStatusCode()) {
+                        case HttpStatus.BAD_REQUEST ->
+                                Mono.error(new PredictionServiceException("Invalid prediction request: " + e.getResponseBodyAsString(), HttpStatus.BAD_REQUEST.value()));
+                        case HttpStatus.NOT_FOUND ->
+                                Mono.error(new PlayerNotFoundException("Player not found: " + e.getResponseBodyAsString()));
+                        case HttpStatus.UNSUPPORTED_MEDIA_TYPE ->
+                                Mono.error(new PredictionServiceException("Invalid content type: " + e.getResponseBodyAsString(), HttpStatus.UNSUPPORTED_MEDIA_TYPE.value()));
+                        case HttpStatus.SERVICE_UNAVAILABLE ->
+                                Mono.error(new PredictionServiceException("Prediction service temporarily unavailable: " + e.getResponseBodyAsString(), HttpStatus.SERVICE_UNAVAILABLE.value()));
+                        default ->
+                                Mono.error(new PredictionServiceException("Prediction service internal server error: " + e.getResponseBodyAsString(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+                    };
+                })
+                .onErrorResume(WebClientRequestException.class, e -> {
+                    log.error("API transport error: {}", e.getMessage());
+                    return Mono.error(transportFailure(e));
+                })
+                .onErrorResume(e -> !(e instanceof PredictionServiceException || e instanceof PlayerNotFoundException), e -> {
+                    log.error("Unexpected error during prediction", e);
+                    return Mono.error(new PredictionServiceException("Prediction service internal server error: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+                });
+    }
+}
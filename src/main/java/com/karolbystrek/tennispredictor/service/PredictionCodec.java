@@ -0,0 +1,183 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.model.PredictionSource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming codec for the prediction model server. Requests are written field by field straight into a
+ * buffer from the connection's (pooled) buffer factory, and responses are read token by token, so no
+ * intermediate maps, reflective bean binding or extra byte-array copies are involved. The same field layout
+ * is used for JSON and for the more compact CBOR encoding.
+ */
+public class PredictionCodec {
+
+    public static final MediaType APPLICATION_CBOR = MediaType.parseMediaType("application/cbor");
+
+    private static final int REQUEST_BUFFER_SIZE = 128;
+
+    private final JsonFactory jsonFactory;
+    private final MediaType mediaType;
+
+    private PredictionCodec(JsonFactory jsonFactory, MediaType mediaType) {
+        this.jsonFactory = jsonFactory;
+        this.mediaType = mediaType;
+    }
+
+    public static PredictionCodec json() {
+        return new PredictionCodec(new JsonFactory(), MediaType.APPLICATION_JSON);
+    }
+
+    public static PredictionCodec cbor() {
+        return new PredictionCodec(new CBORFactory(), APPLICATION_CBOR);
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public DataBuffer encode(PredictionRequest request, DataBufferFactory bufferFactory) {
+        return write(bufferFactory, generator -> writeRequest(generator, request));
+    }
+
+    public DataBuffer encodeBatch(List<PredictionRequest> requests, DataBufferFactory bufferFactory) {
+        return write(bufferFactory, generator -> {
+            generator.writeStartArray();
+            for (PredictionRequest request : requests) {
+                writeRequest(generator, request);
+            }
+            generator.writeEndArray();
+        });
+    }
+
+    /**
+     * Decodes a single prediction. Unknown fields are skipped; the buffer is not released.
+     */
+    public PredictionResponse decode(DataBuffer buffer) {
+        try (JsonParser parser = jsonFactory.createParser(buffer.asInputStream())) {
+            return readResponse(parser, parser.nextToken());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid prediction response", e);
+        }
+    }
+
+    public List<PredictionResponse> decodeBatch(DataBuffer buffer) {
+        try (JsonParser parser = jsonFactory.createParser(buffer.asInputStream())) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            List<PredictionResponse> responses = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                responses.add(readResponse(parser, token));
+            }
+            return responses;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid batch prediction response", e);
+        }
+    }
+
+    private DataBuffer write(DataBufferFactory bufferFactory, GeneratorWriter writer) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(REQUEST_BUFFER_SIZE);
+        try (OutputStream out = buffer.asOutputStream();
+             JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            writer.write(generator);
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException("Could not encode prediction request", e);
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+        return buffer;
+    }
+
+    private static void writeRequest(JsonGenerator generator, PredictionRequest request) throws IOException {
+        generator.writeStartObject();
+        writeNumber(generator, "player1_id", request.getPlayer1Id());
+        writeNumber(generator, "player2_id", request.getPlayer2Id());
+        generator.writeStringField("surface", request.getSurface());
+        generator.writeStringField("tourney_level", request.getTourneyLevel());
+        writeNumber(generator, "best_of", request.getBestOf());
+        generator.writeStringField("round", request.getRound());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, String field, Number value) throws IOException {
+        generator.writeFieldName(field);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+
+    /**
+     * {@link PredictionSource} is our own marker, so a {@code source} sent by the model API is skipped like any
+     * other unknown field and every decoded prediction is marked as coming from the model.
+     */
+    private static PredictionResponse readResponse(JsonParser parser, JsonToken token) throws IOException {
+        expect(token, JsonToken.START_OBJECT);
+        PredictionResponse response = new PredictionResponse();
+        response.setSource(PredictionSource.MODEL);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "player1Name" -> response.setPlayer1Name(readString(parser, value));
+                case "player2Name" -> response.setPlayer2Name(readString(parser, value));
+                case "player1WinProbability" -> response.setPlayer1WinProbability(readFloat(parser, value));
+                case "player2WinProbability" -> response.setPlayer2WinProbability(readFloat(parser, value));
+                case "winnerName" -> response.setWinnerName(readString(parser, value));
+                case "winnerId" -> response.setWinnerId(readLong(parser, value));
+                case "confidence" -> response.setConfidence(readFloat(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    private static String readString(JsonParser parser, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    private static Float readFloat(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING -> Float.parseFloat(parser.getText());
+            default -> parser.getFloatValue();
+        };
+    }
+
+    private static Long readLong(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING -> Long.parseLong(parser.getText());
+            default -> parser.getLongValue();
+        };
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual);
+        }
+    }
+
+    @FunctionalInterface
+    private interface GeneratorWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
@@ -0,0 +1,524 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent tier under {@link PredictionCache}: an append-only log of fixed-width records in a memory-mapped
+ * file, so cached predictions survive restarts. A newer record for a matchup supersedes older ones; the
+ * in-memory index from matchup to record is rebuilt by scanning the file at startup, skipping records that
+ * are corrupt, written for another {@code tennis.predictor.api.model-version} or older than the maximum age.
+ * The log is compacted at startup when most of it is dead, and at runtime when it is full.
+ * <p>
+ * Writes, compactions and clears run on a single background thread, so callers never wait for file I/O;
+ * lookups only wait for the brief moments in which a record is appended or the compacted file is swapped
+ * in. Disk-tier failures are logged and counted, never thrown to the caller.
+ * <p>
+ * Record layout (big-endian, {@value #RECORD_SIZE} bytes): CRC32C of the rest of the record, model version
+ * hash, write time (epoch ms), both player IDs, best-of, surface, tourney level and round, both win
+ * probabilities and confidence (NaN for null), winner slot, winner ID and both player names. Each string is
+ * stored as a length byte (0 for null) followed by its UTF-8 bytes; predictions whose strings do not fit are
+ * not persisted.
+ */
+@Component
+public class PredictionDiskCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionDiskCache.class);
+
+    static final int RECORD_SIZE = 208;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAGIC = 0x54505243;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int CRC = 0;
+    private static final int MODEL_VERSION = 4;
+    private static final int WRITTEN_AT = 8;
+    private static final int FIRST_PLAYER_ID = 16;
+    private static final int SECOND_PLAYER_ID = 24;
+    private static final int BEST_OF = 32;
+    private static final int SURFACE = 36;
+    private static final int SURFACE_SIZE = 8;
+    private static final int TOURNEY_LEVEL = 44;
+    private static final int TOURNEY_LEVEL_SIZE = 4;
+    private static final int ROUND = 48;
+    private static final int ROUND_SIZE = 8;
+    private static final int PLAYER1_PROBABILITY = 56;
+    private static final int PLAYER2_PROBABILITY = 60;
+    private static final int CONFIDENCE = 64;
+    private static final int WINNER_SLOT = 68;
+    private static final int WINNER_ID = 72;
+    private static final int PLAYER1_NAME = 80;
+    private static final int PLAYER2_NAME = 144;
+    private static final int NAME_SIZE = 64;
+
+    private static final byte NO_WINNER = 0;
+    private static final byte PLAYER1_WINS = 1;
+    private static final byte PLAYER2_WINS = 2;
+    private static final long NULL_ID = Long.MIN_VALUE;
+
+    private final boolean enabled;
+    private final Path path;
+    private final int maxEntries;
+    private final int modelVersion;
+    private final long maxAgeMillis;
+    private final LongSupplier epochMillis;
+    private final Map<MatchupKey, Integer> index = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService writer;
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+    private volatile boolean failed;
+    // only touched by the writer thread (and by the constructor before it starts)
+    private int nextSlot;
+
+    @Autowired
+    public PredictionDiskCache(@Value("${tennis.predictor.cache.disk.enabled:false}") boolean enabled,
+                               @Value("${tennis.predictor.cache.disk.path:data/prediction-cache.bin}") Path path,
+                               @Value("${tennis.predictor.cache.disk.max-entries:100000}") int maxEntries,
+                               @Value("${tennis.predictor.api.model-version:unversioned}") String modelVersion,
+                               @Value("${tennis.predictor.cache.ttl:PT30M}") Duration ttl,
+                               @Value("${tennis.predictor.cache.max-staleness:PT0S}") Duration maxStaleness) {
+        this(enabled, path, maxEntries, modelVersion, ttl.plus(maxStaleness), System::currentTimeMillis);
+    }
+
+    PredictionDiskCache(boolean enabled, Path path, int maxEntries, String modelVersion, Duration maxAge, LongSupplier epochMillis) {
+        this.enabled = enabled;
+        this.path = path;
+        this.maxEntries = maxEntries;
+        this.modelVersion = modelVersion == null ? 0 : modelVersion.hashCode();
+        this.maxAgeMillis = maxAge.toMillis();
+        this.epochMillis = epochMillis;
+        if (!enabled) {
+            this.writer = null;
+            return;
+        }
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("Prediction disk cache needs room for at least two entries");
+        }
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open prediction disk cache at " + path, e);
+        }
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "prediction-disk-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static PredictionDiskCache disabled() {
+        return new PredictionDiskCache(false, null, 0, null, Duration.ZERO, System::currentTimeMillis);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the stored prediction for the key together with its age, or empty if there is none.
+     */
+    public Optional<Stored> get(MatchupKey key) {
+        if (!enabled || failed) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Integer slot = index.get(key);
+            if (slot == null) {
+                return Optional.empty();
+            }
+            int offset = offset(slot);
+            long ageMillis = Math.max(0, epochMillis.getAsLong() - buffer.getLong(offset + WRITTEN_AT));
+            if (ageMillis >= maxAgeMillis) {
+                index.remove(key, slot);
+                return Optional.empty();
+            }
+            return Optional.of(new Stored(readResponse(offset), TimeUnit.MILLISECONDS.toNanos(ageMillis)));
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Could not read prediction from disk cache at {}: {}", path, e.toString());
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Queues the prediction to be appended to the log and returns right away.
+     */
+    public void put(MatchupKey key, PredictionResponse canonicalResponse) {
+        if (!enabled || failed || !fits(key, canonicalResponse)) {
+            return;
+        }
+        long writtenAt = epochMillis.getAsLong();
+        submit(() -> append(key, canonicalResponse, writtenAt));
+    }
+
+    /**
+     * Forgets every entry right away and wipes the log in the background.
+     */
+    public void clear() {
+        if (!enabled) {
+            return;
+        }
+        index.clear();
+        submit(this::wipe);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long getAppendCount() {
+        return appends.sum();
+    }
+
+    public long getCompactionCount() {
+        return compactions.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Waits until every write queued so far has been applied.
+     */
+    void flush() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            // nothing left to wait for
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Prediction disk cache at {} closed with writes still pending", path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.writeLock().lock();
+        try {
+            if (channel == null) {
+                return;
+            }
+            buffer.force();
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not close prediction disk cache at {}: {}", path, e.getMessage());
+        } finally {
+            channel = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Prediction disk cache at {} is closed, dropping write", path);
+        }
+    }
+
+    /**
+     * Runs on the writer thread.
+     */
+    private void append(MatchupKey key, PredictionResponse response, long writtenAt) {
+        try {
+            if (nextSlot == maxEntries) {
+                compact(maxEntries / 2);
+            }
+            lock.writeLock().lock();
+            try {
+                int slot = nextSlot++;
+                writeRecord(offset(slot), key, response, writtenAt);
+                index.put(key, slot);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            appends.increment();
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            log.warn("Could not write prediction to disk cache at {}: {}", path, e.toString());
+        }
+    }
+
+    /**
+     * Runs on the writer thread.
+     */
+    private void wipe() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            for (int offset = HEADER_SIZE; offset < offset(nextSlot); offset++) {
+                buffer.put(offset, (byte) 0);
+            }
+            nextSlot = 0;
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Could not clear prediction disk cache at {}: {}", path, e.toString());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        map(path);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != RECORD_SIZE) {
+            if (buffer.getInt(0) != 0) {
+                log.warn("Prediction disk cache at {} has an unknown format; starting empty", path);
+            }
+            for (int offset = 0; offset < buffer.capacity(); offset++) {
+                buffer.put(offset, (byte) 0);
+            }
+            buffer.putInt(0, MAGIC).putInt(4, FORMAT_VERSION).putInt(8, RECORD_SIZE);
+        }
+
+        int dropped = 0;
+        long now = epochMillis.getAsLong();
+        while (nextSlot < maxEntries) {
+            int offset = offset(nextSlot);
+            long writtenAt = buffer.getLong(offset + WRITTEN_AT);
+            if (writtenAt == 0 || buffer.getInt(offset + CRC) != checksum(offset)) {
+                break;
+            }
+            if (buffer.getInt(offset + MODEL_VERSION) != modelVersion || now - writtenAt >= maxAgeMillis) {
+                dropped++;
+            } else {
+                index.put(readKey(offset), nextSlot);
+            }
+            nextSlot++;
+        }
+        log.info("Prediction disk cache at {} loaded {} entries from {} records ({} outdated or expired)",
+                path, index.size(), nextSlot, dropped);
+        if (nextSlot - index.size() > nextSlot / 2) {
+            compact(maxEntries);
+        }
+    }
+
+    /**
+     * Rewrites the live records, keeping at most {@code keep} of the most recently written, into a new file that
+     * then replaces the current one. Only the writer thread modifies the log, so the records are copied without
+     * blocking lookups; the write lock is held just to swap the new file in. If anything fails before the swap,
+     * the current file stays in use.
+     */
+    private void compact(int keep) throws IOException {
+        List<Map.Entry<MatchupKey, Integer>> live = new ArrayList<>(index.entrySet());
+        live.sort(Comparator.comparingLong(entry -> -buffer.getLong(offset(entry.getValue()) + WRITTEN_AT)));
+        if (live.size() > keep) {
+            live = live.subList(0, keep);
+        }
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Map<MatchupKey, Integer> compactedIndex = new HashMap<>();
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).putInt(RECORD_SIZE).putInt(0);
+            target.write(header.flip(), 0);
+            for (int slot = live.size() - 1, written = 0; slot >= 0; slot--, written++) {
+                Map.Entry<MatchupKey, Integer> entry = live.get(slot);
+                ByteBuffer record = buffer.slice(offset(entry.getValue()), RECORD_SIZE);
+                target.write(record, offset(written));
+                compactedIndex.put(entry.getKey(), written);
+            }
+            target.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+        // the old file stays mapped until the new one is, so a failed move leaves everything as it was
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lock.writeLock().lock();
+        try {
+            FileChannel previous = channel;
+            try {
+                map(path);
+            } catch (IOException e) {
+                failed = true;
+                index.clear();
+                throw e;
+            } finally {
+                previous.close();
+            }
+            index.clear();
+            index.putAll(compactedIndex);
+            nextSlot = compactedIndex.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactions.increment();
+        log.info("Compacted prediction disk cache at {} to {} entries", path, nextSlot);
+    }
+
+    private void map(Path file) throws IOException {
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            buffer = opened.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) maxEntries * RECORD_SIZE);
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        channel = opened;
+    }
+
+    private void writeRecord(int offset, MatchupKey key, PredictionResponse response, long writtenAt) {
+        buffer.putInt(offset + MODEL_VERSION, modelVersion);
+        buffer.putLong(offset + FIRST_PLAYER_ID, key.firstPlayerId());
+        buffer.putLong(offset + SECOND_PLAYER_ID, key.secondPlayerId());
+        buffer.putInt(offset + BEST_OF, key.bestOf());
+        putString(offset + SURFACE, SURFACE_SIZE, key.surface());
+        putString(offset + TOURNEY_LEVEL, TOURNEY_LEVEL_SIZE, key.tourneyLevel());
+        putString(offset + ROUND, ROUND_SIZE, key.round());
+        buffer.putFloat(offset + PLAYER1_PROBABILITY, floatOrNaN(response.getPlayer1WinProbability()));
+        buffer.putFloat(offset + PLAYER2_PROBABILITY, floatOrNaN(response.getPlayer2WinProbability()));
+        buffer.putFloat(offset + CONFIDENCE, floatOrNaN(response.getConfidence()));
+        buffer.put(offset + WINNER_SLOT, winnerSlot(response));
+        buffer.putLong(offset + WINNER_ID, response.getWinnerId() == null ? NULL_ID : response.getWinnerId());
+        putString(offset + PLAYER1_NAME, NAME_SIZE, response.getPlayer1Name());
+        putString(offset + PLAYER2_NAME, NAME_SIZE, response.getPlayer2Name());
+        // The write time doubles as the end-of-log marker, and the checksum guards against torn records,
+        // so both are written last.
+        buffer.putLong(offset + WRITTEN_AT, writtenAt);
+        buffer.putInt(offset + CRC, checksum(offset));
+    }
+
+    private MatchupKey readKey(int offset) {
+        return new MatchupKey(
+                buffer.getLong(offset + FIRST_PLAYER_ID),
+                buffer.getLong(offset + SECOND_PLAYER_ID),
+                getString(offset + SURFACE),
+                getString(offset + TOURNEY_LEVEL),
+                buffer.getInt(offset + BEST_OF),
+                getString(offset + ROUND)
+        );
+    }
+
+    private PredictionResponse readResponse(int offset) {
+        String player1Name = getString(offset + PLAYER1_NAME);
+        String player2Name = getString(offset + PLAYER2_NAME);
+        byte winnerSlot = buffer.get(offset + WINNER_SLOT);
+        long winnerId = buffer.getLong(offset + WINNER_ID);
+        return new PredictionResponse(
+                player1Name,
+                player2Name,
+                nullIfNaN(buffer.getFloat(offset + PLAYER1_PROBABILITY)),
+                nullIfNaN(buffer.getFloat(offset + PLAYER2_PROBABILITY)),
+                winnerSlot == PLAYER1_WINS ? player1Name : winnerSlot == PLAYER2_WINS ? player2Name : null,
+                winnerId == NULL_ID ? null : winnerId,
+                nullIfNaN(buffer.getFloat(offset + CONFIDENCE))
+        );
+    }
+
+    private static boolean fits(MatchupKey key, PredictionResponse response) {
+        String winnerName = response.getWinnerName();
+        return fits(key.surface(), SURFACE_SIZE)
+                && fits(key.tourneyLevel(), TOURNEY_LEVEL_SIZE)
+                && fits(key.round(), ROUND_SIZE)
+                && fits(response.getPlayer1Name(), NAME_SIZE)
+                && fits(response.getPlayer2Name(), NAME_SIZE)
+                && (winnerName == null || winnerName.equals(response.getPlayer1Name()) || winnerName.equals(response.getPlayer2Name()));
+    }
+
+    private static boolean fits(String value, int size) {
+        return value == null || value.getBytes(StandardCharsets.UTF_8).length < size;
+    }
+
+    private static byte winnerSlot(PredictionResponse response) {
+        if (response.getWinnerName() == null) {
+            return NO_WINNER;
+        }
+        return response.getWinnerName().equals(response.getPlayer1Name()) ? PLAYER1_WINS : PLAYER2_WINS;
+    }
+
+    private void putString(int offset, int size, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        buffer.put(offset, (byte) (value == null ? 0 : bytes.length + 1));
+        buffer.put(offset + 1, bytes);
+        for (int i = bytes.length + 1; i < size; i++) {
+            buffer.put(offset + i, (byte) 0);
+        }
+    }
+
+    private String getString(int offset) {
+        int length = Byte.toUnsignedInt(buffer.get(offset)) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int checksum(int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + MODEL_VERSION, RECORD_SIZE - MODEL_VERSION));
+        return (int) crc.getValue();
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private static float floatOrNaN(Float value) {
+        return value == null ? Float.NaN : value;
+    }
+
+    private static Float nullIfNaN(float value) {
+        return Float.isNaN(value) ? null : value;
+    }
+
+    public record Stored(PredictionResponse response, long ageNanos) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.karolbystrek.tennispredictor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedges upstream prediction calls: when an attempt has not answered within the configured latency percentile
+ * of recent attempts, an identical second attempt is sent and whichever answers first wins; the other is
+ * cancelled. Hedges are paid for from a budget that every primary attempt tops up by {@code budgetRatio}, so
+ * hedging adds at most that fraction of extra load beyond a small initial allowance.
+ * <p>
+ * Every completed attempt is recorded in {@code prediction.upstream.attempt} and every hedged call in
+ * {@code prediction.upstream.latency}; comparing their percentiles shows the effect of hedging.
+ */
+@Component
+public class PredictionHedger {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionHedger.class);
+    private static final long MICROS_PER_HEDGE = 1_000_000;
+    private static final long MAX_BUDGET_MICROS = 10 * MICROS_PER_HEDGE;
+    private static final long MIN_SAMPLES = 20;
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final double percentile;
+    private final Duration minDelay;
+    private final long budgetMicrosPerCall;
+    private final AtomicLong budgetMicros = new AtomicLong(MAX_BUDGET_MICROS);
+    private final Timer attemptTimer;
+    private final Timer callTimer;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+
+    private volatile Duration hedgeDelay;
+    private volatile long hedgeDelayComputedAt;
+
+    public PredictionHedger(MeterRegistry meterRegistry,
+                            @Value("${tennis.predictor.hedging.enabled:false}") boolean enabled,
+                            @Value("${tennis.predictor.hedging.percentile:0.95}") double percentile,
+                            @Value("${tennis.predictor.hedging.min-delay:50ms}") Duration minDelay,
+                            @Value("${tennis.predictor.hedging.budget-ratio:0.05}") double budgetRatio) {
+        if (percentile <= 0.0 || percentile >= 1.0) {
+            throw new IllegalStateException("Hedging percentile 'tennis.predictor.hedging.percentile' must be between 0 and 1");
+        }
+        if (budgetRatio < 0.0) {
+            throw new IllegalStateException("Hedging budget ratio 'tennis.predictor.hedging.budget-ratio' must not be negative");
+        }
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.budgetMicrosPerCall = Math.round(budgetRatio * MICROS_PER_HEDGE);
+        this.hedgeDelay = minDelay;
+        this.hedgeDelayComputedAt = System.nanoTime();
+        this.attemptTimer = Timer.builder("prediction.upstream.attempt")
+                .description("Latency of individual upstream prediction attempts, before hedging")
+                .publishPercentiles(0.5, 0.9, 0.99, percentile)
+                .register(meterRegistry);
+        this.callTimer = Timer.builder("prediction.upstream.latency")
+                .description("Latency of upstream prediction calls as seen by callers, after hedging")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+        this.hedgesSent = Counter.builder("prediction.upstream.hedges")
+                .description("Hedge attempts sent to the prediction service")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("prediction.upstream.hedges.won")
+                .description("Hedge attempts that answered before the original attempt")
+                .register(meterRegistry);
+        if (enabled) {
+            log.info("Upstream hedging enabled at p{} (min delay {}) with a {}% budget", percentile * 100, minDelay, budgetRatio * 100);
+        }
+    }
+
+    public <T> Mono<T> hedge(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Mono<T> result;
+            if (!enabled) {
+                result = timedAttempt(call);
+            } else {
+                depositBudget();
+                Mono<T> primary = timedAttempt(call);
+                Mono<T> hedged = Mono.delay(currentHedgeDelay())
+                        .flatMap(tick -> {
+                            if (!withdrawBudget()) {
+                                return Mono.<T>never();
+                            }
+                            hedgesSent.increment();
+                            return timedAttempt(call)
+                                    .doOnNext(value -> hedgesWon.increment())
+                                    .onErrorResume(e -> Mono.never());
+                        });
+                result = Mono.firstWithSignal(primary, hedged);
+            }
+            return result.doOnSuccess(value -> callTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    public Duration currentHedgeDelay() {
+        long now = System.nanoTime();
+        if (now - hedgeDelayComputedAt >= DELAY_REFRESH_NANOS) {
+            hedgeDelayComputedAt = now;
+            hedgeDelay = computeHedgeDelay();
+        }
+        return hedgeDelay;
+    }
+
+    public long getHedgeCount() {
+        return (long) hedgesSent.count();
+    }
+
+    private Duration computeHedgeDelay() {
+        var snapshot = attemptTimer.takeSnapshot();
+        if (snapshot.count() < MIN_SAMPLES) {
+            return minDelay;
+        }
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                Duration observed = Duration.ofNanos((long) value.value(TimeUnit.NANOSECONDS));
+                return observed.compareTo(minDelay) > 0 ? observed : minDelay;
+            }
+        }
+        return minDelay;
+    }
+
+    private <T> Mono<T> timedAttempt(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.get().doOnSuccess(value -> attemptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private void depositBudget() {
+        budgetMicros.getAndUpdate(budget -> Math.min(MAX_BUDGET_MICROS, budget + budgetMicrosPerCall));
+    }
+
+    private boolean withdrawBudget() {
+        long budget;
+        do {
+            budget = budgetMicros.get();
+            if (budget < MICROS_PER_HEDGE) {
+                return false;
+            }
+        } while (!budgetMicros.compareAndSet(budget, budget - MICROS_PER_HEDGE));
+        return true;
+    }
+}
@@ -0,0 +1,181 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.BatchPredictionResult;
+import com.karolbystrek.tennispredictor.model.PredictionJob;
+import com.karolbystrek.tennispredictor.model.PredictionJobStatus;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs prediction jobs in the background for clients that do not need answers right away. Jobs wait in a
+ * bounded queue and run on a dedicated worker pool, each with at most {@code concurrency-per-job} predictions
+ * in flight, so all jobs together never have more than {@code workers * concurrency-per-job} upstream calls
+ * outstanding and never occupy request-handling threads. When the queue is full, submissions are rejected
+ * with 429 and a Retry-After hint. Finished jobs are kept for {@code retention} and then purged.
+ */
+@Service
+public class PredictionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionJobService.class);
+    private final BatchPredictionService batchPredictionService;
+    private final ThreadPoolExecutor workers;
+    private final int concurrencyPerJob;
+    private final int maxJobSize;
+    private final Duration retention;
+    private final Duration retryAfter;
+    private final LongSupplier epochMillis;
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PredictionJobService(BatchPredictionService batchPredictionService,
+                                @Value("${tennis.predictor.jobs.workers:2}") int workers,
+                                @Value("${tennis.predictor.jobs.queue-capacity:100}") int queueCapacity,
+                                @Value("${tennis.predictor.jobs.concurrency-per-job:4}") int concurrencyPerJob,
+                                @Value("${tennis.predictor.jobs.max-size:1000}") int maxJobSize,
+                                @Value("${tennis.predictor.jobs.retention:PT1H}") Duration retention,
+                                @Value("${tennis.predictor.jobs.retry-after:PT5S}") Duration retryAfter) {
+        this(batchPredictionService, workers, queueCapacity, concurrencyPerJob, maxJobSize, retention, retryAfter, System::currentTimeMillis);
+    }
+
+    PredictionJobService(BatchPredictionService batchPredictionService, int workers, int queueCapacity, int concurrencyPerJob,
+                         int maxJobSize, Duration retention, Duration retryAfter, LongSupplier epochMillis) {
+        if (workers < 1 || queueCapacity < 1 || concurrencyPerJob < 1 || maxJobSize < 1) {
+            throw new IllegalStateException("Prediction job workers, queue capacity, concurrency per job and max size must be positive");
+        }
+        this.batchPredictionService = batchPredictionService;
+        this.concurrencyPerJob = concurrencyPerJob;
+        this.maxJobSize = maxJobSize;
+        this.retention = retention;
+        this.retryAfter = retryAfter;
+        this.epochMillis = epochMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "prediction-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        log.info("Prediction jobs run on {} workers with {} predictions in flight each; queue capacity {}",
+                workers, concurrencyPerJob, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public PredictionJob submit(List<PredictionRequest> requests) {
+        if (requests.size() > maxJobSize) {
+            throw new PredictionServiceException(
+                    "Prediction job of " + requests.size() + " predictions exceeds the limit of " + maxJobSize,
+                    HttpStatus.BAD_REQUEST.value());
+        }
+        Job job = new Job(UUID.randomUUID().toString(), List.copyOf(requests), now());
+        jobs.put(job.id, job);
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            log.warn("Rejecting prediction job of {} predictions: queue is full", requests.size());
+            throw new PredictionServiceException("Prediction job queue is full, try again later",
+                    HttpStatus.TOO_MANY_REQUESTS.value(), retryAfter);
+        }
+        log.info("Queued prediction job {} with {} predictions", job.id, requests.size());
+        return job.toView();
+    }
+
+    public Optional<PredictionJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::toView);
+    }
+
+    @Scheduled(fixedDelayString = "${tennis.predictor.jobs.purge-interval:PT1M}")
+    public void purgeFinishedJobs() {
+        Instant cutoff = now().minus(retention);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    public int getQueuedJobCount() {
+        return workers.getQueue().size();
+    }
+
+    public int getRunningJobCount() {
+        return workers.getActiveCount();
+    }
+
+    /**
+     * Failures of single predictions are part of the results; anything that fails the job as a whole marks it
+     * {@link PredictionJobStatus#FAILED}, so clients polling it always see it finish.
+     */
+    private void run(Job job) {
+        job.startedAt = now();
+        job.status = PredictionJobStatus.RUNNING;
+        log.info("Running prediction job {}", job.id);
+        try {
+            job.results = Flux.range(0, job.requests.size())
+                    .flatMapSequential(index -> batchPredictionService.predictJobEntry(index, job.requests.get(index)), concurrencyPerJob)
+                    .doOnNext(result -> job.completed.incrementAndGet())
+                    .collectList()
+                    .block();
+            job.completedAt = now();
+            job.status = PredictionJobStatus.COMPLETED;
+            log.info("Prediction job {} finished in {} ms", job.id, Duration.between(job.startedAt, job.completedAt).toMillis());
+        } catch (RuntimeException e) {
+            job.error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            job.completedAt = now();
+            job.status = PredictionJobStatus.FAILED;
+            log.error("Prediction job {} failed after {} of {} predictions", job.id, job.completed.get(), job.requests.size(), e);
+        }
+    }
+
+    private Instant now() {
+        return Instant.ofEpochMilli(epochMillis.getAsLong());
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final List<PredictionRequest> requests;
+        private final Instant submittedAt;
+        private final AtomicInteger completed = new AtomicInteger();
+        private volatile PredictionJobStatus status = PredictionJobStatus.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant completedAt;
+        private volatile List<BatchPredictionResult> results;
+        private volatile String error;
+
+        private Job(String id, List<PredictionRequest> requests, Instant submittedAt) {
+            this.id = id;
+            this.requests = requests;
+            this.submittedAt = submittedAt;
+        }
+
+        private PredictionJob toView() {
+            PredictionJobStatus currentStatus = status;
+            return new PredictionJob(id, currentStatus, requests.size(), completed.get(), submittedAt, startedAt,
+                    completedAt, currentStatus == PredictionJobStatus.COMPLETED ? results : null,
+                    currentStatus == PredictionJobStatus.FAILED ? error : null);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable pairwise model predictions for a fixed set of players and a single match configuration per
+ * surface. Each surface holds two dense {@code n * n} float arrays addressed through a {@link PlayerIndex}:
+ * {@code probabilities[i * n + j]} is the probability that player i beats player j, and
+ * {@code confidences[i * n + j]} the model confidence for that matchup. Missing pairs are stored as NaN.
+ */
+public final class PredictionMatrix {
+
+    public static final PredictionMatrix EMPTY = new PredictionMatrix(new PlayerIndex(new long[0]), new String[0], null, 0, null, Map.of());
+
+    private final PlayerIndex index;
+    private final String[] names;
+    private final String tourneyLevel;
+    private final int bestOf;
+    private final String round;
+    private final Map<String, Surface> surfaces;
+
+    private PredictionMatrix(PlayerIndex index, String[] names, String tourneyLevel, int bestOf, String round,
+                             Map<String, Surface> surfaces) {
+        this.index = index;
+        this.names = names;
+        this.tourneyLevel = tourneyLevel;
+        this.bestOf = bestOf;
+        this.round = round;
+        this.surfaces = surfaces;
+    }
+
+    public static Builder builder(long[] playerIds, String tourneyLevel, int bestOf, String round) {
+        return new Builder(playerIds, tourneyLevel, bestOf, round);
+    }
+
+    public Optional<PredictionResponse> lookup(PredictionRequest request) {
+        if (surfaces.isEmpty()
+                || request.getBestOf() == null || request.getBestOf() != bestOf
+                || !tourneyLevel.equals(normalize(request.getTourneyLevel()))
+                || !round.equals(normalize(request.getRound()))) {
+            return Optional.empty();
+        }
+        Surface surface = surfaces.get(normalize(request.getSurface()));
+        if (surface == null) {
+            return Optional.empty();
+        }
+        int player1 = index.indexOf(request.getPlayer1Id());
+        int player2 = index.indexOf(request.getPlayer2Id());
+        if (player1 == PlayerIndex.NOT_FOUND || player2 == PlayerIndex.NOT_FOUND || player1 == player2) {
+            return Optional.empty();
+        }
+        int cell = player1 * index.size() + player2;
+        float player1Probability = surface.probabilities()[cell];
+        if (Float.isNaN(player1Probability)) {
+            return Optional.empty();
+        }
+        float player2Probability = 1.0f - player1Probability;
+        boolean player1Wins = player1Probability >= player2Probability;
+        return Optional.of(new PredictionResponse(
+                names[player1],
+                names[player2],
+                player1Probability,
+                player2Probability,
+                player1Wins ? names[player1] : names[player2],
+                player1Wins ? request.getPlayer1Id() : request.getPlayer2Id(),
+                surface.confidences()[cell]
+        ));
+    }
+
+    public int playerCount() {
+        return index.size();
+    }
+
+    public int surfaceCount() {
+        return surfaces.size();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private record Surface(float[] probabilities, float[] confidences) {
+    }
+
+    /**
+     * Collects predictions for one matrix. Not thread-safe; callers must record predictions from a single
+     * thread at a time and call {@link #build()} once all of them are in.
+     */
+    public static final class Builder {
+
+        private final PlayerIndex index;
+        private final String[] names;
+        private final String tourneyLevel;
+        private final int bestOf;
+        private final String round;
+        private final Map<String, Surface> surfaces = new LinkedHashMap<>();
+
+        private Builder(long[] playerIds, String tourneyLevel, int bestOf, String round) {
+            this.index = new PlayerIndex(playerIds);
+            this.names = new String[playerIds.length];
+            this.tourneyLevel = normalize(tourneyLevel);
+            this.bestOf = bestOf;
+            this.round = normalize(round);
+        }
+
+        /**
+         * Records the prediction for {@code player1Id} against {@code player2Id} together with its mirror image.
+         */
+        public Builder record(String surface, long player1Id, long player2Id, PredictionResponse response) {
+            int player1 = index.indexOf(player1Id);
+            int player2 = index.indexOf(player2Id);
+            if (player1 == PlayerIndex.NOT_FOUND || player2 == PlayerIndex.NOT_FOUND || response.getPlayer1WinProbability() == null) {
+                return this;
+            }
+            int size = index.size();
+            Surface matrix = surfaces.computeIfAbsent(normalize(surface), s -> {
+                float[] probabilities = new float[size * size];
+                float[] confidences = new float[size * size];
+                Arrays.fill(probabilities, Float.NaN);
+                Arrays.fill(confidences, Float.NaN);
+                return new Surface(probabilities, confidences);
+            });
+            float probability = response.getPlayer1WinProbability();
+            float confidence = response.getConfidence() == null ? Float.NaN : response.getConfidence();
+            matrix.probabilities()[player1 * size + player2] = probability;
+            matrix.probabilities()[player2 * size + player1] = 1.0f - probability;
+            matrix.confidences()[player1 * size + player2] = confidence;
+            matrix.confidences()[player2 * size + player1] = confidence;
+            if (names[player1] == null) {
+                names[player1] = response.getPlayer1Name();
+            }
+            if (names[player2] == null) {
+                names[player2] = response.getPlayer2Name();
+            }
+            return this;
+        }
+
+        public PredictionMatrix build() {
+            Map<String, Surface> built = surfaces.entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+            return new PredictionMatrix(index, names.clone(), tourneyLevel, bestOf, round, built);
+        }
+    }
+}
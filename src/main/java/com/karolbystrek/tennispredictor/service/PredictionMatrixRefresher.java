@@ -0,0 +1,117 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.Player;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Periodically asks the prediction model for every pairing among the top-N ranked players on each configured
+ * surface and publishes the result as a new {@link PredictionMatrix}. Matchups are requested with the lower
+ * player ID first, matching the orientation used by {@link PredictionService}.
+ */
+@Component
+public class PredictionMatrixRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionMatrixRefresher.class);
+
+    private final PlayerRepository playerRepository;
+    private final PredictionService predictionService;
+    private final PredictionMatrixStore predictionMatrixStore;
+    private final boolean enabled;
+    private final int topN;
+    private final List<String> surfaces;
+    private final String tourneyLevel;
+    private final int bestOf;
+    private final String round;
+    private final int fetchConcurrency;
+
+    public PredictionMatrixRefresher(PlayerRepository playerRepository,
+                                     PredictionService predictionService,
+                                     PredictionMatrixStore predictionMatrixStore,
+                                     @Value("${tennis.predictor.matrix.enabled:false}") boolean enabled,
+                                     @Value("${tennis.predictor.matrix.top-n:200}") int topN,
+                                     @Value("${tennis.predictor.matrix.surfaces:Hard,Clay,Grass}") List<String> surfaces,
+                                     @Value("${tennis.predictor.matrix.tourney-level:A}") String tourneyLevel,
+                                     @Value("${tennis.predictor.matrix.best-of:3}") int bestOf,
+                                     @Value("${tennis.predictor.matrix.round:R32}") String round,
+                                     @Value("${tennis.predictor.matrix.fetch-concurrency:8}") int fetchConcurrency) {
+        if (fetchConcurrency < 1) {
+            throw new IllegalStateException("Matrix fetch concurrency 'tennis.predictor.matrix.fetch-concurrency' must be positive");
+        }
+        this.playerRepository = playerRepository;
+        this.predictionService = predictionService;
+        this.predictionMatrixStore = predictionMatrixStore;
+        this.enabled = enabled;
+        this.topN = topN;
+        this.surfaces = surfaces;
+        this.tourneyLevel = tourneyLevel;
+        this.bestOf = bestOf;
+        this.round = round;
+        this.fetchConcurrency = fetchConcurrency;
+    }
+
+    @Scheduled(initialDelayString = "${tennis.predictor.matrix.initial-delay:PT1M}",
+            fixedDelayString = "${tennis.predictor.matrix.refresh-interval:PT6H}")
+    public void refreshMatrix() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            PredictionMatrix matrix = buildMatrix();
+            predictionMatrixStore.replace(matrix);
+            log.info("Published prediction matrix for {} players on {} surfaces in {} ms",
+                    matrix.playerCount(), matrix.surfaceCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to rebuild prediction matrix, keeping the previous one", e);
+        }
+    }
+
+    PredictionMatrix buildMatrix() {
+        long[] playerIds = playerRepository.findByRankIsNotNullOrderByRankAsc(Limit.of(topN)).stream()
+                .map(Player::getPlayerId)
+                .mapToLong(Long::longValue)
+                .distinct()
+                .sorted()
+                .toArray();
+        PredictionMatrix.Builder builder = PredictionMatrix.builder(playerIds, tourneyLevel, bestOf, round);
+        LongAdder failures = new LongAdder();
+        int size = playerIds.length;
+
+        Flux.fromIterable(surfaces)
+                .concatMap(surface -> Flux.range(0, size)
+                        .concatMap(i -> Flux.range(i + 1, size - i - 1)
+                                .map(j -> new PredictionRequest(playerIds[i], playerIds[j], surface, tourneyLevel, bestOf, round))))
+                .flatMap(request -> predictionService.fetchFromModel(request)
+                        .map(response -> new MatrixEntry(request, response))
+                        .onErrorResume(e -> {
+                            failures.increment();
+                            log.debug("Skipping matrix entry {} vs {} on {}: {}",
+                                    request.getPlayer1Id(), request.getPlayer2Id(), request.getSurface(), e.getMessage());
+                            return Mono.empty();
+                        }), fetchConcurrency)
+                .doOnNext(entry -> builder.record(entry.request().getSurface(),
+                        entry.request().getPlayer1Id(), entry.request().getPlayer2Id(), entry.response()))
+                .blockLast();
+
+        if (failures.sum() > 0) {
+            log.warn("Prediction matrix is missing {} matchups that the model failed to predict", failures.sum());
+        }
+        return builder.build();
+    }
+
+    private record MatrixEntry(PredictionRequest request, PredictionResponse response) {
+    }
+}
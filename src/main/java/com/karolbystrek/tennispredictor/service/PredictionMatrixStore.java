@@ -0,0 +1,39 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the current {@link PredictionMatrix}. Rebuilt matrices replace the previous one with a single volatile
+ * write, so readers always see either the old or the new matrix in full.
+ */
+@Component
+public class PredictionMatrixStore {
+
+    private volatile PredictionMatrix matrix = PredictionMatrix.EMPTY;
+    private final LongAdder hits = new LongAdder();
+
+    public Optional<PredictionResponse> lookup(PredictionRequest request) {
+        Optional<PredictionResponse> response = matrix.lookup(request);
+        if (response.isPresent()) {
+            hits.increment();
+        }
+        return response;
+    }
+
+    public void replace(PredictionMatrix matrix) {
+        this.matrix = matrix;
+    }
+
+    public PredictionMatrix current() {
+        return matrix;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+}
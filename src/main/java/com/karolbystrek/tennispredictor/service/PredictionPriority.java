@@ -0,0 +1,24 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.Role;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Admission priority of a prediction, from most to least important.
+ */
+public enum PredictionPriority {
+    ADMIN,
+    INTERACTIVE,
+    BATCH;
+
+    /**
+     * Priority of a single prediction requested by a user: administrators go first, everyone else is interactive.
+     */
+    public static PredictionPriority of(Authentication authentication) {
+        if (authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> Role.ADMIN.name().equals(authority.getAuthority()))) {
+            return ADMIN;
+        }
+        return INTERACTIVE;
+    }
+}
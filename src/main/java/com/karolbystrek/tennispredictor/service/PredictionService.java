@@ -1,95 +1,223 @@
 package com.karolbystrek.tennispredictor.service;
 
-import com.karolbystrek.tennispredictor.exceptions.PlayerNotFoundException;
 import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
 import com.karolbystrek.tennispredictor.model.PredictionRequest;
 import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.model.PredictionSource;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class PredictionService {
 
     private static final Logger log = LoggerFactory.getLogger(PredictionService.class);
-    private final WebClient client;
-    private final String predictPath;
-
-    public PredictionService(WebClient.Builder webClientBuilder,
-                             @Value("${tennis.predictor.api.base-url}") String baseUrl,
-                             @Value("${tennis.predictor.api.key}") String apiKey,
-                             @Value("${tennis.predictor.api.predict-path}") String predictPath) {
-        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("${PREDICTION_API_KEY}")) {
-            log.error("API key 'tennis.predictor.api.key' is not configured properly in application.properties or environment variables.");
-            throw new IllegalStateException("API key not configured for PredictionService");
+    private static final int MAX_CONCURRENT_BATCHES = 16;
+    private static final int MAX_PENDING_REVALIDATIONS = 1000;
+    private static final int REVALIDATION_CONCURRENCY = 4;
+    private final PredictionClient predictionClient;
+    private final PredictionCache predictionCache;
+    private final PredictionMatrixStore predictionMatrixStore;
+    private final PredictionUpstreamGuard upstreamGuard;
+    private final PredictionHedger hedger;
+    private final EloPredictionEngine eloPredictionEngine;
+    private final PredictionAdmission predictionAdmission;
+    private final SingleFlight<MatchupKey, PredictionResponse> inFlightPredictions = new SingleFlight<>();
+    private final LongAdder fallbackPredictions = new LongAdder();
+    private final LongAdder stalePredictions = new LongAdder();
+    private final ConcurrentHashMap<MatchupKey, PredictionRequest> pendingRevalidations = new ConcurrentHashMap<>();
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+    private final MicroBatcher<PredictionRequest, PredictionResponse> microBatcher;
+
+    public PredictionService(PredictionClient predictionClient,
+                             PredictionCache predictionCache,
+                             PredictionMatrixStore predictionMatrixStore,
+                             PredictionUpstreamGuard upstreamGuard,
+                             PredictionHedger hedger,
+                             EloPredictionEngine eloPredictionEngine,
+                             PredictionAdmission predictionAdmission,
+                             @Value("${tennis.predictor.batching.enabled:false}") boolean batchingEnabled,
+                             @Value("${tennis.predictor.batching.max-size:32}") int batchMaxSize,
+                             @Value("${tennis.predictor.batching.window:5ms}") Duration batchWindow) {
+        this.predictionClient = predictionClient;
+        this.predictionCache = predictionCache;
+        this.predictionMatrixStore = predictionMatrixStore;
+        this.upstreamGuard = upstreamGuard;
+        this.hedger = hedger;
+        this.eloPredictionEngine = eloPredictionEngine;
+        this.predictionAdmission = predictionAdmission;
+
+        if (batchingEnabled) {
+            this.microBatcher = new MicroBatcher<>(batchMaxSize, batchWindow, MAX_CONCURRENT_BATCHES, predictionClient::predictBatch);
+            log.info("Micro-batching upstream predictions (up to {} per batch, window {})", batchMaxSize, batchWindow);
+        } else {
+            this.microBatcher = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (microBatcher != null) {
+            microBatcher.dispose();
+        }
+    }
+
+    public Mono<PredictionResponse> predictAsync(PredictionRequest request) {
+        return Mono.defer(() -> {
+            Optional<PredictionResponse> precomputed = predictionMatrixStore.lookup(request);
+            if (precomputed.isPresent()) {
+                return Mono.just(precomputed.get());
+            }
+            MatchupKey key = MatchupKey.of(request);
+            Optional<PredictionResponse> cached = predictionCache.get(key);
+            if (cached.isPresent()) {
+                log.debug("Prediction cache hit for {}", key);
+                return Mono.just(key.orient(cached.get(), request));
+            }
+            return upstreamPrediction(key, canonicalRequest(key, request))
+                    .map(canonicalResponse -> key.orient(canonicalResponse, request));
+        }).onErrorResume(PredictionService::isUpstreamFailure, e -> stalePrediction(request, e)
+                .switchIfEmpty(Mono.defer(() -> fallbackPrediction(request, e))));
+    }
+
+    /**
+     * Calls the prediction model through the upstream guard only, bypassing the precomputed matrix, the cache,
+     * request coalescing, hedging and the Elo fallback.
+     */
+    public Mono<PredictionResponse> fetchFromModel(PredictionRequest request) {
+        return upstreamGuard.protect(() -> callModel(request));
+    }
+
+    public long getUpstreamBatchCount() {
+        return microBatcher == null ? 0 : microBatcher.batchCount();
+    }
+
+    public long getUpstreamBatchedPredictionCount() {
+        return microBatcher == null ? 0 : microBatcher.itemCount();
+    }
+
+    public int getInFlightPredictionCount() {
+        return inFlightPredictions.inFlightCount();
+    }
+
+    public long getCoalescedPredictionCount() {
+        return inFlightPredictions.coalescedCount();
+    }
+
+    public long getFallbackPredictionCount() {
+        return fallbackPredictions.sum();
+    }
+
+    public long getStalePredictionCount() {
+        return stalePredictions.sum();
+    }
+
+    public int getPendingRevalidationCount() {
+        return pendingRevalidations.size();
+    }
+
+    private Mono<PredictionResponse> upstreamPrediction(MatchupKey key, PredictionRequest canonicalRequest) {
+        return inFlightPredictions
+                .execute(key, () -> hedger.hedge(() -> upstreamGuard.protect(() -> callModel(canonicalRequest)))
+                        .doOnNext(response -> {
+                            predictionCache.put(key, response);
+                            pendingRevalidations.remove(key);
+                            revalidateStalePredictions();
+                        }));
+    }
+
+    /**
+     * Serves an expired cache entry, marked as stale, and remembers the matchup so it is refreshed once the
+     * upstream answers again.
+     */
+    private Mono<PredictionResponse> stalePrediction(PredictionRequest request, Throwable upstreamError) {
+        MatchupKey key = MatchupKey.of(request);
+        Optional<PredictionResponse> stale = predictionCache.getStale(key);
+        if (stale.isEmpty()) {
+            return Mono.empty();
         }
-        if (baseUrl == null || baseUrl.isEmpty()) {
-            log.error("API base URL 'tennis.predictor.api.base-url' is not configured properly in application.properties.");
-            throw new IllegalStateException("API base URL not configured for PredictionService");
+        stalePredictions.increment();
+        if (pendingRevalidations.size() < MAX_PENDING_REVALIDATIONS) {
+            pendingRevalidations.putIfAbsent(key, canonicalRequest(key, request));
         }
-        if (predictPath == null || predictPath.isEmpty()) {
-            log.error("API predict path 'tennis.predictor.api.predict-path' is not configured properly in application.properties.");
-            throw new IllegalStateException("API predict path not configured for PredictionService");
+        log.warn("Prediction service unavailable ({}), serving stale prediction for {}", upstreamError.getMessage(), key);
+        PredictionResponse response = key.orient(stale.get(), request);
+        response.setSource(PredictionSource.STALE_CACHE);
+        return Mono.just(response);
+    }
+
+    /**
+     * Refreshes the matchups that were served stale, in the background. Runs after any successful upstream call,
+     * at most one pass at a time, off the thread that delivered that call's response. Refreshes are admitted at
+     * {@link PredictionPriority#BATCH}, so they queue behind user traffic; matchups whose refresh fails with an
+     * upstream error or is refused admission stay pending.
+     */
+    private void revalidateStalePredictions() {
+        if (pendingRevalidations.isEmpty() || !revalidating.compareAndSet(false, true)) {
+            return;
         }
+        Flux.defer(() -> Flux.fromIterable(List.copyOf(pendingRevalidations.entrySet())))
+                .flatMap(pending -> predictionAdmission
+                        .admit(PredictionPriority.BATCH, () -> upstreamPrediction(pending.getKey(), pending.getValue()))
+                        .onErrorResume(e -> {
+                            if (!isUpstreamFailure(e) && !isAdmissionRejection(e)) {
+                                pendingRevalidations.remove(pending.getKey());
+                            }
+                            return Mono.empty();
+                        }), REVALIDATION_CONCURRENCY)
+                .doFinally(signal -> revalidating.set(false))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
 
-        this.predictPath = predictPath;
-
-        this.client = webClientBuilder
-                .baseUrl(baseUrl)
-                .defaultHeaders(headers -> {
-                    headers.setContentType(MediaType.APPLICATION_JSON);
-                    headers.set("X-API-KEY", apiKey);
-                })
-                .build();
-    }
-
-    public PredictionResponse predict(PredictionRequest request) {
-        Map<String, Object> requestBody = Map.of(
-                "player1_id", request.getPlayer1Id(),
-                "player2_id", request.getPlayer2Id(),
-                "surface", request.getSurface(),
-                "tourney_level", request.getTourneyLevel(),
-                "best_of", request.getBestOf(),
-                "round", request.getRound()
-        );
+    private Mono<PredictionResponse> fallbackPrediction(PredictionRequest request, Throwable upstreamError) {
+        Optional<PredictionResponse> fallback = eloPredictionEngine.predict(request);
+        if (fallback.isEmpty()) {
+            return Mono.error(upstreamError);
+        }
+        fallbackPredictions.increment();
+        log.warn("Prediction service unavailable ({}), serving Elo fallback prediction for {}", upstreamError.getMessage(), request);
+        return Mono.just(fallback.get());
+    }
+
+    private static boolean isUpstreamFailure(Throwable e) {
+        return e instanceof PredictionServiceException predictionServiceException
+                && predictionServiceException.getStatusCode() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    private static boolean isAdmissionRejection(Throwable e) {
+        return e instanceof PredictionServiceException predictionServiceException
+                && predictionServiceException.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private Mono<PredictionResponse> callModel(PredictionRequest request) {
+        return microBatcher == null ? predictionClient.predict(request) : microBatcher.submit(request);
+    }
 
-        log.debug("Sending prediction request to {}{} with body: {}", client.mutate().build(), predictPath, requestBody);
-
-        PredictionResponse response = client.post()
-                .uri(this.predictPath)
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(PredictionResponse.class)
-                .onErrorResume(WebClientResponseException.class, e -> {
-                    log.error("API error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-                    return switch (e.getStatusCode()) {
-                        case HttpStatus.BAD_REQUEST ->
-                                Mono.error(new PredictionServiceException("Invalid prediction request: " + e.getResponseBodyAsString(), HttpStatus.BAD_REQUEST.value()));
-                        case HttpStatus.NOT_FOUND ->
-                                Mono.error(new PlayerNotFoundException("Player not found: " + e.getResponseBodyAsString()));
-                        case HttpStatus.UNSUPPORTED_MEDIA_TYPE ->
-                                Mono.error(new PredictionServiceException("Invalid content type: " + e.getResponseBodyAsString(), HttpStatus.UNSUPPORTED_MEDIA_TYPE.value()));
-                        case HttpStatus.SERVICE_UNAVAILABLE ->
-                                Mono.error(new PredictionServiceException("Prediction service temporarily unavailable: " + e.getResponseBodyAsString(), HttpStatus.SERVICE_UNAVAILABLE.value()));
-                        default ->
-                                Mono.error(new PredictionServiceException("Prediction service internal server error: " + e.getResponseBodyAsString(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
-                    };
-                })
-                .onErrorResume(e -> !(e instanceof PredictionServiceException || e instanceof PlayerNotFoundException), e -> {
-                    log.error("Unexpected error during prediction", e);
-                    return Mono.error(new PredictionServiceException("Prediction service internal server error: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR.value()));
-                })
-                .block();
-
-        log.info("Prediction response: {}", response);
-        return response;
+    private static PredictionRequest canonicalRequest(MatchupKey key, PredictionRequest request) {
+        if (!key.isReversed(request)) {
+            return request;
+        }
+        return new PredictionRequest(
+                request.getPlayer2Id(),
+                request.getPlayer1Id(),
+                request.getSurface(),
+                request.getTourneyLevel(),
+                request.getBestOf(),
+                request.getRound()
+        );
     }
 }
@@ -0,0 +1,120 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PlayerNotFoundException;
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Puts a {@link CircuitBreaker} and an {@link AdaptiveConcurrencyLimiter} in front of upstream prediction calls.
+ * Rejected calls fail immediately with a 503 {@link PredictionServiceException} carrying a retry-after hint.
+ * Upstream 5xx responses and timeouts count as failures; client errors count as successful round trips.
+ */
+@Component
+public class PredictionUpstreamGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionUpstreamGuard.class);
+
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Duration limitRetryAfter;
+
+    @Autowired
+    public PredictionUpstreamGuard(@Value("${tennis.predictor.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                   @Value("${tennis.predictor.circuit-breaker.open-duration:PT10S}") Duration openDuration,
+                                   @Value("${tennis.predictor.circuit-breaker.half-open-calls:2}") int halfOpenCalls,
+                                   @Value("${tennis.predictor.limiter.initial-limit:20}") int initialLimit,
+                                   @Value("${tennis.predictor.limiter.min-limit:2}") int minLimit,
+                                   @Value("${tennis.predictor.limiter.max-limit:200}") int maxLimit,
+                                   @Value("${tennis.predictor.limiter.latency-threshold:PT2S}") Duration latencyThreshold,
+                                   @Value("${tennis.predictor.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                   @Value("${tennis.predictor.limiter.retry-after:PT1S}") Duration limitRetryAfter) {
+        this(new CircuitBreaker(failureThreshold, openDuration, halfOpenCalls, System::nanoTime),
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio),
+                limitRetryAfter);
+        log.info("Prediction upstream guarded by circuit breaker (threshold {}, open {}) and concurrency limit {} [{}..{}]",
+                failureThreshold, openDuration, initialLimit, minLimit, maxLimit);
+    }
+
+    PredictionUpstreamGuard(CircuitBreaker circuitBreaker, AdaptiveConcurrencyLimiter concurrencyLimiter, Duration limitRetryAfter) {
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.limitRetryAfter = limitRetryAfter;
+    }
+
+    /**
+     * Runs the call if both the breaker and the limiter admit it. Whatever happens afterwards, including the
+     * supplier throwing, both are settled exactly once, by the first of: a value or completion (success), an
+     * error (success or failure depending on its kind) or a cancel (permits handed back). Settling happens
+     * before the signal travels downstream, so a caller that sees the result also sees its effect on the breaker.
+     */
+    public <T> Mono<T> protect(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long permission = circuitBreaker.tryAcquirePermission();
+            if (permission == CircuitBreaker.REJECTED) {
+                return Mono.error(new PredictionServiceException("Prediction service circuit is open",
+                        HttpStatus.SERVICE_UNAVAILABLE.value(), circuitBreaker.getRemainingOpenTime()));
+            }
+            if (!concurrencyLimiter.tryAcquire()) {
+                circuitBreaker.releasePermission(permission);
+                return Mono.error(new PredictionServiceException("Prediction service concurrency limit reached",
+                        HttpStatus.SERVICE_UNAVAILABLE.value(), limitRetryAfter));
+            }
+            long start = System.nanoTime();
+            AtomicBoolean settled = new AtomicBoolean();
+            return Mono.defer(call)
+                    .doOnSuccess(value -> settle(settled, SignalType.ON_COMPLETE, null, permission, start))
+                    .doOnError(e -> settle(settled, SignalType.ON_ERROR, e, permission, start))
+                    .doOnCancel(() -> settle(settled, SignalType.CANCEL, null, permission, start));
+        });
+    }
+
+    private void settle(AtomicBoolean settled, SignalType signal, Throwable error, long permission, long start) {
+        if (!settled.compareAndSet(false, true)) {
+            return;
+        }
+        if (signal == SignalType.CANCEL) {
+            concurrencyLimiter.onIgnored();
+            circuitBreaker.releasePermission(permission);
+        } else if (signal == SignalType.ON_ERROR && isUpstreamFailure(error)) {
+            concurrencyLimiter.onDropped();
+            circuitBreaker.onFailure(permission);
+        } else {
+            concurrencyLimiter.onSuccess(System.nanoTime() - start);
+            circuitBreaker.onSuccess(permission);
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimiter.getLimit();
+    }
+
+    public long getCircuitRejectedCount() {
+        return circuitBreaker.getRejectedCount();
+    }
+
+    public long getLimitRejectedCount() {
+        return concurrencyLimiter.getRejectedCount();
+    }
+
+    private static boolean isUpstreamFailure(Throwable e) {
+        if (e instanceof PredictionServiceException predictionServiceException) {
+            return predictionServiceException.getStatusCode() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        }
+        return !(e instanceof PlayerNotFoundException);
+    }
+}
@@ -0,0 +1,170 @@
+package com.karolbystrek.tennispredictor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Consistent-hash ring over the prediction model replicas. Each replica owns {@code virtualNodes} points on
+ * the ring and a matchup goes to the first available replica clockwise from its hash, so a matchup keeps
+ * hitting the same replica (and its cache) while membership is stable, and only the matchups of an ejected
+ * replica move elsewhere.
+ * <p>
+ * A replica is ejected for {@code ejectionDuration} after {@code failureThreshold} consecutive failures or a
+ * failed health check, and readmitted once the ejection has elapsed or a call or health check succeeds. If
+ * every replica is ejected the ring fails open and routes to the matchup's owner anyway.
+ */
+public class ReplicaRing {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRing.class);
+
+    private final List<Replica> replicas;
+    private final long[] points;
+    private final int[] owners;
+    private final int failureThreshold;
+    private final long ejectionNanos;
+    private final LongSupplier nanoClock;
+
+    public ReplicaRing(List<String> urls, int virtualNodes, int failureThreshold, Duration ejectionDuration, LongSupplier nanoClock) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("Replica ring needs at least one replica");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Replica ring needs at least one virtual node per replica");
+        }
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Replica failure threshold must be positive");
+        }
+        this.replicas = urls.stream().map(Replica::new).toList();
+        this.failureThreshold = failureThreshold;
+        this.ejectionNanos = ejectionDuration.toNanos();
+        this.nanoClock = nanoClock;
+
+        int size = replicas.size() * virtualNodes;
+        long[] unsortedPoints = new long[size];
+        Integer[] order = new Integer[size];
+        for (int replica = 0; replica < replicas.size(); replica++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                int index = replica * virtualNodes + node;
+                unsortedPoints[index] = hash(replicas.get(replica).url() + "#" + node);
+                order[index] = index;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(unsortedPoints[a], unsortedPoints[b]));
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = unsortedPoints[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    public Replica select(MatchupKey key) {
+        long now = nanoClock.getAsLong();
+        int start = Arrays.binarySearch(points, hash(key));
+        if (start < 0) {
+            start = -start - 1;
+        }
+        for (int i = 0; i < points.length; i++) {
+            Replica replica = replicas.get(owners[(start + i) % points.length]);
+            if (replica.isAvailable(now)) {
+                return replica;
+            }
+        }
+        return replicas.get(owners[start % points.length]);
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    public int size() {
+        return replicas.size();
+    }
+
+    public int availableCount() {
+        long now = nanoClock.getAsLong();
+        return (int) replicas.stream().filter(replica -> replica.isAvailable(now)).count();
+    }
+
+    public void onSuccess(Replica replica) {
+        replica.consecutiveFailures.set(0);
+        if (replica.ejectedUntil != 0) {
+            replica.ejectedUntil = 0;
+            log.info("Prediction replica {} readmitted", replica.url());
+        }
+    }
+
+    public void onFailure(Replica replica) {
+        if (replica.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            eject(replica, "after " + replica.consecutiveFailures.get() + " consecutive failures");
+        }
+    }
+
+    public void onHealthCheckFailure(Replica replica) {
+        eject(replica, "after a failed health check");
+    }
+
+    private void eject(Replica replica, String reason) {
+        long now = nanoClock.getAsLong();
+        if (replica.isAvailable(now)) {
+            log.warn("Ejecting prediction replica {} for {} ms {}", replica.url(), ejectionNanos / 1_000_000, reason);
+        }
+        long until = now + ejectionNanos;
+        // 0 is reserved for "not ejected"
+        replica.ejectedUntil = until == 0 ? 1 : until;
+    }
+
+    static long hash(MatchupKey key) {
+        long h = fmix64(key.firstPlayerId());
+        h = fmix64(h ^ key.secondPlayerId());
+        h = fmix64(h ^ Objects.hashCode(key.surface()));
+        h = fmix64(h ^ Objects.hashCode(key.tourneyLevel()));
+        h = fmix64(h ^ key.bestOf());
+        return fmix64(h ^ Objects.hashCode(key.round()));
+    }
+
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ b) * 0x100000001b3L;
+        }
+        return fmix64(h);
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static final class Replica {
+
+        private final String url;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long ejectedUntil;
+
+        private Replica(String url) {
+            this.url = url;
+        }
+
+        public String url() {
+            return url;
+        }
+
+        boolean isAvailable(long now) {
+            long until = ejectedUntil;
+            return until == 0 || now - until >= 0;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.karolbystrek.tennispredictor.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into a single in-flight {@link Mono}. Every subscriber that
+ * joins while the call is running receives the same value or the same error; the call is cancelled only
+ * once all of its subscribers have cancelled.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<V>> created = new AtomicReference<>();
+            Mono<V> shared = inFlight.computeIfAbsent(key, k -> {
+                Mono<V> mono = call.get()
+                        .doFinally(signal -> inFlight.remove(k, created.get()))
+                        .flux()
+                        .replay(1)
+                        .refCount(1)
+                        .next();
+                created.set(mono);
+                return mono;
+            });
+            if (shared != created.get()) {
+                coalesced.increment();
+            }
+            return shared;
+        });
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+}
@@ -0,0 +1,276 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.PlayerTournamentOdds;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.model.TournamentSimulationRequest;
+import com.karolbystrek.tennispredictor.model.TournamentSimulationResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Monte Carlo simulation of a single-elimination draw. Pairwise win probabilities for every matchup that can
+ * occur in the draw are fetched through {@link PredictionService} (and therefore its cache), admitted at
+ * {@link PredictionPriority#BATCH} so a large draw cannot crowd out interactive predictions. A matchup the
+ * admission queue keeps refusing after {@code admission-retries} retries, each {@code Retry-After} apart, is
+ * scored by {@link EloPredictionEngine} instead of failing the whole draw. The simulations are then split
+ * across a dedicated {@link ForkJoinPool}. Each task uses its thread's {@link ThreadLocalRandom} and its own
+ * counters, which are summed when the tasks are joined.
+ */
+@Service
+public class TournamentSimulationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TournamentSimulationService.class);
+    private static final int SIMULATIONS_PER_TASK = 1_000;
+    private static final int MAX_DRAW_SIZE = 256;
+    private static final String TITLE = "W";
+
+    private final PredictionService predictionService;
+    private final PredictionAdmission predictionAdmission;
+    private final EloPredictionEngine eloPredictionEngine;
+    private final ForkJoinPool simulationPool;
+    private final int fetchConcurrency;
+    private final int admissionRetries;
+
+    public TournamentSimulationService(PredictionService predictionService,
+                                       PredictionAdmission predictionAdmission,
+                                       EloPredictionEngine eloPredictionEngine,
+                                       @Value("${tennis.predictor.simulation.parallelism:0}") int parallelism,
+                                       @Value("${tennis.predictor.simulation.fetch-concurrency:16}") int fetchConcurrency,
+                                       @Value("${tennis.predictor.simulation.admission-retries:3}") int admissionRetries) {
+        if (fetchConcurrency < 1) {
+            throw new IllegalStateException("Simulation fetch concurrency 'tennis.predictor.simulation.fetch-concurrency' must be positive");
+        }
+        if (admissionRetries < 0) {
+            throw new IllegalStateException("Simulation admission retries 'tennis.predictor.simulation.admission-retries' must not be negative");
+        }
+        this.predictionService = predictionService;
+        this.predictionAdmission = predictionAdmission;
+        this.eloPredictionEngine = eloPredictionEngine;
+        this.simulationPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.fetchConcurrency = fetchConcurrency;
+        this.admissionRetries = admissionRetries;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        simulationPool.shutdownNow();
+    }
+
+    public Mono<TournamentSimulationResult> simulate(TournamentSimulationRequest request) {
+        long[] draw = validateDraw(request.getDraw());
+        List<String> rounds = roundNames(draw.length);
+        int simulations = request.getSimulations();
+        log.info("Simulating draw of {} players {} times", draw.length, simulations);
+
+        return fetchWinProbabilities(draw, rounds, request)
+                .publishOn(Schedulers.boundedElastic())
+                .map(matchups -> {
+                    long start = System.nanoTime();
+                    double[][] reach = simulateReachProbabilities(matchups.winProbabilities(), draw.length, simulations);
+                    log.info("Simulated draw of {} players {} times in {} ms",
+                            draw.length, simulations, (System.nanoTime() - start) / 1_000_000);
+                    return toResult(draw, matchups.names(), rounds, simulations, reach);
+                });
+    }
+
+    /**
+     * Runs the simulations for a draw whose pairwise probabilities are given as a row-major matrix where
+     * {@code winProbabilities[i * drawSize + j]} is the probability that the player at draw position i beats
+     * the player at position j. Returns, per draw position, the probability of reaching each round followed by
+     * the probability of winning the title.
+     */
+    double[][] simulateReachProbabilities(float[] winProbabilities, int drawSize, int simulations) {
+        int roundCount = Integer.numberOfTrailingZeros(drawSize);
+        long[] roundWins = simulationPool.invoke(new SimulationTask(winProbabilities, drawSize, roundCount, simulations));
+        double[][] reach = new double[drawSize][roundCount + 1];
+        for (int player = 0; player < drawSize; player++) {
+            reach[player][0] = 1.0;
+            for (int round = 0; round < roundCount; round++) {
+                reach[player][round + 1] = (double) roundWins[player * roundCount + round] / simulations;
+            }
+        }
+        return reach;
+    }
+
+    private Mono<Matchups> fetchWinProbabilities(long[] draw, List<String> rounds, TournamentSimulationRequest request) {
+        int drawSize = draw.length;
+        Matchups matchups = new Matchups(new float[drawSize * drawSize], new String[drawSize]);
+        return Flux.range(0, drawSize)
+                .concatMap(i -> Flux.range(i + 1, drawSize - i - 1).map(j -> new int[]{i, j}))
+                .flatMap(pair -> {
+                    int i = pair[0];
+                    int j = pair[1];
+                    String round = rounds.get(31 - Integer.numberOfLeadingZeros(i ^ j));
+                    PredictionRequest predictionRequest = new PredictionRequest(
+                            draw[i], draw[j], request.getSurface(), request.getTourneyLevel(), request.getBestOf(), round);
+                    return predictionAdmission
+                            .admitWithRetries(PredictionPriority.BATCH, admissionRetries, () -> predictionService.predictAsync(predictionRequest))
+                            .onErrorResume(TournamentSimulationService::isAdmissionRejection, e -> eloEstimate(predictionRequest, e))
+                            .map(response -> new PairPrediction(i, j, response));
+                }, fetchConcurrency)
+                .doOnNext(prediction -> matchups.record(drawSize, prediction))
+                .then(Mono.just(matchups));
+    }
+
+    private Mono<PredictionResponse> eloEstimate(PredictionRequest request, Throwable rejection) {
+        Optional<PredictionResponse> estimate = eloPredictionEngine.predict(request);
+        if (estimate.isEmpty()) {
+            return Mono.error(rejection);
+        }
+        log.debug("Matchup {} was not admitted ({}), using the Elo estimate", request, rejection.getMessage());
+        return Mono.just(estimate.get());
+    }
+
+    private static boolean isAdmissionRejection(Throwable e) {
+        return e instanceof PredictionServiceException predictionServiceException
+                && (predictionServiceException.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS.value()
+                || predictionServiceException.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    private static TournamentSimulationResult toResult(long[] draw, String[] names, List<String> rounds,
+                                                       int simulations, double[][] reach) {
+        List<PlayerTournamentOdds> players = new ArrayList<>(draw.length);
+        for (int player = 0; player < draw.length; player++) {
+            Map<String, Double> reachProbabilities = new LinkedHashMap<>();
+            for (int round = 0; round < rounds.size(); round++) {
+                reachProbabilities.put(rounds.get(round), reach[player][round]);
+            }
+            double titleProbability = reach[player][rounds.size()];
+            reachProbabilities.put(TITLE, titleProbability);
+            players.add(new PlayerTournamentOdds(draw[player], names[player], reachProbabilities, titleProbability));
+        }
+        List<String> roundsWithTitle = new ArrayList<>(rounds);
+        roundsWithTitle.add(TITLE);
+        return new TournamentSimulationResult(simulations, roundsWithTitle, players);
+    }
+
+    private static long[] validateDraw(List<Long> draw) {
+        int drawSize = draw.size();
+        if (drawSize < 2 || drawSize > MAX_DRAW_SIZE || Integer.bitCount(drawSize) != 1) {
+            throw new PredictionServiceException(
+                    "Draw size must be a power of two between 2 and " + MAX_DRAW_SIZE + ", got " + drawSize,
+                    HttpStatus.BAD_REQUEST.value());
+        }
+        Set<Long> seen = new HashSet<>();
+        long[] playerIds = new long[drawSize];
+        for (int i = 0; i < drawSize; i++) {
+            Long playerId = draw.get(i);
+            if (!seen.add(playerId)) {
+                throw new PredictionServiceException("Player " + playerId + " appears more than once in the draw",
+                        HttpStatus.BAD_REQUEST.value());
+            }
+            playerIds[i] = playerId;
+        }
+        return playerIds;
+    }
+
+    static List<String> roundNames(int drawSize) {
+        List<String> rounds = new ArrayList<>();
+        for (int remaining = drawSize; remaining >= 2; remaining /= 2) {
+            rounds.add(switch (remaining) {
+                case 2 -> "F";
+                case 4 -> "SF";
+                case 8 -> "QF";
+                default -> "R" + remaining;
+            });
+        }
+        return rounds;
+    }
+
+    private record PairPrediction(int first, int second, PredictionResponse response) {
+    }
+
+    private record Matchups(float[] winProbabilities, String[] names) {
+
+        void record(int drawSize, PairPrediction prediction) {
+            PredictionResponse response = prediction.response();
+            if (response.getPlayer1WinProbability() == null) {
+                throw new PredictionServiceException("Prediction service returned no probability", HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+            float probability = response.getPlayer1WinProbability();
+            winProbabilities[prediction.first() * drawSize + prediction.second()] = probability;
+            winProbabilities[prediction.second() * drawSize + prediction.first()] = 1.0f - probability;
+            if (names[prediction.first()] == null) {
+                names[prediction.first()] = response.getPlayer1Name();
+            }
+            if (names[prediction.second()] == null) {
+                names[prediction.second()] = response.getPlayer2Name();
+            }
+        }
+    }
+
+    private static final class SimulationTask extends RecursiveTask<long[]> {
+
+        private final float[] winProbabilities;
+        private final int drawSize;
+        private final int roundCount;
+        private final int simulations;
+
+        SimulationTask(float[] winProbabilities, int drawSize, int roundCount, int simulations) {
+            this.winProbabilities = winProbabilities;
+            this.drawSize = drawSize;
+            this.roundCount = roundCount;
+            this.simulations = simulations;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (simulations <= SIMULATIONS_PER_TASK) {
+                return runSimulations();
+            }
+            int half = simulations / 2;
+            SimulationTask left = new SimulationTask(winProbabilities, drawSize, roundCount, half);
+            left.fork();
+            long[] counts = new SimulationTask(winProbabilities, drawSize, roundCount, simulations - half).compute();
+            long[] leftCounts = left.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += leftCounts[i];
+            }
+            return counts;
+        }
+
+        private long[] runSimulations() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long[] roundWins = new long[drawSize * roundCount];
+            int[] alive = new int[drawSize];
+            for (int simulation = 0; simulation < simulations; simulation++) {
+                for (int i = 0; i < drawSize; i++) {
+                    alive[i] = i;
+                }
+                int remaining = drawSize;
+                for (int round = 0; round < roundCount; round++) {
+                    int matches = remaining / 2;
+                    for (int match = 0; match < matches; match++) {
+                        int first = alive[2 * match];
+                        int second = alive[2 * match + 1];
+                        int winner = random.nextFloat() < winProbabilities[first * drawSize + second] ? first : second;
+                        alive[match] = winner;
+                        roundWins[winner * roundCount + round]++;
+                    }
+                    remaining = matches;
+                }
+            }
+            return roundWins;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+-- Change tracking for the players table, backing GET /players/changes.
+-- The schema is managed outside the application, so apply this script once (MySQL) before deploying.
+--
+-- Every insert or update stamps the row's change_version with the next value of a single counter, and every
+-- delete leaves a tombstone stamped the same way, so "everything after version N" is one indexed range scan
+-- on each table. Existing rows start at version 1, so a client syncing from 0 receives all of them.
+--
+-- Constraints:
+-- * Every player INSERT, UPDATE or DELETE locks the single player_change_counter row until its transaction
+--   commits, so concurrent player writes are serialized. Player data changes rarely and in batch imports,
+--   where this does not matter; run each import in one transaction rather than many concurrent ones.
+-- * TRUNCATE TABLE players (and dropping or swapping the table) does not fire the delete trigger, so no
+--   tombstones are written and change feed clients never learn about the removed players. Bulk reloads must
+--   use DELETE, or clients must re-download the full list afterwards. The server's own search index and
+--   player cache recover at their next full reload.
+-- * Player.changeVersion and the PlayerTombstone entity map the new column and table, so with
+--   spring.jpa.hibernate.ddl-auto=validate (the dev profile) the application does not start until this
+--   script has been applied.
+
+CREATE TABLE player_change_counter (
+    id      TINYINT PRIMARY KEY,
+    version BIGINT  NOT NULL
+);
+INSERT INTO player_change_counter (id, version) VALUES (1, 1);
+
+ALTER TABLE players ADD COLUMN change_version BIGINT NOT NULL DEFAULT 1;
+CREATE INDEX idx_players_change_version ON players (change_version);
+
+CREATE TABLE player_tombstones (
+    player_id      BIGINT PRIMARY KEY,
+    change_version BIGINT NOT NULL,
+    INDEX idx_player_tombstones_change_version (change_version)
+);
+
+DELIMITER //
+
+CREATE TRIGGER players_before_insert BEFORE INSERT ON players FOR EACH ROW
+BEGIN
+    UPDATE player_change_counter SET version = LAST_INSERT_ID(version + 1) WHERE id = 1;
+    SET NEW.change_version = LAST_INSERT_ID();
+END//
+
+CREATE TRIGGER players_after_insert AFTER INSERT ON players FOR EACH ROW
+BEGIN
+    DELETE FROM player_tombstones WHERE player_id = NEW.player_id;
+END//
+
+CREATE TRIGGER players_before_update BEFORE UPDATE ON players FOR EACH ROW
+BEGIN
+    UPDATE player_change_counter SET version = LAST_INSERT_ID(version + 1) WHERE id = 1;
+    SET NEW.change_version = LAST_INSERT_ID();
+END//
+
+CREATE TRIGGER players_after_delete AFTER DELETE ON players FOR EACH ROW
+BEGIN
+    UPDATE player_change_counter SET version = LAST_INSERT_ID(version + 1) WHERE id = 1;
+    INSERT INTO player_tombstones (player_id, change_version) VALUES (OLD.player_id, LAST_INSERT_ID())
+        ON DUPLICATE KEY UPDATE change_version = LAST_INSERT_ID();
+END//
+
+DELIMITER ;
@@ -1,6 +1,6 @@
 document.addEventListener('DOMContentLoaded', () => {
-    const CACHE_KEY = 'playersDataCache';
-    const CACHE_DURATION_MS = 1000 * 60 * 60;
+    const SEARCH_DEBOUNCE_MS = 150;
+    const SEARCH_LIMIT = 20;
 
     const modalElement = document.getElementById('playerSearchModal');
     const searchInputElement = document.getElementById('playerSearchInput');
@@ -9,11 +9,11 @@ document.addEventListener('DOMContentLoaded', () => {
     const closeModalButton = modalElement.querySelector('.close');
     const predictionForm = document.getElementById('prediction-form');
 
-    let playersCache = [];
     let activePlayerFieldId = null;
+    let searchTimer = null;
+    let searchController = null;
 
     initializeEventListeners();
-    loadPlayers();
 
     /**
      * Sets up all necessary event listeners for the UI elements.
@@ -50,11 +50,11 @@ document.addEventListener('DOMContentLoaded', () => {
     }
 
     /**
-     * Opens the player search modal, resets search, and displays players.
+     * Opens the player search modal and resets the search.
      */
     function openModal() {
         searchInputElement.value = '';
-        renderPlayerList(playersCache);
+        searchResultsContainer.innerHTML = '<div class="no-results">Start typing a player name.</div>';
         modalElement.style.display = 'block';
         searchInputElement.focus();
     }
@@ -78,15 +78,17 @@ document.addEventListener('DOMContentLoaded', () => {
     }
 
     /**
-     * Handles input events on the search field to filter the player list.
+     * Handles input events on the search field by querying the server after a short pause in typing.
      * @param {InputEvent} event - The input event object.
      */
     function handleSearchInput(event) {
-        const searchTerm = event.target.value.toLowerCase().trim();
-        const filteredPlayers = playersCache.filter(player =>
-            player.name.toLowerCase().includes(searchTerm)
-        );
-        renderPlayerList(filteredPlayers);
+        const searchTerm = event.target.value.trim();
+        clearTimeout(searchTimer);
+        if (!searchTerm) {
+            searchResultsContainer.innerHTML = '<div class="no-results">Start typing a player name.</div>';
+            return;
+        }
+        searchTimer = setTimeout(() => searchPlayers(searchTerm), SEARCH_DEBOUNCE_MS);
     }
 
     /**
@@ -116,36 +118,33 @@ document.addEventListener('DOMContentLoaded', () => {
     }
 
     /**
-     * Loads player data, first trying the cache, then fetching from the server.
+     * Fetches the players matching the search term, cancelling any search still in flight.
      * @async
+     * @param {string} searchTerm - The text typed by the user.
      */
-    async function loadPlayers() {
+    async function searchPlayers(searchTerm) {
+        if (searchController) {
+            searchController.abort();
+        }
+        searchController = new AbortController();
         try {
-            const cached = getFromCache(CACHE_KEY);
-            if (cached) {
-                playersCache = cached;
-                console.log('Loaded players from cache.');
-                return;
-            }
-
-            console.log('Fetching players from server...');
-            const response = await fetch('/players');
+            const params = new URLSearchParams({ q: searchTerm, limit: SEARCH_LIMIT });
+            const response = await fetch(`/players/search?${params}`, { signal: searchController.signal });
             if (!response.ok) {
                 throw new Error(`HTTP error! status: ${response.status}`);
             }
             const rawPlayers = await response.json();
 
-            playersCache = rawPlayers.map(p => ({
+            renderPlayerList(rawPlayers.map(p => ({
                 id: p.playerId,
                 name: `${p.firstName} ${p.lastName}`,
                 country: p.ioc
-            }));
-
-            saveToCache(CACHE_KEY, playersCache, CACHE_DURATION_MS);
-            console.log('Players fetched and cached.');
-
+            })));
         } catch (error) {
-            console.error('Error loading players:', error);
+            if (error.name === 'AbortError') {
+                return;
+            }
+            console.error('Error searching players:', error);
             searchResultsContainer.innerHTML = '<div class="error">Failed to load player data. Please try again later.</div>';
         }
     }
@@ -208,48 +207,6 @@ document.addEventListener('DOMContentLoaded', () => {
         closeModal();
     }
 
-    /**
-     * Saves data to local storage with an expiry timestamp.
-     * @param {string} key - The key to store the data under.
-     * @param {any} data - The data to store.
-     * @param {number} durationMs - The duration in milliseconds until the data expires.
-     */
-    function saveToCache(key, data, durationMs) {
-        const item = {
-            data: data,
-            expiry: Date.now() + durationMs,
-        };
-        try {
-            localStorage.setItem(key, JSON.stringify(item));
-        } catch (e) {
-            console.error('Error saving to localStorage', e);
-        }
-    }
-
-    /**
-     * Retrieves data from local storage if it exists and has not expired.
-     * @param {string} key - The key to retrieve the data for.
-     * @returns {any|null} The cached data, or null if not found or expired.
-     */
-    function getFromCache(key) {
-        try {
-            const itemStr = localStorage.getItem(key);
-            if (!itemStr) {
-                return null;
-            }
-            const item = JSON.parse(itemStr);
-            const now = Date.now();
-            if (now > item.expiry) {
-                localStorage.removeItem(key);
-                return null;
-            }
-            return item.data;
-        } catch (e) {
-            console.error('Error reading from localStorage', e);
-            return null;
-        }
-    }
-
     /**
      * Basic HTML escaping function to prevent XSS.
      * @param {string} unsafe - The string to escape.
@@ -0,0 +1,75 @@
+package com.karolbystrek.tennispredictor.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Cache Configuration Tests")
+public class CacheConfigurationTest {
+
+    private static final String DEFAULT_SPEC = "maximumSize=2,expireAfterWrite=1h,recordStats";
+
+    @Test
+    @DisplayName("Should serve the previous players value while a refresh loads the next one")
+    void playersCache_AfterRefreshInterval_ShouldServeOldValueAndReloadInBackground() throws InterruptedException {
+        AtomicInteger generation = new AtomicInteger();
+        List<Runnable> pendingRefreshes = new ArrayList<>();
+        CaffeineCacheManager cacheManager = CacheConfiguration.cacheManager(DEFAULT_SPEC,
+                "maximumSize=1,refreshAfterWrite=PT0.05S,recordStats",
+                key -> "players-" + generation.incrementAndGet(), pendingRefreshes::add);
+        Cache cache = cacheManager.getCache(CacheConfiguration.PLAYERS_CACHE);
+
+        assertEquals("players-1", cache.get(SimpleKey.EMPTY, () -> "players-" + generation.incrementAndGet()));
+        Thread.sleep(100);
+
+        assertEquals("players-1", cache.get(SimpleKey.EMPTY).get());
+        assertEquals(1, generation.get());
+        assertFalse(pendingRefreshes.isEmpty());
+        new ArrayList<>(pendingRefreshes).forEach(Runnable::run);
+
+        assertEquals("players-2", cache.get(SimpleKey.EMPTY).get());
+        assertEquals(2, generation.get());
+    }
+
+    @Test
+    @DisplayName("Should record hit, miss and load statistics")
+    void playersCache_ShouldRecordStatistics() {
+        CaffeineCacheManager cacheManager = CacheConfiguration.cacheManager(DEFAULT_SPEC,
+                "maximumSize=1,refreshAfterWrite=1h,recordStats", key -> "players", Runnable::run);
+        Cache cache = cacheManager.getCache(CacheConfiguration.PLAYERS_CACHE);
+
+        cache.get(SimpleKey.EMPTY, () -> "players");
+        cache.get(SimpleKey.EMPTY, () -> "players");
+
+        CacheStats stats = ((CaffeineCache) cache).getNativeCache().stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.loadSuccessCount());
+    }
+
+    @Test
+    @DisplayName("Should bound caches created on demand with the default spec")
+    void defaultSpec_ShouldBoundOtherCaches() {
+        CaffeineCacheManager cacheManager = CacheConfiguration.cacheManager(DEFAULT_SPEC,
+                "maximumSize=1,recordStats", key -> "players", Runnable::run);
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache("otherCache");
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "value-" + i);
+        }
+        cache.getNativeCache().cleanUp();
+
+        assertTrue(cache.getNativeCache().estimatedSize() <= 2);
+        assertTrue(cache.getNativeCache().policy().isRecordingStats());
+    }
+}
@@ -0,0 +1,148 @@
+package com.karolbystrek.tennispredictor.config;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.service.PredictionClient;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prediction Client Configuration Tests")
+public class PredictionClientConfigurationTest {
+
+    private static final String PREDICTION_JSON = "{\"player1Name\":\"A\",\"player2Name\":\"B\",\"player1WinProbability\":0.5,"
+            + "\"player2WinProbability\":0.5,\"winnerName\":\"A\",\"winnerId\":1,\"confidence\":0.0}";
+
+    private final PredictionClientConfiguration configuration = new PredictionClientConfiguration();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockWebServer mockWebServer;
+    private ConnectionProvider connectionProvider;
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(meterRegistry);
+        mockWebServer = new MockWebServer();
+        connectionProvider = configuration.predictionConnectionProvider(4, 8, Duration.ofSeconds(1),
+                Duration.ofSeconds(30), Duration.ofMinutes(5), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionProvider.dispose();
+        mockWebServer.shutdown();
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should talk HTTP/2 with prior knowledge to a cleartext upstream when enabled")
+    void predictionClient_shouldUseHttp2WhenEnabled() throws Exception {
+        mockWebServer.setProtocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        mockWebServer.enqueue(predictionResponse());
+        mockWebServer.start();
+
+        PredictionResponse response = client(Duration.ofSeconds(5), true)
+                .predict(new PredictionRequest(1L, 2L, "Hard", "A", 3, "R32"))
+                .block(Duration.ofSeconds(10));
+
+        assertNotNull(response);
+        assertEquals("A", response.getPlayer1Name());
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        assertEquals("/predict", recordedRequest.getPath());
+    }
+
+    @Test
+    @DisplayName("Should publish connection pool metrics under the prediction pool name")
+    void predictionClient_shouldPublishPoolMetrics() throws IOException {
+        mockWebServer.enqueue(predictionResponse());
+        mockWebServer.start();
+
+        client(Duration.ofSeconds(5), false)
+                .predict(new PredictionRequest(1L, 2L, "Hard", "A", 3, "R32"))
+                .block(Duration.ofSeconds(10));
+
+        assertNotNull(meterRegistry.find("reactor.netty.connection.provider.total.connections")
+                .tag("name", PredictionClientConfiguration.POOL_NAME)
+                .gauge());
+        assertNotNull(meterRegistry.find("reactor.netty.connection.provider.pending.connections")
+                .tag("name", PredictionClientConfiguration.POOL_NAME)
+                .gauge());
+    }
+
+    @Test
+    @DisplayName("Should fail with 504 when the upstream does not answer within the response timeout")
+    void predictionClient_shouldMapResponseTimeoutToGatewayTimeout() throws IOException {
+        mockWebServer.enqueue(predictionResponse().setHeadersDelay(2, TimeUnit.SECONDS));
+        mockWebServer.start();
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class, () -> client(Duration.ofMillis(200), false)
+                .predict(new PredictionRequest(1L, 2L, "Hard", "A", 3, "R32"))
+                .block(Duration.ofSeconds(10)));
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT.value(), exception.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should fail with 503 when the upstream cannot be reached")
+    void predictionClient_shouldMapRefusedConnectionToServiceUnavailable() throws IOException {
+        mockWebServer.start();
+        String baseUrl = mockWebServer.url("/").toString();
+        mockWebServer.shutdown();
+
+        PredictionClient predictionClient = new PredictionClient(WebClient.builder().clientConnector(configuration.predictionClientConnector(
+                connectionProvider, baseUrl, Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(5), true, false)),
+                baseUrl, "test-api-key", "/predict", "/predict/batch", Duration.ofSeconds(10));
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class, () -> predictionClient
+                .predict(new PredictionRequest(1L, 2L, "Hard", "A", 3, "R32"))
+                .block(Duration.ofSeconds(10)));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should pick the HTTP/2 mode from every replica and reject replicas with mixed schemes")
+    void replicaScheme_shouldRequireOneSchemeForAllReplicas() {
+        assertEquals("https", PredictionClientConfiguration.replicaScheme("https://a:5000, HTTPS://b:5000/"));
+        assertEquals("http", PredictionClientConfiguration.replicaScheme("http://httpsbox:5000,http://b:5000"));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> PredictionClientConfiguration.replicaScheme("https://a:5000,http://b:5000"));
+        assertTrue(exception.getMessage().contains("https and http"));
+        assertThrows(IllegalStateException.class, () -> configuration.predictionClientConnector(connectionProvider,
+                "https://a:5000,http://b:5000", Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(5), true, true));
+    }
+
+    private PredictionClient client(Duration responseTimeout, boolean http2) {
+        String baseUrl = String.format("http://localhost:%s", mockWebServer.getPort());
+        return new PredictionClient(WebClient.builder().clientConnector(configuration.predictionClientConnector(connectionProvider,
+                baseUrl, Duration.ofSeconds(1), Duration.ofSeconds(5), responseTimeout, true, http2)),
+                baseUrl, "test-api-key", "/predict", "/predict/batch", Duration.ofSeconds(10));
+    }
+
+    private static MockResponse predictionResponse() {
+        return new MockResponse()
+                .setResponseCode(HttpStatus.OK.value())
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(PREDICTION_JSON);
+    }
+}
@@ -0,0 +1,57 @@
+package com.karolbystrek.tennispredictor.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Virtual Thread Pinning Monitor Tests")
+public class VirtualThreadPinningMonitorTest {
+
+    private final Object monitor = new Object();
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @BeforeEach
+    void setUp() {
+        pinningMonitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10), new SimpleMeterRegistry());
+        pinningMonitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pinningMonitor.stop();
+    }
+
+    @Test
+    @DisplayName("Should report a virtual thread that blocks inside a synchronized block")
+    void shouldReportPinnedVirtualThread() throws InterruptedException {
+        Thread pinned = Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                sleep(50);
+            }
+        });
+        pinned.join();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pinningMonitor.getPinnedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(pinningMonitor.isRunning());
+        assertTrue(pinningMonitor.getPinnedCount() > 0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.karolbystrek.tennispredictor.controller;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karolbystrek.tennispredictor.model.BatchPredictionRequest;
+import com.karolbystrek.tennispredictor.model.BatchPredictionResult;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.service.BatchPredictionService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for the {@link BatchPredictionController}.
+ */
+@WebMvcTest(BatchPredictionController.class)
+@DisplayName("Batch Prediction Controller Tests")
+class BatchPredictionControllerTest {
+
+    private static final String BATCH_URL = "/api/predictions/batch";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private BatchPredictionService batchPredictionService;
+
+    @Test
+    @DisplayName("POST /api/predictions/batch - Should return results in request order with error entries")
+    @WithMockUser
+    void predictBatch_WithValidRequests_ShouldReturnOrderedResults() throws Exception {
+        BatchPredictionRequest request = new BatchPredictionRequest(List.of(
+                new PredictionRequest(1L, 2L, "Hard", "G", 5, "R128"),
+                new PredictionRequest(3L, 4L, "Hard", "G", 5, "R128")));
+        PredictionResponse response = new PredictionResponse("One", "Two", 0.6f, 0.4f, "One", 1L, 0.2f);
+        when(batchPredictionService.predictBatchAsync(anyList())).thenReturn(Mono.just(List.of(
+                BatchPredictionResult.success(0, response),
+                BatchPredictionResult.failure(1, 404, "Player not found: 4"))));
+
+        MvcResult asyncResult = mockMvc.perform(post(BATCH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].index", is(0)))
+                .andExpect(jsonPath("$[0].prediction.player1Name", is("One")))
+                .andExpect(jsonPath("$[0].errorStatus").doesNotExist())
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].prediction").doesNotExist())
+                .andExpect(jsonPath("$[1].errorStatus", is(404)))
+                .andExpect(jsonPath("$[1].errorMessage", is("Player not found: 4")));
+
+        verify(batchPredictionService, times(1)).predictBatchAsync(anyList());
+    }
+
+    @Test
+    @DisplayName("POST /api/predictions/batch - Should reject an empty batch")
+    @WithMockUser
+    void predictBatch_WithEmptyBatch_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post(BATCH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requests\":[]}")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.requests", notNullValue()));
+
+        verify(batchPredictionService, never()).predictBatchAsync(anyList());
+    }
+
+    @Test
+    @DisplayName("POST /api/predictions/batch/stream - Should stream an event per result and a final complete event")
+    @WithMockUser
+    void streamBatch_WithValidRequests_ShouldStreamEvents() throws Exception {
+        BatchPredictionRequest request = new BatchPredictionRequest(List.of(
+                new PredictionRequest(1L, 2L, "Hard", "G", 5, "R128"),
+                new PredictionRequest(3L, 4L, "Hard", "G", 5, "R128")));
+        PredictionResponse response = new PredictionResponse("One", "Two", 0.6f, 0.4f, "One", 1L, 0.2f);
+        when(batchPredictionService.predictBatchStream(anyList())).thenReturn(Flux.just(
+                BatchPredictionResult.failure(1, 404, "Player not found: 4"),
+                BatchPredictionResult.success(0, response)));
+
+        MvcResult asyncResult = mockMvc.perform(post(BATCH_URL + "/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content(objectMapper.writeValueAsString(request))
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andReturn().getResponse().getContentAsString();
+
+        int errorEvent = body.indexOf("id:1\nevent:error\n");
+        int predictionEvent = body.indexOf("id:0\nevent:prediction\n");
+        int completeEvent = body.indexOf("event:complete");
+        assertTrue(errorEvent >= 0, body);
+        assertTrue(predictionEvent > errorEvent, body);
+        assertTrue(completeEvent > predictionEvent, body);
+        assertTrue(body.contains("\"player1Name\":\"One\""), body);
+        assertTrue(body.contains("\"errorStatus\":404"), body);
+    }
+}
@@ -0,0 +1,223 @@
+package com.karolbystrek.tennispredictor.controller;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karolbystrek.tennispredictor.model.PlayerChanges;
+import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import com.karolbystrek.tennispredictor.model.PlayerPage;
+import com.karolbystrek.tennispredictor.service.PlayerSearchService;
+import com.karolbystrek.tennispredictor.service.PlayerService;
+import com.karolbystrek.tennispredictor.service.PrecompressedPayload;
+
+/**
+ * Unit tests for the {@link PlayerController}.
+ */
+@WebMvcTest(PlayerController.class)
+@DisplayName("Player Controller Tests")
+class PlayerControllerTest {
+
+    private static final String PLAYERS_URL = "/players";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PlayerService playerService;
+
+    @MockBean
+    private PlayerSearchService playerSearchService;
+
+    @Test
+    @DisplayName("GET /players - Should keep returning every player as an array without paging parameters")
+    @WithMockUser
+    void getPlayers_WithoutParameters_ShouldReturnAllPlayers() throws Exception {
+        PrecompressedPayload payload = payload(List.of(
+                new PlayerDTO(1L, "Rafael", "Nadal", "ESP"),
+                new PlayerDTO(2L, "Novak", "Djokovic", "SRB")));
+        when(playerService.getAllPlayersPayload()).thenReturn(payload);
+
+        mockMvc.perform(get(PLAYERS_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", payload.etag()))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].lastName", is("Djokovic")));
+
+        verify(playerService, never()).getPlayerPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /players - Should send the precompressed gzip bytes when the client accepts gzip")
+    @WithMockUser
+    void getPlayers_AcceptingGzip_ShouldReturnCompressedBytes() throws Exception {
+        PrecompressedPayload payload = payload(List.of(new PlayerDTO(1L, "Rafael", "Nadal", "ESP")));
+        when(playerService.getAllPlayersPayload()).thenReturn(payload);
+
+        byte[] body = mockMvc.perform(get(PLAYERS_URL).header("Accept-Encoding", "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", payload.gzipEtag()))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertArrayEquals(payload.gzip(), body);
+    }
+
+    @Test
+    @DisplayName("GET /players - Should tag the identity and gzip variants differently and revalidate either")
+    @WithMockUser
+    void getPlayers_ShouldUseDistinctETagsPerContentCoding() throws Exception {
+        PrecompressedPayload payload = payload(List.of(new PlayerDTO(1L, "Rafael", "Nadal", "ESP")));
+        when(playerService.getAllPlayersPayload()).thenReturn(payload);
+
+        String identityTag = mockMvc.perform(get(PLAYERS_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getHeader("ETag");
+        String gzipTag = mockMvc.perform(get(PLAYERS_URL).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertEquals(payload.etag(), identityTag);
+        assertEquals(payload.gzipEtag(), gzipTag);
+        assertNotEquals(identityTag, gzipTag);
+        mockMvc.perform(get(PLAYERS_URL).header("Accept-Encoding", "gzip").header("If-None-Match", gzipTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", gzipTag));
+        mockMvc.perform(get(PLAYERS_URL).header("If-None-Match", identityTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", identityTag));
+    }
+
+    @Test
+    @DisplayName("GET /players - Should answer 304 without a body when the ETag matches")
+    @WithMockUser
+    void getPlayers_WithMatchingETag_ShouldReturnNotModified() throws Exception {
+        PrecompressedPayload payload = payload(List.of(new PlayerDTO(1L, "Rafael", "Nadal", "ESP")));
+        when(playerService.getAllPlayersPayload()).thenReturn(payload);
+
+        mockMvc.perform(get(PLAYERS_URL).header("If-None-Match", "\"stale\", W/" + payload.etag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", payload.etag()))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("GET /players?cursor&size - Should return one page with a Link to the next one")
+    @WithMockUser
+    void getPlayers_WithCursorAndSize_ShouldReturnPage() throws Exception {
+        when(playerService.getPlayerPage(10L, 2)).thenReturn(new PlayerPage(List.of(
+                new PlayerDTO(11L, "Rafael", "Nadal", "ESP"),
+                new PlayerDTO(12L, "Novak", "Djokovic", "SRB")), 12L));
+
+        mockMvc.perform(get(PLAYERS_URL).param("cursor", "10").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", "</players?cursor=12&size=2>; rel=\"next\""))
+                .andExpect(jsonPath("$.players", hasSize(2)))
+                .andExpect(jsonPath("$.players[0].playerId", is(11)))
+                .andExpect(jsonPath("$.nextCursor", is(12)));
+
+        verify(playerService, never()).getAllPlayers();
+    }
+
+    @Test
+    @DisplayName("GET /players?size - Should omit the cursor and Link header on the last page")
+    @WithMockUser
+    void getPlayers_OnLastPage_ShouldOmitNextCursor() throws Exception {
+        when(playerService.getPlayerPage(null, 5)).thenReturn(new PlayerPage(List.of(
+                new PlayerDTO(1L, "Rafael", "Nadal", "ESP")), null));
+
+        mockMvc.perform(get(PLAYERS_URL).param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"))
+                .andExpect(jsonPath("$.players", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /players?size - Should reject page sizes outside the allowed range")
+    @WithMockUser
+    void getPlayers_WithInvalidSize_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get(PLAYERS_URL).param("size", "0"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(playerService);
+    }
+
+    @Test
+    @DisplayName("GET /players/search - Should return the matching players from the search index")
+    @WithMockUser
+    void searchPlayers_ShouldReturnMatches() throws Exception {
+        when(playerSearchService.search("nad", 5)).thenReturn(List.of(new PlayerDTO(1L, "Rafael", "Nadal", "ESP")));
+
+        mockMvc.perform(get(PLAYERS_URL + "/search").param("q", "nad").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].lastName", is("Nadal")));
+
+        verifyNoInteractions(playerService);
+    }
+
+    @Test
+    @DisplayName("GET /players/search - Should treat a missing query as blank")
+    @WithMockUser
+    void searchPlayers_WithoutQuery_ShouldSearchBlank() throws Exception {
+        when(playerSearchService.search("", 10)).thenReturn(List.of());
+
+        mockMvc.perform(get(PLAYERS_URL + "/search"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("GET /players/changes - Should return the changes after the given version")
+    @WithMockUser
+    void getPlayerChanges_ShouldReturnChangesSinceVersion() throws Exception {
+        when(playerService.getChangesSince(41L, 1000)).thenReturn(new PlayerChanges(45L,
+                List.of(new PlayerDTO(1L, "Rafael", "Nadal", "ESP")), List.of(7L), false));
+
+        mockMvc.perform(get(PLAYERS_URL + "/changes").param("since", "41"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(45)))
+                .andExpect(jsonPath("$.upserts[0].lastName", is("Nadal")))
+                .andExpect(jsonPath("$.deletedPlayerIds[0]", is(7)))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+
+    @Test
+    @DisplayName("GET /players/changes - Should cap the number of changes per response")
+    @WithMockUser
+    void getPlayerChanges_WithLargeLimit_ShouldCapLimit() throws Exception {
+        when(playerService.getChangesSince(0L, 1000)).thenReturn(new PlayerChanges(0L, List.of(), List.of(), false));
+
+        mockMvc.perform(get(PLAYERS_URL + "/changes").param("limit", "50000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(0)));
+
+        verify(playerService).getChangesSince(0L, 1000);
+    }
+
+    private static PrecompressedPayload payload(List<PlayerDTO> players) throws Exception {
+        return PrecompressedPayload.of(new ObjectMapper().writeValueAsBytes(players));
+    }
+}
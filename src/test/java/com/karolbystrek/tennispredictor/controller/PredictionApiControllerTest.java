@@ -0,0 +1,129 @@
+package com.karolbystrek.tennispredictor.controller;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.service.PredictionAdmission;
+import com.karolbystrek.tennispredictor.service.PredictionService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for the {@link PredictionApiController}.
+ */
+@WebMvcTest(PredictionApiController.class)
+@Import(PredictionAdmission.class)
+@DisplayName("Prediction API Controller Tests")
+class PredictionApiControllerTest {
+
+    private static final String PREDICTIONS_URL = "/api/predictions";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private PredictionService predictionService;
+
+    @Test
+    @DisplayName("POST /api/predictions - Should complete asynchronously with the prediction")
+    @WithMockUser
+    void predict_WithValidRequest_ShouldReturnPredictionAsynchronously() throws Exception {
+        PredictionRequest request = new PredictionRequest(1L, 2L, "Hard", "G", 5, "F");
+        PredictionResponse response = new PredictionResponse("One", "Two", 0.6f, 0.4f, "One", 1L, 0.2f);
+        when(predictionService.predictAsync(any(PredictionRequest.class))).thenReturn(Mono.just(response));
+
+        MvcResult asyncResult = mockMvc.perform(post(PREDICTIONS_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.player1Name", is("One")))
+                .andExpect(jsonPath("$.winnerId", is(1)));
+
+        verify(predictionService).predictAsync(any(PredictionRequest.class));
+    }
+
+    @Test
+    @DisplayName("POST /api/predictions - Should map upstream errors to their status code")
+    @WithMockUser
+    void predict_WhenServiceFails_ShouldReturnMappedStatus() throws Exception {
+        PredictionRequest request = new PredictionRequest(1L, 2L, "Hard", "G", 5, "F");
+        when(predictionService.predictAsync(any(PredictionRequest.class))).thenReturn(Mono.error(
+                new PredictionServiceException("Prediction service temporarily unavailable", 503)));
+
+        MvcResult asyncResult = mockMvc.perform(post(PREDICTIONS_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message", is("Prediction service temporarily unavailable")));
+    }
+
+    @Test
+    @DisplayName("POST /api/predictions - Should send Retry-After when the upstream call was shed")
+    @WithMockUser
+    void predict_WhenCallIsShed_ShouldReturnRetryAfter() throws Exception {
+        PredictionRequest request = new PredictionRequest(1L, 2L, "Hard", "G", 5, "F");
+        when(predictionService.predictAsync(any(PredictionRequest.class))).thenReturn(Mono.error(
+                new PredictionServiceException("Prediction service circuit is open", 503, Duration.ofMillis(4200))));
+
+        MvcResult asyncResult = mockMvc.perform(post(PREDICTIONS_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .with(csrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.message", is("Prediction service circuit is open")));
+    }
+
+    @Test
+    @DisplayName("POST /api/predictions - Should reject invalid requests without calling the service")
+    @WithMockUser
+    void predict_WithInvalidRequest_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post(PREDICTIONS_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"player2Id\":2,\"surface\":\"Hard\",\"tourneyLevel\":\"G\",\"bestOf\":5,\"round\":\"F\"}")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.player1Id", notNullValue()));
+
+        verify(predictionService, never()).predictAsync(any(PredictionRequest.class));
+    }
+}
@@ -28,13 +28,16 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import com.karolbystrek.tennispredictor.model.PredictionRequest;
 import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.service.PredictionAdmission;
 import com.karolbystrek.tennispredictor.service.PredictionService;
 
+import reactor.core.publisher.Mono;
+
 /**
  * Unit tests for the {@link PredictionController}.
  */
 @WebMvcTest(PredictionController.class)
-@Import(PredictionControllerTest.TestSecurityConfig.class)
+@Import({PredictionControllerTest.TestSecurityConfig.class, PredictionAdmission.class})
 class PredictionControllerTest {
 
     @TestConfiguration
@@ -132,7 +135,7 @@ class PredictionControllerTest {
     @DisplayName("POST /prediction - Should predict successfully and redirect to /prediction/result")
     @WithAnonymousUser
     void makePrediction_WithValidData_ShouldPredictAndRedirectToPredictionResult() throws Exception {
-        when(predictionService.predict(any(PredictionRequest.class))).thenReturn(validResponse);
+        when(predictionService.predictAsync(any(PredictionRequest.class))).thenReturn(Mono.just(validResponse));
 
         ArgumentCaptor<PredictionRequest> requestCaptor = ArgumentCaptor.forClass(PredictionRequest.class);
 
@@ -156,7 +159,7 @@ class PredictionControllerTest {
                 .andExpect(flash().attribute(PREDICTION_RESPONSE_ATTRIBUTE, hasProperty("winnerId", is(validResponse.getWinnerId()))))
                 .andExpect(flash().attribute(PREDICTION_RESPONSE_ATTRIBUTE, hasProperty("confidence", is(validResponse.getConfidence()))));
 
-        verify(predictionService, times(1)).predict(requestCaptor.capture());
+        verify(predictionService, times(1)).predictAsync(requestCaptor.capture());
 
         PredictionRequest capturedRequest = requestCaptor.getValue();
         assertEquals(TEST_PLAYER1_ID, capturedRequest.getPlayer1Id());
@@ -183,7 +186,7 @@ class PredictionControllerTest {
                 .andExpect(flash().attribute(PREDICTION_REQUEST_ATTRIBUTE, hasProperty("player2Id", is(TEST_PLAYER2_ID))))
                 .andExpect(flash().attribute(PREDICTION_REQUEST_ATTRIBUTE, hasProperty("surface", is(TEST_SURFACE))));
 
-        verify(predictionService, never()).predict(any(PredictionRequest.class));
+        verify(predictionService, never()).predictAsync(any(PredictionRequest.class));
     }
 
     @Test
@@ -191,7 +194,7 @@ class PredictionControllerTest {
     @WithAnonymousUser
     void makePrediction_WhenServiceThrowsError_ShouldRedirectToPredictionWithError() throws Exception {
         String errorMessage = "External prediction API unavailable";
-        when(predictionService.predict(any(PredictionRequest.class))).thenThrow(new RuntimeException(errorMessage));
+        when(predictionService.predictAsync(any(PredictionRequest.class))).thenReturn(Mono.error(new RuntimeException(errorMessage)));
 
         mockMvc.perform(post(PREDICTION_URL)
                         .contentType(MediaType.APPLICATION_FORM_URLENCODED)
@@ -211,6 +214,6 @@ class PredictionControllerTest {
                 .andExpect(flash().attribute(PREDICTION_REQUEST_ATTRIBUTE, hasProperty("player2Id", is(TEST_PLAYER2_ID))))
                 .andExpect(flash().attribute(PREDICTION_REQUEST_ATTRIBUTE, hasProperty("surface", is(TEST_SURFACE))));
 
-        verify(predictionService, times(1)).predict(any(PredictionRequest.class));
+        verify(predictionService, times(1)).predictAsync(any(PredictionRequest.class));
     }
 }
@@ -0,0 +1,136 @@
+package com.karolbystrek.tennispredictor.controller;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.BatchPredictionRequest;
+import com.karolbystrek.tennispredictor.model.BatchPredictionResult;
+import com.karolbystrek.tennispredictor.model.PredictionJob;
+import com.karolbystrek.tennispredictor.model.PredictionJobStatus;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.service.PredictionJobService;
+
+/**
+ * Unit tests for the {@link PredictionJobController}.
+ */
+@WebMvcTest(PredictionJobController.class)
+@DisplayName("Prediction Job Controller Tests")
+class PredictionJobControllerTest {
+
+    private static final String JOBS_URL = "/api/prediction-jobs";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private PredictionJobService predictionJobService;
+
+    @Test
+    @DisplayName("POST /api/prediction-jobs - Should accept the job and point to its status")
+    @WithMockUser
+    void submit_WithValidRequests_ShouldReturnAccepted() throws Exception {
+        PredictionJob job = new PredictionJob("job-1", PredictionJobStatus.QUEUED, 2, 0,
+                Instant.parse("2024-01-01T00:00:00Z"), null, null, null, null);
+        when(predictionJobService.submit(anyList())).thenReturn(job);
+
+        mockMvc.perform(post(JOBS_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest()))
+                        .with(csrf()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/prediction-jobs/job-1"))
+                .andExpect(jsonPath("$.id", is("job-1")))
+                .andExpect(jsonPath("$.status", is("QUEUED")))
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.results").doesNotExist());
+
+        verify(predictionJobService, times(1)).submit(anyList());
+    }
+
+    @Test
+    @DisplayName("POST /api/prediction-jobs - Should answer 429 with Retry-After when the queue is full")
+    @WithMockUser
+    void submit_WhenQueueIsFull_ShouldReturnTooManyRequests() throws Exception {
+        when(predictionJobService.submit(anyList())).thenThrow(
+                new PredictionServiceException("Prediction job queue is full, try again later", 429, Duration.ofSeconds(5)));
+
+        mockMvc.perform(post(JOBS_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest()))
+                        .with(csrf()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+
+    @Test
+    @DisplayName("POST /api/prediction-jobs - Should reject an empty job")
+    @WithMockUser
+    void submit_WithEmptyRequests_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post(JOBS_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchPredictionRequest(List.of())))
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(predictionJobService);
+    }
+
+    @Test
+    @DisplayName("GET /api/prediction-jobs/{id} - Should return a completed job with its results")
+    @WithMockUser
+    void get_WhenCompleted_ShouldReturnResults() throws Exception {
+        PredictionResponse response = new PredictionResponse("One", "Two", 0.6f, 0.4f, "One", 1L, 0.2f);
+        PredictionJob job = new PredictionJob("job-1", PredictionJobStatus.COMPLETED, 1, 1,
+                Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-01-01T00:00:01Z"),
+                Instant.parse("2024-01-01T00:00:02Z"), List.of(BatchPredictionResult.success(0, response)), null);
+        when(predictionJobService.find("job-1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get(JOBS_URL + "/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.completed", is(1)))
+                .andExpect(jsonPath("$.results", hasSize(1)))
+                .andExpect(jsonPath("$.results[0].prediction.player1Name", is("One")));
+    }
+
+    @Test
+    @DisplayName("GET /api/prediction-jobs/{id} - Should return 404 for an unknown job")
+    @WithMockUser
+    void get_WhenUnknown_ShouldReturnNotFound() throws Exception {
+        when(predictionJobService.find("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get(JOBS_URL + "/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static BatchPredictionRequest batchRequest() {
+        return new BatchPredictionRequest(List.of(
+                new PredictionRequest(1L, 2L, "Hard", "G", 5, "R128"),
+                new PredictionRequest(3L, 4L, "Hard", "G", 5, "R128")));
+    }
+}
@@ -0,0 +1,186 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.BatchPredictionResult;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Batch Prediction Service Tests")
+public class BatchPredictionServiceTest {
+
+    private static final long UPSTREAM_DELAY_MS = 300;
+    private static final long MISSING_PLAYER_ID = 999L;
+    private static final long SLOW_PLAYER_ID = 998L;
+    private static final long SLOW_UPSTREAM_DELAY_MS = 1500;
+
+    private MockWebServer mockWebServer;
+    private PredictionAdmission predictionAdmission;
+    private BatchPredictionService batchPredictionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String body = request.getBody().readUtf8();
+                if (body.contains("\"player2_id\":" + MISSING_PLAYER_ID)) {
+                    return new MockResponse()
+                            .setResponseCode(HttpStatus.NOT_FOUND.value())
+                            .setBody("{\"error\":\"Player not found\"}");
+                }
+                long delayMs = body.contains("\"player2_id\":" + SLOW_PLAYER_ID) ? SLOW_UPSTREAM_DELAY_MS : UPSTREAM_DELAY_MS;
+                return new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"player1Name\":\"A\",\"player2Name\":\"B\",\"player1WinProbability\":0.55,"
+                                + "\"player2WinProbability\":0.45,\"winnerName\":\"A\",\"winnerId\":1,\"confidence\":0.1}")
+                        .setHeadersDelay(delayMs, TimeUnit.MILLISECONDS);
+            }
+        });
+        mockWebServer.start();
+
+        String baseUrl = String.format("http://localhost:%s", mockWebServer.getPort());
+        PredictionService predictionService = PredictionServiceFixtures.predictionService(baseUrl).build();
+        predictionAdmission = new PredictionAdmission(64, 64, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        batchPredictionService = new BatchPredictionService(predictionService, predictionAdmission, 8, 16);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should return results in request order with an error entry for each failed item")
+    void predictBatch_shouldReturnOrderedResultsWithErrors() {
+        List<PredictionRequest> requests = List.of(
+                new PredictionRequest(1L, 2L, "Hard", "G", 5, "R128"),
+                new PredictionRequest(3L, MISSING_PLAYER_ID, "Hard", "G", 5, "R128"),
+                new PredictionRequest(5L, 6L, "Hard", "G", 5, "R128"));
+
+        List<BatchPredictionResult> results = batchPredictionService.predictBatchAsync(requests).block();
+
+        assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertNotNull(results.get(0).getPrediction());
+        assertNull(results.get(1).getPrediction());
+        assertEquals(HttpStatus.NOT_FOUND.value(), results.get(1).getErrorStatus());
+        assertTrue(results.get(1).getErrorMessage().contains("Player not found"));
+        assertNotNull(results.get(2).getPrediction());
+    }
+
+    @Test
+    @DisplayName("Should fan out concurrently so a batch takes about as long as its slowest call")
+    void predictBatch_shouldFanOutConcurrently() {
+        List<PredictionRequest> requests = new ArrayList<>();
+        for (long i = 0; i < 8; i++) {
+            requests.add(new PredictionRequest(100L + i, 200L + i, "Clay", "M", 3, "R32"));
+        }
+
+        long start = System.nanoTime();
+        List<BatchPredictionResult> results = batchPredictionService.predictBatchAsync(requests).block();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(8, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getPrediction() != null));
+        assertEquals(8, mockWebServer.getRequestCount());
+        assertTrue(elapsedMs < UPSTREAM_DELAY_MS * 4, "Batch took " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Should stream results in completion order so a slow prediction does not hold back the others")
+    void predictBatchStream_shouldEmitInCompletionOrder() {
+        List<PredictionRequest> requests = List.of(
+                new PredictionRequest(1L, SLOW_PLAYER_ID, "Grass", "G", 5, "F"),
+                new PredictionRequest(3L, 4L, "Grass", "G", 5, "F"),
+                new PredictionRequest(5L, MISSING_PLAYER_ID, "Grass", "G", 5, "F"));
+
+        List<BatchPredictionResult> results = batchPredictionService.predictBatchStream(requests).collectList().block();
+
+        assertEquals(3, results.size());
+        assertEquals(0, results.get(2).getIndex());
+        assertNotNull(results.get(2).getPrediction());
+        assertTrue(results.stream().anyMatch(result -> result.getIndex() == 2
+                && result.getErrorStatus() == HttpStatus.NOT_FOUND.value()));
+    }
+
+    @Test
+    @DisplayName("Should cancel pending predictions and free their admission slots when the stream is cancelled")
+    void predictBatchStream_shouldReleasePendingPredictionsOnCancel() throws InterruptedException {
+        List<PredictionRequest> requests = List.of(
+                new PredictionRequest(1L, SLOW_PLAYER_ID, "Clay", "A", 3, "SF"),
+                new PredictionRequest(2L, SLOW_PLAYER_ID, "Clay", "A", 3, "SF"));
+
+        Disposable subscription = batchPredictionService.predictBatchStream(requests).subscribe();
+        mockWebServer.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals(2, predictionAdmission.getInFlightCount());
+
+        subscription.dispose();
+
+        assertEquals(0, predictionAdmission.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should let a job entry wait out a full admission queue where a batch entry records a rejection")
+    void predictJobEntry_shouldWaitForAdmissionInsteadOfFailing() {
+        PredictionAdmission fullAdmission = new PredictionAdmission(1, 0, Duration.ofSeconds(5), Duration.ofMillis(20),
+                Schedulers.parallel());
+        BatchPredictionService service = new BatchPredictionService(
+                PredictionServiceFixtures.predictionService(String.format("http://localhost:%s", mockWebServer.getPort())).build(),
+                fullAdmission, 8, 16);
+        Disposable occupant = fullAdmission.admit(PredictionPriority.INTERACTIVE, Mono::never).subscribe();
+        PredictionRequest request = new PredictionRequest(1L, 2L, "Hard", "G", 5, "R128");
+
+        BatchPredictionResult batchEntry = service.predictOne(0, request).block(Duration.ofSeconds(5));
+        Mono<BatchPredictionResult> jobEntry = service.predictJobEntry(1, request).cache();
+        jobEntry.subscribe();
+        Schedulers.parallel().schedule(occupant::dispose, 100, TimeUnit.MILLISECONDS);
+        BatchPredictionResult jobResult = jobEntry.block(Duration.ofSeconds(5));
+
+        assertNotNull(batchEntry);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), batchEntry.getErrorStatus().intValue());
+        assertNotNull(jobResult);
+        assertNotNull(jobResult.getPrediction());
+        assertTrue(fullAdmission.getQueueFullRejectedCount() >= 2);
+    }
+
+    @Test
+    @DisplayName("Should reject batches larger than the configured limit")
+    void predictBatch_shouldRejectOversizedBatch() {
+        List<PredictionRequest> requests = new ArrayList<>();
+        for (long i = 0; i < 17; i++) {
+            requests.add(new PredictionRequest(1L, 2L + i, "Hard", "A", 3, "R32"));
+        }
+
+        PredictionServiceException exception = assertThrows(
+                PredictionServiceException.class,
+                () -> batchPredictionService.predictBatchAsync(requests));
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), exception.getStatusCode());
+        assertEquals(0, mockWebServer.getRequestCount());
+    }
+}
@@ -0,0 +1,122 @@
+package com.karolbystrek.tennispredictor.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Circuit Breaker Tests")
+public class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+
+    private AtomicLong clock;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        circuitBreaker = new CircuitBreaker(3, OPEN_DURATION, 2, clock::get);
+    }
+
+    @Test
+    @DisplayName("Should open after consecutive failures and reject calls until the open duration elapses")
+    void shouldOpenAfterConsecutiveFailures() {
+        fail(2);
+        succeed(1);
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquirePermission());
+        assertEquals(1, circuitBreaker.getRejectedCount());
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertEquals(Duration.ofSeconds(6), circuitBreaker.getRemainingOpenTime());
+    }
+
+    @Test
+    @DisplayName("Should let a limited number of probes through when half-open and close once they succeed")
+    void shouldCloseAfterSuccessfulProbes() {
+        fail(3);
+        clock.addAndGet(OPEN_DURATION.toNanos());
+
+        long first = acquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        long second = acquire();
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onSuccess(first);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onSuccess(second);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        acquire();
+    }
+
+    @Test
+    @DisplayName("Should reopen when a half-open probe fails")
+    void shouldReopenWhenProbeFails() {
+        fail(3);
+        clock.addAndGet(OPEN_DURATION.toNanos());
+
+        circuitBreaker.onFailure(acquire());
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(OPEN_DURATION, circuitBreaker.getRemainingOpenTime());
+    }
+
+    @Test
+    @DisplayName("Should hand back a released half-open permit to the next caller")
+    void shouldReuseReleasedProbePermit() {
+        fail(3);
+        clock.addAndGet(OPEN_DURATION.toNanos());
+        acquire();
+        long released = acquire();
+
+        circuitBreaker.releasePermission(released);
+
+        acquire();
+    }
+
+    @Test
+    @DisplayName("Should ignore results of calls admitted before the circuit changed state")
+    void shouldIgnoreResultsFromEarlierGenerations() {
+        long slowCall = acquire();
+        fail(3);
+        clock.addAndGet(OPEN_DURATION.toNanos());
+        long probe = acquire();
+
+        circuitBreaker.onFailure(slowCall);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onSuccess(slowCall);
+        circuitBreaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess(acquire());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private long acquire() {
+        long permission = circuitBreaker.tryAcquirePermission();
+        assertNotEquals(CircuitBreaker.REJECTED, permission);
+        return permission;
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            circuitBreaker.onFailure(acquire());
+        }
+    }
+
+    private void succeed(int times) {
+        for (int i = 0; i < times; i++) {
+            circuitBreaker.onSuccess(acquire());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.Player;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.model.PredictionSource;
+import com.karolbystrek.tennispredictor.repository.PlayerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Elo Prediction Engine Tests")
+public class EloPredictionEngineTest {
+
+    @Mock
+    private PlayerRepository playerRepository;
+
+    private EloPredictionEngine eloPredictionEngine;
+
+    @BeforeEach
+    void setUp() {
+        eloPredictionEngine = new EloPredictionEngine(playerRepository, true);
+    }
+
+    @Test
+    @DisplayName("Should give equal ratings an even chance and favour the higher rating")
+    void winProbability_shouldFollowEloExpectation() {
+        loadPlayers(player(1L, 2000, 2000, null), player(2L, 2000, 2000, null), player(3L, 2200, 2200, null));
+
+        assertEquals(0.5, eloPredictionEngine.winProbability(1L, 2L, "Hard", 3), 1e-9);
+        assertEquals(1.0 / (1.0 + Math.pow(10.0, -0.5)), eloPredictionEngine.winProbability(3L, 1L, "Hard", 3), 1e-9);
+        assertEquals(1.0, eloPredictionEngine.winProbability(3L, 1L, "Hard", 3)
+                + eloPredictionEngine.winProbability(1L, 3L, "Hard", 3), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should blend the surface rating with the overall rating when one is available")
+    void winProbability_shouldUseSurfaceSpecificRatings() {
+        loadPlayers(player(1L, 2000, 2000, 1600), player(2L, 2000, 2000, 2400));
+
+        assertEquals(0.5, eloPredictionEngine.winProbability(1L, 2L, "Hard", 3), 1e-9);
+        assertTrue(eloPredictionEngine.winProbability(1L, 2L, "Clay", 3) < 0.5);
+        assertEquals(0.5, eloPredictionEngine.winProbability(1L, 2L, "Grass", 3), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should make the favourite stronger in best-of-5 and weaker in best-of-1")
+    void winProbability_shouldAdjustForBestOf() {
+        loadPlayers(player(1L, 2100, 2100, null), player(2L, 1900, 1900, null));
+
+        double bestOfOne = eloPredictionEngine.winProbability(1L, 2L, "Hard", 1);
+        double bestOfThree = eloPredictionEngine.winProbability(1L, 2L, "Hard", 3);
+        double bestOfFive = eloPredictionEngine.winProbability(1L, 2L, "Hard", 5);
+
+        assertTrue(bestOfOne < bestOfThree);
+        assertTrue(bestOfThree < bestOfFive);
+        assertEquals(bestOfThree, EloPredictionEngine.matchProbability(bestOfOne, 3), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should mark the response as a fallback prediction")
+    void predict_shouldBuildFallbackResponse() {
+        loadPlayers(player(1L, 1900, null, null), player(2L, 2100, null, null));
+
+        Optional<PredictionResponse> response = eloPredictionEngine.predict(new PredictionRequest(1L, 2L, "Hard", "G", 5, "F"));
+
+        assertTrue(response.isPresent());
+        assertEquals(PredictionSource.ELO_FALLBACK, response.get().getSource());
+        assertEquals("First1 Last1", response.get().getPlayer1Name());
+        assertEquals(2L, response.get().getWinnerId());
+        assertEquals("First2 Last2", response.get().getWinnerName());
+        assertEquals(1.0f, response.get().getPlayer1WinProbability() + response.get().getPlayer2WinProbability(), 1e-6f);
+    }
+
+    @Test
+    @DisplayName("Should not predict for unknown players or when disabled")
+    void predict_shouldReturnEmpty_whenPlayerUnknownOrDisabled() {
+        loadPlayers(player(1L, 2000, null, null));
+
+        assertTrue(Double.isNaN(eloPredictionEngine.winProbability(1L, 99L, "Hard", 3)));
+        assertTrue(eloPredictionEngine.predict(new PredictionRequest(1L, 99L, "Hard", "G", 3, "F")).isEmpty());
+
+        EloPredictionEngine disabled = new EloPredictionEngine(playerRepository, false);
+        disabled.refreshRatings();
+        assertTrue(disabled.predict(new PredictionRequest(1L, 2L, "Hard", "G", 3, "F")).isEmpty());
+        verify(playerRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should score matchups without allocating")
+    void winProbability_shouldNotAllocate() {
+        loadPlayers(player(100_001L, 2000, 2050, 1950), player(100_002L, 2100, 2000, 2150));
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        double checksum = 0;
+        for (int i = 0; i < 20_000; i++) {
+            checksum += eloPredictionEngine.winProbability(100_001L, 100_002L, "Clay", 5);
+        }
+
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            checksum += eloPredictionEngine.winProbability(100_001L, 100_002L, "Clay", 5);
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertTrue(checksum > 0);
+        assertTrue(allocated < 100_000, "Allocated " + allocated + " bytes for 100k predictions");
+    }
+
+    private void loadPlayers(Player... players) {
+        when(playerRepository.findAll()).thenReturn(List.of(players));
+        eloPredictionEngine.refreshRatings();
+    }
+
+    private static Player player(long playerId, Integer elo, Integer eloHard, Integer eloClay) {
+        Player player = new Player();
+        player.setPlayerId(playerId);
+        player.setFirstName("First" + playerId);
+        player.setLastName("Last" + playerId);
+        player.setElo(elo);
+        player.setEloHard(eloHard);
+        player.setEloClay(eloClay);
+        return player;
+    }
+}
@@ -0,0 +1,129 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares how many concurrent users the blocking {@link PredictionService#predict} path can serve with a
+ * bounded platform thread pool (as Tomcat uses by default) and with one virtual thread per request, which is
+ * what {@code spring.threads.virtual.enabled=true} switches the web tier to.
+ */
+@Tag("benchmark")
+@DisplayName("Execution Mode Benchmark Tests")
+public class ExecutionModeBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionModeBenchmarkTest.class);
+    private static final long UPSTREAM_LATENCY_MS = 200;
+    private static final int PLATFORM_THREADS = 25;
+    private static final int CONCURRENT_USERS = 200;
+
+    private final AtomicLong nextPlayerId = new AtomicLong(1);
+    private MockWebServer mockWebServer;
+    private ConnectionProvider connectionProvider;
+    private PredictionService predictionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"player1Name\":\"A\",\"player2Name\":\"B\",\"player1WinProbability\":0.5,"
+                                + "\"player2WinProbability\":0.5,\"winnerName\":\"A\",\"winnerId\":1,\"confidence\":0.0}")
+                        .setHeadersDelay(UPSTREAM_LATENCY_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+        mockWebServer.start();
+
+        connectionProvider = ConnectionProvider.builder("execution-mode-benchmark")
+                .maxConnections(CONCURRENT_USERS)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient.Builder webClientBuilder = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)));
+        String baseUrl = String.format("http://localhost:%s", mockWebServer.getPort());
+        predictionService = PredictionServiceFixtures.predictionService(baseUrl)
+                .webClientBuilder(webClientBuilder)
+                .withoutCache()
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionProvider.dispose();
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Virtual threads should serve more concurrent users than a bounded platform pool")
+    void virtualThreads_shouldServeMoreConcurrentUsers() throws Exception {
+        try (ExecutorService warmUp = Executors.newVirtualThreadPerTaskExecutor()) {
+            runUsers(warmUp, CONCURRENT_USERS);
+        }
+
+        long platformMs;
+        try (ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS)) {
+            platformMs = runUsers(platform, CONCURRENT_USERS);
+        }
+        long virtualMs;
+        try (ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            virtualMs = runUsers(virtual, CONCURRENT_USERS);
+        }
+
+        log.info("{} concurrent users, {} ms upstream latency: platform pool of {} threads {} ms ({} users/s), virtual threads {} ms ({} users/s)",
+                CONCURRENT_USERS, UPSTREAM_LATENCY_MS, PLATFORM_THREADS,
+                platformMs, CONCURRENT_USERS * 1000L / platformMs,
+                virtualMs, CONCURRENT_USERS * 1000L / virtualMs);
+
+        assertTrue(platformMs >= UPSTREAM_LATENCY_MS * CONCURRENT_USERS / PLATFORM_THREADS,
+                "Platform pool finished in " + platformMs + " ms");
+        assertTrue(virtualMs < platformMs,
+                "Virtual threads finished in " + virtualMs + " ms, platform pool in " + platformMs + " ms");
+    }
+
+    private long runUsers(ExecutorService executor, int users) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            long player1Id = nextPlayerId.getAndIncrement();
+            long player2Id = nextPlayerId.getAndIncrement();
+            PredictionRequest request = new PredictionRequest(player1Id, player2Id, "Hard", "A", 3, "R32");
+            futures.add(executor.submit(() -> assertNotNull(predictionService.predictAsync(request).block())));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,78 @@
+package com.karolbystrek.tennispredictor.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Micro Batcher Tests")
+public class MicroBatcherTest {
+
+    private final List<List<Integer>> receivedBatches = new CopyOnWriteArrayList<>();
+    private MicroBatcher<Integer, String> microBatcher;
+
+    @AfterEach
+    void tearDown() {
+        microBatcher.dispose();
+    }
+
+    @Test
+    @DisplayName("Should group concurrent submissions into size-capped batches and fan results back in order")
+    void submit_shouldBatchConcurrentItems() {
+        microBatcher = new MicroBatcher<>(10, Duration.ofMillis(50), 4, batch -> {
+            receivedBatches.add(batch);
+            return Mono.just(batch.stream().map(item -> "result-" + item).toList());
+        });
+
+        List<String> results = Flux.range(0, 25)
+                .flatMapSequential(microBatcher::submit, 25)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertNotNull(results);
+        assertEquals(25, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("result-" + i, results.get(i));
+        }
+        assertTrue(receivedBatches.size() < 25);
+        assertTrue(receivedBatches.stream().allMatch(batch -> batch.size() <= 10));
+        assertEquals(25, microBatcher.itemCount());
+        assertEquals(receivedBatches.size(), microBatcher.batchCount());
+    }
+
+    @Test
+    @DisplayName("Should send a partial batch once the window elapses")
+    void submit_shouldFlushAfterWindow() {
+        microBatcher = new MicroBatcher<>(100, Duration.ofMillis(20), 4, batch -> {
+            receivedBatches.add(batch);
+            return Mono.just(batch.stream().map(String::valueOf).toList());
+        });
+
+        assertEquals("7", microBatcher.submit(7).block(Duration.ofSeconds(2)));
+        assertEquals(List.of(List.of(7)), receivedBatches);
+    }
+
+    @Test
+    @DisplayName("Should fail every caller in a batch when the batch call fails or returns the wrong number of results")
+    void submit_shouldPropagateBatchErrors() {
+        microBatcher = new MicroBatcher<>(2, Duration.ofMillis(50), 4, batch -> batch.contains(0)
+                ? Mono.error(new IllegalStateException("upstream down"))
+                : Mono.just(List.of("only one")));
+
+        List<Throwable> errors = Flux.range(0, 4)
+                .flatMap(item -> microBatcher.submit(item).then(Mono.<Throwable>empty()).onErrorResume(Mono::just), 4)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertNotNull(errors);
+        assertEquals(4, errors.size());
+        assertTrue(errors.stream().allMatch(IllegalStateException.class::isInstance));
+    }
+}
@@ -0,0 +1,150 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares upstream throughput with and without micro-batching against a stand-in model server that, like a
+ * single-worker Python service, handles one HTTP request at a time with a fixed per-request overhead.
+ */
+@Tag("benchmark")
+@DisplayName("Micro-Batching Benchmark Tests")
+public class MicroBatchingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MicroBatchingBenchmarkTest.class);
+    private static final long REQUEST_OVERHEAD_MS = 5;
+    private static final int PREDICTIONS = 400;
+    private static final int CONCURRENCY = 64;
+    private static final String PREDICTION_JSON = "{\"player1Name\":\"A\",\"player2Name\":\"B\",\"player1WinProbability\":0.5,"
+            + "\"player2WinProbability\":0.5,\"winnerName\":\"A\",\"winnerId\":1,\"confidence\":0.0}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong nextPlayerId = new AtomicLong(1);
+    private final AtomicInteger singleRequests = new AtomicInteger();
+    private final AtomicInteger batchRequests = new AtomicInteger();
+    private MockWebServer mockWebServer;
+    private ConnectionProvider connectionProvider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public synchronized MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                Thread.sleep(REQUEST_OVERHEAD_MS);
+                MockResponse response = new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+                if ("/predict/batch".equals(request.getPath())) {
+                    batchRequests.incrementAndGet();
+                    int size = readBatchSize(request);
+                    return response.setBody("[" + String.join(",", Collections.nCopies(size, PREDICTION_JSON)) + "]");
+                }
+                singleRequests.incrementAndGet();
+                return response.setBody(PREDICTION_JSON);
+            }
+        });
+        mockWebServer.start();
+        connectionProvider = ConnectionProvider.builder("micro-batching-benchmark")
+                .maxConnections(CONCURRENCY)
+                .pendingAcquireMaxCount(-1)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionProvider.dispose();
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Micro-batching should send far fewer upstream requests and finish sooner than one request per prediction")
+    void microBatching_shouldIncreaseThroughput() {
+        PredictionService unbatched = predictionService(false);
+        PredictionService batched = predictionService(true);
+        try {
+            run(batched, CONCURRENCY);
+            run(unbatched, CONCURRENCY);
+            singleRequests.set(0);
+            batchRequests.set(0);
+
+            long unbatchedMs = run(unbatched, PREDICTIONS);
+            long batchedMs = run(batched, PREDICTIONS);
+
+            log.info("{} predictions at concurrency {}: unbatched {} requests in {} ms ({} predictions/s), batched {} requests in {} ms ({} predictions/s)",
+                    PREDICTIONS, CONCURRENCY,
+                    singleRequests.get(), unbatchedMs, PREDICTIONS * 1000L / Math.max(1, unbatchedMs),
+                    batchRequests.get(), batchedMs, PREDICTIONS * 1000L / Math.max(1, batchedMs));
+
+            assertEquals(PREDICTIONS, singleRequests.get());
+            assertTrue(batchRequests.get() <= PREDICTIONS / 4, "Sent " + batchRequests.get() + " batch requests");
+            assertEquals(PREDICTIONS + CONCURRENCY, batched.getUpstreamBatchedPredictionCount());
+            assertTrue(batchedMs < unbatchedMs, "Batched took " + batchedMs + " ms, unbatched " + unbatchedMs + " ms");
+        } finally {
+            batched.shutdown();
+        }
+    }
+
+    private PredictionService predictionService(boolean batching) {
+        WebClient.Builder webClientBuilder = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)));
+        return PredictionServiceFixtures.predictionService(String.format("http://localhost:%s", mockWebServer.getPort()))
+                .webClientBuilder(webClientBuilder)
+                .timeout(Duration.ofSeconds(30))
+                .withoutCache()
+                .batching(batching)
+                .build();
+    }
+
+    private long run(PredictionService predictionService, int predictions) {
+        long start = System.nanoTime();
+        List<?> responses = Flux.range(0, predictions)
+                .map(i -> new PredictionRequest(nextPlayerId.getAndIncrement(), nextPlayerId.getAndIncrement(), "Hard", "A", 3, "R32"))
+                .flatMap(predictionService::predictAsync, CONCURRENCY)
+                .collectList()
+                .block(Duration.ofSeconds(60));
+        assertNotNull(responses);
+        assertEquals(predictions, responses.size());
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private int readBatchSize(RecordedRequest request) {
+        try {
+            return objectMapper.readValue(request.getBody().readUtf8(), new TypeReference<List<Map<String, Object>>>() {
+            }).size();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
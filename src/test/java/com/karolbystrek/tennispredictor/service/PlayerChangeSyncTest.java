@@ -0,0 +1,100 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karolbystrek.tennispredictor.config.CacheConfiguration;
+import com.karolbystrek.tennispredictor.model.PlayerChanges;
+import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import com.karolbystrek.tennispredictor.repository.PlayerRepository;
+import com.karolbystrek.tennispredictor.repository.PlayerTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Player Change Sync Tests")
+public class PlayerChangeSyncTest {
+
+    private final PlayerService playerService = spy(new PlayerService(
+            mock(PlayerRepository.class), mock(PlayerTombstoneRepository.class), new ObjectMapper()));
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfiguration.PLAYERS_CACHE);
+    private PlayerSearchService playerSearchService;
+    private PlayerChangeSync playerChangeSync;
+
+    @BeforeEach
+    void setUp() {
+        playerSearchService = new PlayerSearchService(playerService, 10);
+        playerChangeSync = new PlayerChangeSync(playerService, playerSearchService, cacheManager, 2);
+    }
+
+    @Test
+    @DisplayName("Should not poll for changes before the search index is loaded")
+    void sync_BeforeIndexLoaded_ShouldSkip() {
+        playerChangeSync.sync();
+
+        verify(playerService, never()).getChangesSince(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should page through the changes, apply them to the index and re-serialize the cached list from it")
+    void sync_ShouldApplyChangesAndRefreshCache() {
+        loadIndex(5L, new PlayerDTO(1L, "Rafael", "Nadal", "ESP"), new PlayerDTO(3L, "Rod", "Laver", "AUS"));
+        doReturn(new PlayerChanges(7L, List.of(new PlayerDTO(2L, "Roger", "Federer", "SUI")), List.of(), true))
+                .when(playerService).getChangesSince(5L, 2);
+        doReturn(new PlayerChanges(8L, List.of(), List.of(3L), false))
+                .when(playerService).getChangesSince(7L, 2);
+
+        playerChangeSync.sync();
+
+        assertEquals(8L, playerSearchService.getSyncedVersion());
+        assertEquals(List.of(2L), playerSearchService.search("federer", 10).stream().map(PlayerDTO::getPlayerId).toList());
+        PrecompressedPayload payload = (PrecompressedPayload) cacheManager.getCache(CacheConfiguration.PLAYERS_CACHE)
+                .get(SimpleKey.EMPTY).get();
+        assertEquals("[{\"playerId\":1,\"firstName\":\"Rafael\",\"lastName\":\"Nadal\",\"ioc\":\"ESP\"},"
+                        + "{\"playerId\":2,\"firstName\":\"Roger\",\"lastName\":\"Federer\",\"ioc\":\"SUI\"}]",
+                new String(payload.identity(), StandardCharsets.UTF_8));
+        verify(playerService, times(1)).getAllPlayers();
+    }
+
+    @Test
+    @DisplayName("Should stop syncing when a rebuild moved the index on while a batch was read")
+    void sync_WhenRebuiltMeanwhile_ShouldDropBatch() {
+        loadIndex(5L, new PlayerDTO(1L, "Rafael", "Nadal", "ESP"));
+        doAnswer(invocation -> {
+            loadIndex(9L, new PlayerDTO(1L, "Rafael", "Nadal-Parera", "ESP"));
+            return new PlayerChanges(7L, List.of(new PlayerDTO(1L, "Rafael", "Nadal", "ESP")), List.of(), true);
+        }).when(playerService).getChangesSince(5L, 2);
+
+        playerChangeSync.sync();
+
+        assertEquals(9L, playerSearchService.getSyncedVersion());
+        assertEquals("Nadal-Parera", playerSearchService.search("nadal", 10).get(0).getLastName());
+        assertNull(cacheManager.getCache(CacheConfiguration.PLAYERS_CACHE).get(SimpleKey.EMPTY));
+        verify(playerService, never()).getChangesSince(7L, 2);
+    }
+
+    @Test
+    @DisplayName("Should leave the cached list alone when nothing changed")
+    void sync_WithoutChanges_ShouldNotTouchCache() {
+        loadIndex(5L, new PlayerDTO(1L, "Rafael", "Nadal", "ESP"));
+        doReturn(new PlayerChanges(5L, List.of(), List.of(), false)).when(playerService).getChangesSince(5L, 2);
+
+        playerChangeSync.sync();
+
+        assertNull(cacheManager.getCache(CacheConfiguration.PLAYERS_CACHE).get(SimpleKey.EMPTY));
+        assertEquals(5L, playerSearchService.getSyncedVersion());
+    }
+
+    private void loadIndex(long version, PlayerDTO... players) {
+        doReturn(version).when(playerService).getCurrentChangeVersion();
+        doReturn(List.of(players)).when(playerService).getAllPlayers();
+        playerSearchService.rebuild();
+    }
+}
@@ -0,0 +1,85 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures search latency over an index the size of a full historical player table, for prefix queries and
+ * for typo queries that fall through to the fuzzy pass.
+ */
+@Tag("benchmark")
+@DisplayName("Player Search Index Benchmark Tests")
+public class PlayerSearchIndexBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerSearchIndexBenchmarkTest.class);
+    private static final int PLAYERS = 60_000;
+    private static final int QUERIES = 20_000;
+    private static final String[] SYLLABLES = {"ka", "ro", "li", "na", "de", "vo", "mi", "sa", "tu", "be", "ch", "ko",
+            "ra", "fe", "lo", "zi", "pa", "go", "ve", "du", "an", "el", "is", "ov", "ic", "er", "os", "ui"};
+
+    @Test
+    @DisplayName("Prefix and typo searches over 60000 players should average well under a millisecond")
+    void search_shouldAnswerWellUnderAMillisecond() {
+        Random random = new Random(42);
+        List<PlayerDTO> players = new ArrayList<>(PLAYERS);
+        for (long id = 1; id <= PLAYERS; id++) {
+            players.add(new PlayerDTO(id, name(random, 2), name(random, 3), "XXX"));
+        }
+        PlayerSearchIndex index = PlayerSearchIndex.build(players);
+        String[] prefixQueries = new String[QUERIES];
+        String[] typoQueries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String lastName = PlayerSearchIndex.normalize(players.get(random.nextInt(PLAYERS)).getLastName());
+            prefixQueries[i] = lastName.substring(0, 1 + random.nextInt(lastName.length()));
+            typoQueries[i] = swapMiddleCharacters(lastName);
+        }
+
+        timeSearches(index, prefixQueries);
+        timeSearches(index, typoQueries);
+        long prefixNanos = timeSearches(index, prefixQueries);
+        long typoNanos = timeSearches(index, typoQueries);
+
+        log.info("Player search over {} players: {} us per prefix query, {} us per typo query",
+                PLAYERS, prefixNanos / 1_000, typoNanos / 1_000);
+        assertTrue(prefixNanos < 1_000_000, "Prefix queries took " + prefixNanos + " ns on average");
+        assertTrue(typoNanos < 1_000_000, "Typo queries took " + typoNanos + " ns on average");
+    }
+
+    private static long timeSearches(PlayerSearchIndex index, String[] queries) {
+        long results = 0;
+        long start = System.nanoTime();
+        for (String query : queries) {
+            results += index.search(query, 10).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(results > 0);
+        return elapsed / queries.length;
+    }
+
+    private static String name(Random random, int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String swapMiddleCharacters(String token) {
+        int middle = token.length() / 2;
+        char[] chars = token.toCharArray();
+        char swapped = chars[middle];
+        chars[middle] = chars[middle - 1];
+        chars[middle - 1] = swapped;
+        return new String(chars);
+    }
+}
@@ -0,0 +1,163 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Player Search Index Tests")
+public class PlayerSearchIndexTest {
+
+    private static final PlayerDTO NADAL = new PlayerDTO(1L, "Rafael", "Nadal", "ESP");
+    private static final PlayerDTO DJOKOVIC = new PlayerDTO(2L, "Novak", "Đoković", "SRB");
+    private static final PlayerDTO MONFILS = new PlayerDTO(3L, "Gaël", "Monfils", "FRA");
+    private static final PlayerDTO AUGER_ALIASSIME = new PlayerDTO(4L, "Félix", "Auger-Aliassime", "CAN");
+    private static final PlayerDTO RAFTER = new PlayerDTO(5L, "Patrick", "Rafter", "AUS");
+
+    private final PlayerSearchIndex index = PlayerSearchIndex.build(List.of(NADAL, DJOKOVIC, MONFILS, AUGER_ALIASSIME, RAFTER));
+
+    @Test
+    @DisplayName("Should match name prefixes on first and last name, sorted by last name")
+    void search_ShouldMatchPrefixes() {
+        assertEquals(List.of(NADAL, RAFTER), index.search("raf", 10));
+        assertEquals(List.of(NADAL), index.search("Nad", 10));
+        assertEquals(List.of(AUGER_ALIASSIME), index.search("aliass", 10));
+    }
+
+    @Test
+    @DisplayName("Should ignore accents and case in both names and queries")
+    void search_ShouldIgnoreDiacritics() {
+        assertEquals(List.of(DJOKOVIC), index.search("djokovic", 10));
+        assertEquals(List.of(MONFILS), index.search("GAEL", 10));
+        assertEquals(List.of(AUGER_ALIASSIME), index.search("félix", 10));
+    }
+
+    @Test
+    @DisplayName("Should require every query token to match")
+    void search_ShouldMatchAllTokens() {
+        assertEquals(List.of(NADAL), index.search("rafa nad", 10));
+        assertEquals(List.of(), index.search("rafael rafter", 10));
+    }
+
+    @Test
+    @DisplayName("Should tolerate one typo in longer tokens after exact prefix matches")
+    void search_ShouldTolerateTypos() {
+        assertEquals(List.of(NADAL), index.search("nadla", 10));
+        assertEquals(List.of(MONFILS), index.search("monfls", 10));
+        assertEquals(List.of(DJOKOVIC), index.search("djokovuc", 10));
+        assertEquals(List.of(), index.search("xy", 10));
+    }
+
+    @Test
+    @DisplayName("Should rank prefix matches before typo matches and honour the limit")
+    void search_ShouldRankPrefixMatchesFirst() {
+        PlayerDTO nadar = new PlayerDTO(6L, "Pablo", "Nadar", "ARG");
+        PlayerSearchIndex withNadar = PlayerSearchIndex.build(List.of(NADAL, nadar));
+
+        assertEquals(List.of(nadar, NADAL), withNadar.search("nadar", 10));
+        assertEquals(List.of(nadar), withNadar.search("nadar", 1));
+    }
+
+    @Test
+    @DisplayName("Should return nothing for blank queries or an empty index")
+    void search_WithBlankQuery_ShouldReturnNothing() {
+        assertTrue(index.search("  -- ", 10).isEmpty());
+        assertTrue(PlayerSearchIndex.EMPTY.search("nadal", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should compare against token prefixes within one edit")
+    void withinOneEdit_ShouldDetectSingleEdits() {
+        assertTrue(PlayerSearchIndex.withinOneEdit("nadla", "nadal", 5));
+        assertTrue(PlayerSearchIndex.withinOneEdit("nda", "nadal", 3));
+        assertTrue(PlayerSearchIndex.withinOneEdit("nadl", "nadal", 5));
+        assertTrue(PlayerSearchIndex.withinOneEdit("naxdal", "nadal", 5));
+        assertFalse(PlayerSearchIndex.withinOneEdit("ndla", "nadal", 4));
+        assertFalse(PlayerSearchIndex.withinOneEdit("nadal", "nad", 4));
+    }
+
+    @Test
+    @DisplayName("Should keep unchanged players searchable after changes and leave the original index as it was")
+    void withChanges_ShouldKeepUnchangedEntries() {
+        PlayerDTO renamedNadal = new PlayerDTO(1L, "Rafa", "Nadal-Parera", "ESP");
+        PlayerDTO sinner = new PlayerDTO(7L, "Jannik", "Sinner", "ITA");
+
+        PlayerSearchIndex updated = index.withChanges(List.of(renamedNadal, sinner), List.of(3L, 99L));
+
+        assertEquals(List.of(AUGER_ALIASSIME, DJOKOVIC, renamedNadal, RAFTER, sinner), updated.players());
+        assertEquals(List.of(DJOKOVIC), updated.search("djokovic", 10));
+        assertEquals(List.of(AUGER_ALIASSIME), updated.search("felix aliass", 10));
+        assertEquals(List.of(renamedNadal, RAFTER), updated.search("raf", 10));
+        assertEquals(List.of(renamedNadal), updated.search("parera", 10));
+        assertEquals(List.of(), updated.search("rafael", 10));
+        assertEquals(List.of(), updated.search("monfils", 10));
+        assertEquals(List.of(sinner), updated.search("siner", 10));
+
+        assertEquals(List.of(NADAL), index.search("rafael", 10));
+        assertEquals(List.of(MONFILS), index.search("monfils", 10));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    @DisplayName("Should answer like a fresh build after a series of changes")
+    void withChanges_ShouldMatchFreshBuild() {
+        Map<Long, PlayerDTO> players = new LinkedHashMap<>();
+        for (long i = 0; i < 200; i++) {
+            players.put(i, new PlayerDTO(i, "First" + Long.toString(i % 37, 36), "Last" + Long.toString(i * 31 % 97, 36), "XXX"));
+        }
+        PlayerSearchIndex incremental = PlayerSearchIndex.build(players.values());
+
+        for (int batch = 0; batch < 30; batch++) {
+            List<PlayerDTO> upserts = new ArrayList<>();
+            List<Long> deletedPlayerIds = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                long playerId = (batch * 53L + i * 17L) % 260;
+                if (i % 3 == 0) {
+                    deletedPlayerIds.add(playerId);
+                    players.remove(playerId);
+                } else {
+                    PlayerDTO player = new PlayerDTO(playerId, "First" + Long.toString((playerId + batch) % 41, 36),
+                            "Last" + Long.toString((playerId * batch) % 89, 36), "XXX");
+                    upserts.add(player);
+                    players.put(playerId, player);
+                }
+            }
+            incremental = incremental.withChanges(upserts, deletedPlayerIds);
+
+            PlayerSearchIndex rebuilt = PlayerSearchIndex.build(players.values());
+            assertEquals(rebuilt.players(), incremental.players());
+            for (String query : List.of("first1", "last2", "lasz", "first last1", "firts")) {
+                assertEquals(rebuilt.search(query, 500), incremental.search(query, 500), query);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer searches over a large index quickly")
+    void search_OverLargeIndex_ShouldBeFast() {
+        List<PlayerDTO> players = new ArrayList<>();
+        for (long i = 0; i < 50_000; i++) {
+            players.add(new PlayerDTO(i, "First" + Long.toString(i, 36), "Last" + Long.toString(i * 7919, 36), "XXX"));
+        }
+        PlayerSearchIndex large = PlayerSearchIndex.build(players);
+        for (int i = 0; i < 200; i++) {
+            large.search("lastab", 20);
+            large.search("firstzz", 20);
+        }
+
+        long start = System.nanoTime();
+        int searches = 200;
+        for (int i = 0; i < searches; i++) {
+            assertFalse(large.search("first" + Long.toString(i + 1000, 36), 20).isEmpty());
+        }
+        long averageMicros = (System.nanoTime() - start) / searches / 1_000;
+
+        assertTrue(averageMicros < 5_000, "Average search took " + averageMicros + " µs");
+    }
+}
@@ -0,0 +1,83 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PlayerChanges;
+import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Player Search Service Tests")
+public class PlayerSearchServiceTest {
+
+    private final PlayerService playerService = mock(PlayerService.class);
+    private PlayerSearchService playerSearchService;
+
+    @BeforeEach
+    void setUp() {
+        playerSearchService = new PlayerSearchService(playerService, 2);
+        when(playerService.getCurrentChangeVersion()).thenReturn(7L);
+        when(playerService.getAllPlayers()).thenReturn(List.of(
+                new PlayerDTO(1L, "Rafael", "Nadal", "ESP"),
+                new PlayerDTO(2L, "Roger", "Federer", "SUI"),
+                new PlayerDTO(3L, "Rod", "Laver", "AUS")));
+        playerSearchService.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should search the index loaded from the repository and cap the number of results")
+    void search_ShouldUseRebuiltIndex() {
+        assertEquals(3, playerSearchService.getIndexedPlayerCount());
+        assertEquals(7L, playerSearchService.getSyncedVersion());
+        assertEquals(List.of(2L), ids(playerSearchService.search("fed", 10)));
+        assertEquals(2, playerSearchService.search("r", 10).size());
+    }
+
+    @Test
+    @DisplayName("Should apply upserts and removals without reloading the player table")
+    void apply_ShouldUpdateIndexIncrementally() {
+        assertTrue(playerSearchService.apply(7L, new PlayerChanges(9L,
+                List.of(new PlayerDTO(4L, "Carlos", "Alcaraz", "ESP"), new PlayerDTO(2L, "Roger", "Federer-Updated", "SUI")),
+                List.of(3L), false)));
+
+        assertEquals(3, playerSearchService.getIndexedPlayerCount());
+        assertEquals(List.of(4L), ids(playerSearchService.search("alcaraz", 10)));
+        assertEquals("Federer-Updated", playerSearchService.search("federer", 10).get(0).getLastName());
+        assertTrue(playerSearchService.search("laver", 10).isEmpty());
+        assertEquals(9L, playerSearchService.getSyncedVersion());
+        assertEquals(List.of(1L, 2L, 4L), ids(playerSearchService.getIndexedPlayers()));
+    }
+
+    @Test
+    @DisplayName("Should drop changes read before a rebuild published a newer index")
+    void apply_AfterRebuild_ShouldDropStaleChanges() {
+        when(playerService.getCurrentChangeVersion()).thenReturn(12L);
+        when(playerService.getAllPlayers()).thenReturn(List.of(new PlayerDTO(2L, "Roger", "Federer-Renamed", "SUI")));
+        playerSearchService.rebuild();
+
+        assertFalse(playerSearchService.apply(7L, new PlayerChanges(9L,
+                List.of(new PlayerDTO(2L, "Roger", "Federer", "SUI")), List.of(), false)));
+
+        assertEquals(12L, playerSearchService.getSyncedVersion());
+        assertEquals("Federer-Renamed", playerSearchService.search("federer", 10).get(0).getLastName());
+    }
+
+    @Test
+    @DisplayName("Should keep serving the previous index when a rebuild fails")
+    void rebuild_WhenRepositoryFails_ShouldKeepPreviousIndex() {
+        when(playerService.getAllPlayers()).thenThrow(new IllegalStateException("database unavailable"));
+
+        playerSearchService.rebuild();
+
+        assertEquals(List.of(1L), ids(playerSearchService.search("nadal", 10)));
+    }
+
+    private static List<Long> ids(List<PlayerDTO> players) {
+        return players.stream().map(PlayerDTO::getPlayerId).toList();
+    }
+}
@@ -1,22 +1,37 @@
 package com.karolbystrek.tennispredictor.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.karolbystrek.tennispredictor.model.Player;
+import com.karolbystrek.tennispredictor.model.PlayerChanges;
 import com.karolbystrek.tennispredictor.model.PlayerDTO;
+import com.karolbystrek.tennispredictor.model.PlayerPage;
+import com.karolbystrek.tennispredictor.model.PlayerTombstone;
 import com.karolbystrek.tennispredictor.repository.PlayerRepository;
+import com.karolbystrek.tennispredictor.repository.PlayerTombstoneRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -28,6 +43,12 @@ public class PlayerServiceTest {
     @Mock
     private PlayerRepository playerRepository;
 
+    @Mock
+    private PlayerTombstoneRepository playerTombstoneRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private PlayerService playerService;
 
@@ -35,15 +56,11 @@ public class PlayerServiceTest {
     @Test
     @DisplayName("Should return list of PlayerDTOs when players exist in repository")
     void getAllPlayers_shouldReturnPlayerDTOList_whenPlayersExist() {
-        Player player1 = new Player();
-        player1.setPlayerId(1L);
-        player1.setFirstName("Player One");
-        Player player2 = new Player();
-        player2.setPlayerId(2L);
-        player2.setFirstName("Player Two");
-        List<Player> mockPlayers = Arrays.asList(player1, player2);
+        PlayerDTO player1 = new PlayerDTO(1L, "Player One", null, null);
+        PlayerDTO player2 = new PlayerDTO(2L, "Player Two", null, null);
+        List<PlayerDTO> mockPlayers = Arrays.asList(player1, player2);
 
-        when(playerRepository.findAll()).thenReturn(mockPlayers);
+        when(playerRepository.findAllSummaries()).thenReturn(mockPlayers);
 
         List<PlayerDTO> result = playerService.getAllPlayers();
 
@@ -52,19 +69,129 @@ public class PlayerServiceTest {
         assertEquals("Player One", result.get(0).getFirstName());
         assertEquals("Player Two", result.get(1).getFirstName());
 
-        verify(playerRepository, times(1)).findAll();
+        verify(playerRepository, times(1)).findAllSummaries();
     }
 
     @Test
     @DisplayName("Should return empty list when no players exist in repository")
     void getAllPlayers_shouldReturnEmptyList_whenNoPlayersExist() {
-        when(playerRepository.findAll()).thenReturn(Collections.emptyList());
+        when(playerRepository.findAllSummaries()).thenReturn(Collections.emptyList());
 
         List<PlayerDTO> result = playerService.getAllPlayers();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(playerRepository, times(1)).findAll();
+        verify(playerRepository, times(1)).findAllSummaries();
+    }
+
+    @Test
+    @DisplayName("Should return a full page with the last player ID as the next cursor when more players follow")
+    void getPlayerPage_shouldReturnNextCursor_whenMorePlayersExist() {
+        when(playerRepository.findSummariesAfter(eq(10L), eq(Limit.of(3)))).thenReturn(List.of(
+                new PlayerDTO(11L, "A", "One", "ESP"),
+                new PlayerDTO(12L, "B", "Two", "SRB"),
+                new PlayerDTO(15L, "C", "Three", "ITA")));
+
+        PlayerPage page = playerService.getPlayerPage(10L, 2);
+
+        assertEquals(List.of(11L, 12L), page.getPlayers().stream().map(PlayerDTO::getPlayerId).toList());
+        assertEquals(12L, page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should start from the first player and return no cursor on the last page")
+    void getPlayerPage_shouldReturnNoCursor_onLastPage() {
+        when(playerRepository.findSummariesAfter(anyLong(), eq(Limit.of(3)))).thenReturn(List.of(
+                new PlayerDTO(1L, "A", "One", "ESP")));
+
+        PlayerPage page = playerService.getPlayerPage(null, 2);
+
+        assertEquals(1, page.getPlayers().size());
+        assertNull(page.getNextCursor());
+        verify(playerRepository, times(1)).findSummariesAfter(eq(Long.MIN_VALUE), eq(Limit.of(3)));
+    }
+
+    @Test
+    @DisplayName("Should serialize the player list once into JSON and gzip bytes with a content-based ETag")
+    void getAllPlayersPayload_shouldContainSerializedPlayers() throws Exception {
+        when(playerRepository.findAllSummaries()).thenReturn(List.of(new PlayerDTO(1L, "Rafael", "Nadal", "ESP")));
+
+        PrecompressedPayload payload = playerService.getAllPlayersPayload();
+
+        assertEquals("[{\"playerId\":1,\"firstName\":\"Rafael\",\"lastName\":\"Nadal\",\"ioc\":\"ESP\"}]",
+                new String(payload.identity(), StandardCharsets.UTF_8));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload.gzip()))) {
+            assertArrayEquals(payload.identity(), gzip.readAllBytes());
+        }
+        assertEquals(payload.etag(), PrecompressedPayload.of(payload.identity()).etag());
+    }
+
+    @Test
+    @DisplayName("Should merge updates and deletions by version and report each player once in its latest state")
+    void getChangesSince_shouldMergeUpdatesAndDeletions() {
+        when(playerRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(10L, Limit.of(11))).thenReturn(List.of(
+                player(1L, "Nadal", 11L), player(2L, "Federer", 13L), player(3L, "Laver", 15L)));
+        when(playerTombstoneRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(10L, Limit.of(11))).thenReturn(List.of(
+                new PlayerTombstone(2L, 12L), new PlayerTombstone(1L, 14L)));
+
+        PlayerChanges changes = playerService.getChangesSince(10L, 10);
+
+        assertEquals(15L, changes.getVersion());
+        assertEquals(List.of(2L, 3L), changes.getUpserts().stream().map(PlayerDTO::getPlayerId).toList());
+        assertEquals(List.of(1L), changes.getDeletedPlayerIds());
+        assertFalse(changes.isHasMore());
+    }
+
+    @Test
+    @DisplayName("Should stop at the limit and report that more changes follow")
+    void getChangesSince_shouldStopAtLimit() {
+        when(playerRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(0L, Limit.of(3))).thenReturn(List.of(
+                player(1L, "Nadal", 1L), player(2L, "Federer", 3L)));
+        when(playerTombstoneRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(0L, Limit.of(3))).thenReturn(List.of(
+                new PlayerTombstone(7L, 2L)));
+
+        PlayerChanges changes = playerService.getChangesSince(0L, 2);
+
+        assertEquals(2L, changes.getVersion());
+        assertEquals(List.of(1L), changes.getUpserts().stream().map(PlayerDTO::getPlayerId).toList());
+        assertEquals(List.of(7L), changes.getDeletedPlayerIds());
+        assertTrue(changes.isHasMore());
+    }
+
+    @Test
+    @DisplayName("Should report no more changes when exactly the limit was left")
+    void getChangesSince_shouldNotReportMore_whenExactlyLimitLeft() {
+        when(playerRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(0L, Limit.of(3))).thenReturn(List.of(
+                player(1L, "Nadal", 1L), player(2L, "Federer", 2L)));
+        when(playerTombstoneRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(0L, Limit.of(3))).thenReturn(List.of());
+
+        PlayerChanges changes = playerService.getChangesSince(0L, 2);
+
+        assertEquals(2L, changes.getVersion());
+        assertEquals(2, changes.getUpserts().size());
+        assertFalse(changes.isHasMore());
+    }
+
+    @Test
+    @DisplayName("Should keep the requested version when nothing changed")
+    void getChangesSince_shouldKeepVersion_whenNothingChanged() {
+        when(playerRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(42L, Limit.of(6))).thenReturn(List.of());
+        when(playerTombstoneRepository.findByChangeVersionGreaterThanOrderByChangeVersionAsc(42L, Limit.of(6))).thenReturn(List.of());
+
+        PlayerChanges changes = playerService.getChangesSince(42L, 5);
+
+        assertEquals(42L, changes.getVersion());
+        assertTrue(changes.getUpserts().isEmpty());
+        assertTrue(changes.getDeletedPlayerIds().isEmpty());
+        assertFalse(changes.isHasMore());
+    }
+
+    private static Player player(Long playerId, String lastName, Long changeVersion) {
+        Player player = new Player();
+        player.setPlayerId(playerId);
+        player.setLastName(lastName);
+        player.setChangeVersion(changeVersion);
+        return player;
     }
 }
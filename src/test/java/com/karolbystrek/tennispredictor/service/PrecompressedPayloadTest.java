@@ -0,0 +1,55 @@
+package com.karolbystrek.tennispredictor.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Precompressed Payload Tests")
+public class PrecompressedPayloadTest {
+
+    private static final byte[] CONTENT = "[{\"playerId\":1},{\"playerId\":2},{\"playerId\":3}]".repeat(50).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("Should hold a gzip variant that decompresses to the original bytes")
+    void of_ShouldPrecompressContent() throws IOException {
+        PrecompressedPayload payload = PrecompressedPayload.of(CONTENT);
+
+        assertSame(CONTENT, payload.identity());
+        assertTrue(payload.gzip().length < CONTENT.length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload.gzip()))) {
+            assertArrayEquals(CONTENT, gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should derive a strong ETag from the content")
+    void of_ShouldDeriveETagFromContent() {
+        PrecompressedPayload payload = PrecompressedPayload.of(CONTENT);
+
+        assertTrue(payload.etag().startsWith("\"") && payload.etag().endsWith("\""));
+        assertEquals(payload.etag(), PrecompressedPayload.of(CONTENT.clone()).etag());
+        assertNotEquals(payload.etag(), PrecompressedPayload.of("[]".getBytes(StandardCharsets.UTF_8)).etag());
+        assertTrue(payload.gzipEtag().startsWith("\"") && payload.gzipEtag().endsWith("-gzip\""));
+        assertNotEquals(payload.etag(), payload.gzipEtag());
+    }
+
+    @Test
+    @DisplayName("Should match If-None-Match lists, weak tags and the wildcard")
+    void matches_ShouldCompareIfNoneMatchValues() {
+        PrecompressedPayload payload = PrecompressedPayload.of(CONTENT);
+
+        assertTrue(payload.matches(payload.etag()));
+        assertTrue(payload.matches("\"other\", W/" + payload.etag()));
+        assertTrue(payload.matches(payload.gzipEtag()));
+        assertTrue(payload.matches("*"));
+        assertFalse(payload.matches("\"other\""));
+        assertFalse(payload.matches(null));
+        assertFalse(payload.matches(""));
+    }
+}
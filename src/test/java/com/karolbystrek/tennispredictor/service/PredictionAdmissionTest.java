@@ -0,0 +1,196 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prediction Admission Tests")
+public class PredictionAdmissionTest {
+
+    @Test
+    @DisplayName("Should run calls immediately while below the in-flight limit and free the slot afterwards")
+    void admit_BelowLimit_ShouldRunImmediately() {
+        PredictionAdmission admission = admission(2, 2, Duration.ofSeconds(5));
+
+        assertEquals("ok", admission.admit(PredictionPriority.INTERACTIVE, () -> Mono.just("ok")).block());
+        assertEquals(0, admission.getInFlightCount());
+        assertEquals(0, admission.getQueuedCount());
+    }
+
+    @Test
+    @DisplayName("Should admit queued calls by priority and then by arrival")
+    void admit_WhenSaturated_ShouldAdmitByPriority() {
+        PredictionAdmission admission = admission(1, 10, Duration.ofSeconds(5));
+        Sinks.One<String> running = Sinks.one();
+        List<String> order = new CopyOnWriteArrayList<>();
+        admission.admit(PredictionPriority.BATCH, running::asMono).subscribe();
+
+        admission.admit(PredictionPriority.BATCH, () -> record(order, "batch")).subscribe();
+        admission.admit(PredictionPriority.INTERACTIVE, () -> record(order, "interactive-1")).subscribe();
+        admission.admit(PredictionPriority.ADMIN, () -> record(order, "admin")).subscribe();
+        admission.admit(PredictionPriority.INTERACTIVE, () -> record(order, "interactive-2")).subscribe();
+        assertEquals(4, admission.getQueuedCount());
+        assertTrue(order.isEmpty());
+
+        running.tryEmitValue("done");
+
+        assertEquals(List.of("admin", "interactive-1", "interactive-2", "batch"), order);
+        assertEquals(0, admission.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should reject with 429 and Retry-After when the queue is full of equal or higher priority")
+    void admit_WhenQueueIsFull_ShouldRejectWith429() {
+        PredictionAdmission admission = admission(1, 1, Duration.ofSeconds(5));
+        Sinks.One<String> running = Sinks.one();
+        admission.admit(PredictionPriority.INTERACTIVE, running::asMono).subscribe();
+        admission.admit(PredictionPriority.INTERACTIVE, () -> Mono.just("queued")).subscribe();
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class,
+                () -> admission.admit(PredictionPriority.INTERACTIVE, () -> Mono.just("rejected")).block());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), exception.getStatusCode());
+        assertEquals(Duration.ofSeconds(1), exception.getRetryAfter().orElseThrow());
+        assertEquals(1, admission.getQueueFullRejectedCount());
+        running.tryEmitValue("done");
+    }
+
+    @Test
+    @DisplayName("Should let a higher-priority call displace the newest lower-priority waiter from a full queue")
+    void admit_WhenQueueIsFull_ShouldDisplaceLowerPriority() {
+        PredictionAdmission admission = admission(1, 1, Duration.ofSeconds(5));
+        Sinks.One<String> running = Sinks.one();
+        AtomicReference<Throwable> displaced = new AtomicReference<>();
+        List<String> order = new CopyOnWriteArrayList<>();
+        admission.admit(PredictionPriority.BATCH, running::asMono).subscribe();
+        admission.admit(PredictionPriority.BATCH, () -> record(order, "batch")).subscribe(value -> { }, displaced::set);
+
+        admission.admit(PredictionPriority.ADMIN, () -> record(order, "admin")).subscribe();
+        running.tryEmitValue("done");
+
+        assertInstanceOf(PredictionServiceException.class, displaced.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), ((PredictionServiceException) displaced.get()).getStatusCode());
+        assertEquals(List.of("admin"), order);
+    }
+
+    @Test
+    @DisplayName("Should drop waiters with 503 once they have waited longer than the queue deadline")
+    void admit_WhenWaitingTooLong_ShouldRejectWith503() {
+        PredictionAdmission admission = admission(1, 10, Duration.ofMillis(100));
+        Sinks.One<String> running = Sinks.one();
+        admission.admit(PredictionPriority.INTERACTIVE, running::asMono).subscribe();
+
+        long start = System.nanoTime();
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class,
+                () -> admission.admit(PredictionPriority.INTERACTIVE, () -> Mono.just("late")).block(Duration.ofSeconds(5)));
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getStatusCode());
+        assertTrue(elapsedMs < 2000, "Expired waiter should fail at its deadline, took " + elapsedMs + " ms");
+        assertEquals(0, admission.getQueuedCount());
+        assertEquals(1, admission.getExpiredRejectedCount());
+        running.tryEmitValue("done");
+        assertEquals(0, admission.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should release slots and queue places when callers cancel")
+    void admit_WhenCancelled_ShouldReleaseCapacity() {
+        PredictionAdmission admission = admission(1, 10, Duration.ofSeconds(5));
+        Disposable running = admission.admit(PredictionPriority.INTERACTIVE, Mono::never).subscribe();
+        Disposable waiting = admission.admit(PredictionPriority.INTERACTIVE, Mono::never).subscribe();
+        assertEquals(1, admission.getQueuedCount());
+
+        waiting.dispose();
+        assertEquals(0, admission.getQueuedCount());
+
+        running.dispose();
+        assertEquals(0, admission.getInFlightCount());
+        assertEquals("ok", admission.admit(PredictionPriority.BATCH, () -> Mono.just("ok")).block());
+    }
+
+    @Test
+    @DisplayName("Should keep asking for admission after rejections when waiting is preferred over failing")
+    void admitWhenAvailable_WhenRejected_ShouldRetryUntilAdmitted() throws InterruptedException {
+        PredictionAdmission admission = new PredictionAdmission(1, 0, Duration.ofSeconds(5), Duration.ofMillis(20), Schedulers.parallel());
+        Sinks.One<String> running = Sinks.one();
+        admission.admit(PredictionPriority.INTERACTIVE, running::asMono).subscribe();
+        AtomicReference<String> result = new AtomicReference<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        admission.admitWhenAvailable(PredictionPriority.BATCH, () -> Mono.just("job entry")).subscribe(result::set, error::set);
+        Thread.sleep(100);
+        assertTrue(admission.getQueueFullRejectedCount() >= 2);
+        assertNull(result.get());
+        assertNull(error.get());
+
+        running.tryEmitValue("done");
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (result.get() == null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals("job entry", result.get());
+        assertNull(error.get());
+        assertEquals(0, admission.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should fail with the last rejection once the retries are used up")
+    void admitWithRetries_WhenStillRejected_ShouldFailWithRejection() {
+        PredictionAdmission admission = new PredictionAdmission(1, 0, Duration.ofSeconds(5), Duration.ofMillis(10), Schedulers.parallel());
+        Sinks.One<String> running = Sinks.one();
+        admission.admit(PredictionPriority.INTERACTIVE, running::asMono).subscribe();
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class, () -> admission
+                .admitWithRetries(PredictionPriority.BATCH, 2, () -> Mono.just("pair"))
+                .block(Duration.ofSeconds(5)));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), exception.getStatusCode());
+        assertEquals(3, admission.getQueueFullRejectedCount());
+        assertEquals(1, admission.getInFlightCount());
+        running.tryEmitValue("done");
+    }
+
+    @Test
+    @DisplayName("Should pass on errors of an admitted call instead of retrying it")
+    void admitWhenAvailable_WhenCallFails_ShouldNotRetry() {
+        PredictionAdmission admission = admission(1, 1, Duration.ofSeconds(5));
+        AtomicInteger calls = new AtomicInteger();
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class, () -> admission
+                .admitWhenAvailable(PredictionPriority.BATCH, () -> {
+                    calls.incrementAndGet();
+                    return Mono.<String>error(new PredictionServiceException("Upstream down", HttpStatus.SERVICE_UNAVAILABLE.value()));
+                })
+                .block(Duration.ofSeconds(5)));
+
+        assertEquals("Upstream down", exception.getMessage());
+        assertEquals(1, calls.get());
+        assertEquals(0, admission.getInFlightCount());
+    }
+
+    private static Mono<String> record(List<String> order, String name) {
+        return Mono.fromSupplier(() -> {
+            order.add(name);
+            return name;
+        });
+    }
+
+    private static PredictionAdmission admission(int maxInFlight, int maxQueued, Duration maxQueueWait) {
+        return new PredictionAdmission(maxInFlight, maxQueued, maxQueueWait, Duration.ofSeconds(1), Schedulers.parallel());
+    }
+}
@@ -0,0 +1,120 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prediction Cache Tests")
+public class PredictionCacheTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private PredictionCache predictionCache;
+
+    @BeforeEach
+    void setUp() {
+        predictionCache = new PredictionCache(2, Duration.ofMinutes(1), nanoTime::get);
+    }
+
+    @Test
+    @DisplayName("Should map both orientations of a matchup to the same key")
+    void matchupKey_shouldIgnorePlayerOrderAndCase() {
+        MatchupKey key = MatchupKey.of(new PredictionRequest(7L, 3L, "Clay", "M", 3, "SF"));
+        MatchupKey reversedKey = MatchupKey.of(new PredictionRequest(3L, 7L, "clay ", "m", 3, "sf"));
+
+        assertEquals(key, reversedKey);
+        assertEquals(3L, key.firstPlayerId());
+        assertEquals(7L, key.secondPlayerId());
+    }
+
+    @Test
+    @DisplayName("Should flip names and probabilities when the request is reversed")
+    void orient_shouldFlipResponse_whenRequestIsReversed() {
+        PredictionRequest request = new PredictionRequest(7L, 3L, "Clay", "M", 3, "SF");
+        MatchupKey key = MatchupKey.of(request);
+        PredictionResponse response = new PredictionResponse("Seven", "Three", 0.6f, 0.4f, "Seven", 7L, 0.2f);
+
+        PredictionResponse canonical = key.orient(response, request);
+
+        assertEquals("Three", canonical.getPlayer1Name());
+        assertEquals(0.4f, canonical.getPlayer1WinProbability());
+        assertEquals(0.6f, canonical.getPlayer2WinProbability());
+        assertEquals(7L, canonical.getWinnerId());
+        assertEquals(0.6f, key.orient(canonical, request).getPlayer1WinProbability());
+    }
+
+    @Test
+    @DisplayName("Should count hits and misses")
+    void get_shouldCountHitsAndMisses() {
+        MatchupKey key = MatchupKey.of(new PredictionRequest(1L, 2L, "Hard", "G", 5, "F"));
+
+        assertTrue(predictionCache.get(key).isEmpty());
+        predictionCache.put(key, new PredictionResponse("One", "Two", 0.5f, 0.5f, "One", 1L, 0.0f));
+        Optional<PredictionResponse> cached = predictionCache.get(key);
+
+        assertTrue(cached.isPresent());
+        assertEquals(1, predictionCache.stats().hits());
+        assertEquals(1, predictionCache.stats().misses());
+        assertEquals(1, predictionCache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Should drop entries once their TTL has elapsed")
+    void get_shouldExpireEntries_afterTtl() {
+        MatchupKey key = MatchupKey.of(new PredictionRequest(1L, 2L, "Hard", "G", 5, "F"));
+        predictionCache.put(key, new PredictionResponse("One", "Two", 0.5f, 0.5f, "One", 1L, 0.0f));
+
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertTrue(predictionCache.get(key).isEmpty());
+        assertEquals(1, predictionCache.stats().expirations());
+        assertEquals(0, predictionCache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Should keep expired entries available as stale until the maximum staleness has elapsed")
+    void getStale_shouldServeExpiredEntries_withinMaxStaleness() {
+        PredictionCache staleCache = new PredictionCache(2, Duration.ofMinutes(1), Duration.ofMinutes(10), nanoTime::get);
+        MatchupKey key = MatchupKey.of(new PredictionRequest(1L, 2L, "Hard", "G", 5, "F"));
+        staleCache.put(key, new PredictionResponse("One", "Two", 0.5f, 0.5f, "One", 1L, 0.0f));
+
+        nanoTime.addAndGet(Duration.ofMinutes(5).toNanos());
+
+        assertTrue(staleCache.get(key).isEmpty());
+        assertTrue(staleCache.getStale(key).isPresent());
+        assertEquals(0, staleCache.stats().expirations());
+
+        nanoTime.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        assertTrue(staleCache.get(key).isEmpty());
+        assertTrue(staleCache.getStale(key).isEmpty());
+        assertEquals(1, staleCache.stats().expirations());
+        assertEquals(0, staleCache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when full")
+    void put_shouldEvictLeastRecentlyUsedEntry_whenFull() {
+        MatchupKey first = MatchupKey.of(new PredictionRequest(1L, 2L, "Hard", "G", 5, "F"));
+        MatchupKey second = MatchupKey.of(new PredictionRequest(1L, 3L, "Hard", "G", 5, "F"));
+        MatchupKey third = MatchupKey.of(new PredictionRequest(1L, 4L, "Hard", "G", 5, "F"));
+        PredictionResponse response = new PredictionResponse("A", "B", 0.5f, 0.5f, "A", 1L, 0.0f);
+
+        predictionCache.put(first, response);
+        predictionCache.put(second, response);
+        predictionCache.get(first);
+        predictionCache.put(third, response);
+
+        assertTrue(predictionCache.get(first).isPresent());
+        assertTrue(predictionCache.get(second).isEmpty());
+        assertTrue(predictionCache.get(third).isPresent());
+        assertEquals(1, predictionCache.stats().evictions());
+    }
+}
@@ -0,0 +1,343 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.karolbystrek.tennispredictor.exceptions.PlayerNotFoundException;
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prediction Client Tests")
+public class PredictionClientTest {
+
+    private static final Duration TEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final String PREDICTION_JSON = "{\"player1Name\":\"A\",\"player2Name\":\"B\",\"player1WinProbability\":0.5,"
+            + "\"player2WinProbability\":0.5,\"winnerName\":\"A\",\"winnerId\":1,\"confidence\":0.0}";
+
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final PredictionRequest request = new PredictionRequest(1L, 2L, "Hard", "A", 3, "R32");
+    private MockWebServer mockWebServer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should send CBOR and decode a CBOR answer when the binary wire format is configured")
+    void predict_shouldExchangeCbor() throws Exception {
+        mockWebServer.enqueue(cborResponse(Map.of("player1Name", "A", "player2Name", "B",
+                "player1WinProbability", 0.75f, "player2WinProbability", 0.25f, "winnerName", "A", "winnerId", 1L, "confidence", 0.5f)));
+
+        PredictionResponse response = client("cbor").predict(request).block(TEST_TIMEOUT);
+
+        assertNotNull(response);
+        assertEquals("A", response.getPlayer1Name());
+        assertEquals(0.75f, response.getPlayer1WinProbability());
+        assertEquals(1L, response.getWinnerId());
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        assertEquals("application/cbor", recordedRequest.getHeader(HttpHeaders.CONTENT_TYPE));
+        assertTrue(recordedRequest.getHeader(HttpHeaders.ACCEPT).startsWith("application/cbor"));
+        JsonNode body = cborMapper.readTree(recordedRequest.getBody().readByteArray());
+        assertEquals(2L, body.get("player2_id").asLong());
+        assertEquals("R32", body.get("round").asText());
+    }
+
+    @Test
+    @DisplayName("Should decode a JSON answer to a CBOR request")
+    void predict_shouldDecodeJsonAnswerToCborRequest() {
+        mockWebServer.enqueue(jsonResponse());
+
+        PredictionResponse response = client("cbor").predict(request).block(TEST_TIMEOUT);
+
+        assertNotNull(response);
+        assertEquals("B", response.getPlayer2Name());
+    }
+
+    @Test
+    @DisplayName("Should fall back to JSON for good when the model server answers 415 to CBOR")
+    void predict_shouldFallBackToJsonOnUnsupportedMediaType() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value()));
+        mockWebServer.enqueue(jsonResponse());
+        mockWebServer.enqueue(jsonResponse());
+        PredictionClient predictionClient = client("cbor");
+
+        assertNotNull(predictionClient.predict(request).block(TEST_TIMEOUT));
+        assertNotNull(predictionClient.predict(request).block(TEST_TIMEOUT));
+
+        assertFalse(predictionClient.isBinaryEnabled());
+        assertEquals(3, mockWebServer.getRequestCount());
+        assertEquals("application/cbor", mockWebServer.takeRequest().getHeader(HttpHeaders.CONTENT_TYPE));
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, mockWebServer.takeRequest().getHeader(HttpHeaders.CONTENT_TYPE));
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, mockWebServer.takeRequest().getHeader(HttpHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    @DisplayName("Should still report 415 when the model server rejects JSON")
+    void predict_shouldMapUnsupportedMediaTypeForJson() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value()));
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class,
+                () -> client("json").predict(request).block(TEST_TIMEOUT));
+
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), exception.getStatusCode());
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    @DisplayName("Should keep mapping 404 and 503 over the binary wire format")
+    void predict_shouldMapErrorsOverCbor() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpStatus.NOT_FOUND.value()));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(HttpStatus.SERVICE_UNAVAILABLE.value()));
+        PredictionClient predictionClient = client("cbor");
+
+        assertThrows(PlayerNotFoundException.class, () -> predictionClient.predict(request).block(TEST_TIMEOUT));
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class,
+                () -> predictionClient.predict(request).block(TEST_TIMEOUT));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getStatusCode());
+        assertTrue(predictionClient.isBinaryEnabled());
+    }
+
+    @Test
+    @DisplayName("Should exchange batches in CBOR")
+    void predictBatch_shouldExchangeCbor() throws Exception {
+        mockWebServer.enqueue(cborResponse(List.of(Map.of("player1Name", "A"), Map.of("player1Name", "C"))));
+
+        List<PredictionResponse> responses = client("cbor")
+                .predictBatch(List.of(request, new PredictionRequest(3L, 4L, "Clay", "A", 3, "R16")))
+                .block(TEST_TIMEOUT);
+
+        assertNotNull(responses);
+        assertEquals("C", responses.get(1).getPlayer1Name());
+        JsonNode body = cborMapper.readTree(mockWebServer.takeRequest().getBody().readByteArray());
+        assertEquals(2, body.size());
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown wire format")
+    void constructor_shouldRejectUnknownWireFormat() {
+        assertThrows(IllegalStateException.class, () -> client("msgpack"));
+    }
+
+    @Test
+    @DisplayName("Should pin each matchup to one replica and spread different matchups across replicas")
+    void predict_shouldRouteByMatchup() {
+        withReplicas(replicas -> {
+            PredictionClient predictionClient = replicatedClient(replicas);
+
+            for (int i = 0; i < 4; i++) {
+                predictionClient.predict(new PredictionRequest(7L, 42L, "Hard", "A", 3, "R32")).block(TEST_TIMEOUT);
+                predictionClient.predict(new PredictionRequest(42L, 7L, "Hard", "A", 3, "R32")).block(TEST_TIMEOUT);
+            }
+            assertEquals(1, replicas.stream().filter(replica -> replica.predictions.get() > 0).count());
+
+            for (long id = 100; id < 160; id++) {
+                predictionClient.predict(new PredictionRequest(id, id + 1, "Hard", "A", 3, "R32")).block(TEST_TIMEOUT);
+            }
+            assertTrue(replicas.stream().allMatch(replica -> replica.predictions.get() > 0));
+        });
+    }
+
+    @Test
+    @DisplayName("Should eject a failing replica and route its matchups to the others")
+    void predict_shouldEjectFailingReplica() {
+        withReplicas(replicas -> {
+            PredictionClient predictionClient = replicatedClient(replicas);
+            replicas.get(0).failing.set(true);
+            PredictionRequest ownedByFailing = null;
+            for (long id = 1; ownedByFailing == null; id++) {
+                PredictionRequest candidate = new PredictionRequest(id, id + 1, "Hard", "A", 3, "R32");
+                try {
+                    predictionClient.predict(candidate).block(TEST_TIMEOUT);
+                } catch (PredictionServiceException e) {
+                    ownedByFailing = candidate;
+                }
+            }
+
+            PredictionResponse response = predictionClient.predict(ownedByFailing).block(TEST_TIMEOUT);
+
+            assertNotNull(response);
+            assertNotEquals(replicas.get(0).name, response.getPlayer2Name());
+            assertEquals(2, predictionClient.getAvailableReplicaCount());
+        });
+    }
+
+    @Test
+    @DisplayName("Should eject a replica that fails its health check and readmit it once it recovers")
+    void checkReplicaHealth_shouldEjectAndReadmit() {
+        withReplicas(replicas -> {
+            PredictionClient predictionClient = replicatedClient(replicas);
+            replicas.get(1).healthy.set(false);
+
+            predictionClient.checkReplicaHealth();
+            assertEquals(2, predictionClient.getAvailableReplicaCount());
+            for (long id = 100; id < 160; id++) {
+                predictionClient.predict(new PredictionRequest(id, id + 1, "Hard", "A", 3, "R32")).block(TEST_TIMEOUT);
+            }
+            assertEquals(0, replicas.get(1).predictions.get());
+
+            replicas.get(1).healthy.set(true);
+            predictionClient.checkReplicaHealth();
+            assertEquals(3, predictionClient.getAvailableReplicaCount());
+        });
+    }
+
+    @Test
+    @DisplayName("Should split a batch by replica and reassemble the answers in request order")
+    void predictBatch_shouldSplitByReplica() {
+        withReplicas(replicas -> {
+            PredictionClient predictionClient = replicatedClient(replicas);
+            List<PredictionRequest> requests = new ArrayList<>();
+            for (long id = 1; id <= 30; id++) {
+                requests.add(new PredictionRequest(id, id + 1000, "Hard", "A", 3, "R32"));
+            }
+
+            List<PredictionResponse> responses = predictionClient.predictBatch(requests).block(TEST_TIMEOUT);
+
+            assertNotNull(responses);
+            for (int i = 0; i < requests.size(); i++) {
+                assertEquals(String.valueOf(requests.get(i).getPlayer1Id()), responses.get(i).getPlayer1Name());
+            }
+            assertTrue(replicas.stream().filter(replica -> replica.batches.get() > 0).count() > 1);
+        });
+    }
+
+    private void withReplicas(Consumer<List<Replica>> test) {
+        List<Replica> replicas = new ArrayList<>();
+        try {
+            for (String name : List.of("replica-a", "replica-b", "replica-c")) {
+                replicas.add(new Replica(name));
+            }
+            test.accept(replicas);
+        } finally {
+            for (Replica replica : replicas) {
+                try {
+                    replica.server.shutdown();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private PredictionClient replicatedClient(List<Replica> replicas) {
+        String baseUrls = replicas.stream()
+                .map(replica -> String.format("http://localhost:%s/", replica.server.getPort()))
+                .collect(Collectors.joining(", "));
+        return new PredictionClient(WebClient.builder(), baseUrls, "test-api-key", "/predict", "/predict/batch", TEST_TIMEOUT,
+                "json", "/health", 100, 1, Duration.ofMinutes(5));
+    }
+
+    /**
+     * Stand-in model server that answers with the first player's ID as {@code player1Name} and its own name as
+     * {@code player2Name}, so tests can tell which replica served a prediction.
+     */
+    private static final class Replica {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final String name;
+        private final MockWebServer server = new MockWebServer();
+        private final AtomicBoolean failing = new AtomicBoolean();
+        private final AtomicBoolean healthy = new AtomicBoolean(true);
+        private final AtomicInteger predictions = new AtomicInteger();
+        private final AtomicInteger batches = new AtomicInteger();
+
+        private Replica(String name) {
+            this.name = name;
+            server.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    return answer(request);
+                }
+            });
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private MockResponse answer(RecordedRequest request) {
+            if ("/health".equals(request.getPath())) {
+                return new MockResponse().setResponseCode(healthy.get() ? HttpStatus.OK.value() : HttpStatus.SERVICE_UNAVAILABLE.value());
+            }
+            if (failing.get()) {
+                return new MockResponse().setResponseCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+            try {
+                JsonNode body = objectMapper.readTree(request.getBody().readUtf8());
+                String answer;
+                if (body.isArray()) {
+                    batches.incrementAndGet();
+                    List<String> predictions = new ArrayList<>();
+                    body.forEach(item -> predictions.add(prediction(item)));
+                    answer = "[" + String.join(",", predictions) + "]";
+                } else {
+                    predictions.incrementAndGet();
+                    answer = prediction(body);
+                }
+                return new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody(answer);
+            } catch (IOException e) {
+                return new MockResponse().setResponseCode(HttpStatus.BAD_REQUEST.value());
+            }
+        }
+
+        private String prediction(JsonNode request) {
+            return "{\"player1Name\":\"" + request.get("player1_id").asLong() + "\",\"player2Name\":\"" + name + "\"}";
+        }
+    }
+
+    private PredictionClient client(String wireFormat) {
+        return new PredictionClient(WebClient.builder(), String.format("http://localhost:%s", mockWebServer.getPort()),
+                "test-api-key", "/predict", "/predict/batch", TEST_TIMEOUT, wireFormat);
+    }
+
+    private MockResponse cborResponse(Object body) throws IOException {
+        return new MockResponse()
+                .setResponseCode(HttpStatus.OK.value())
+                .setHeader(HttpHeaders.CONTENT_TYPE, PredictionCodec.APPLICATION_CBOR.toString())
+                .setBody(new Buffer().write(cborMapper.writeValueAsBytes(body)));
+    }
+
+    private static MockResponse jsonResponse() {
+        return new MockResponse()
+                .setResponseCode(HttpStatus.OK.value())
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(PREDICTION_JSON);
+    }
+}
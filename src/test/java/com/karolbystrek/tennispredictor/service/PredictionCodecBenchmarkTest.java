@@ -0,0 +1,189 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.sun.management.ThreadMXBean;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares bytes allocated per prediction round trip (encode the request, decode the response) between the
+ * streaming {@link PredictionCodec} and the generic Jackson encoder/decoder path WebClient used before, and
+ * payload size and round-trip time between the JSON and CBOR wire formats, on pooled Netty buffers as in
+ * production.
+ */
+@DisplayName("Prediction Codec Benchmark Tests")
+public class PredictionCodecBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionCodecBenchmarkTest.class);
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 50_000;
+    private static final byte[] PREDICTION_JSON = ("{\"player1Name\":\"A\",\"player2Name\":\"B\",\"player1WinProbability\":0.5,"
+            + "\"player2WinProbability\":0.5,\"winnerName\":\"A\",\"winnerId\":1,\"confidence\":0.0}").getBytes(StandardCharsets.UTF_8);
+    private static final ResolvableType MAP_TYPE = ResolvableType.forClass(Map.class);
+    private static final ResolvableType RESPONSE_TYPE = ResolvableType.forClass(PredictionResponse.class);
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final PredictionCodec codec = PredictionCodec.json();
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder();
+    private final Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+    private final PredictionRequest request = new PredictionRequest(1L, 2L, "Hard", "A", 3, "R32");
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("The streaming codec should allocate fewer bytes per prediction than generic Jackson binding")
+    void streamingCodec_shouldAllocateLessThanGenericBinding() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationCounting(threads);
+
+        measure(threads, this::genericRoundTrip, WARMUP_ITERATIONS);
+        measure(threads, this::streamingRoundTrip, WARMUP_ITERATIONS);
+        long genericBytes = measure(threads, this::genericRoundTrip, ITERATIONS);
+        long streamingBytes = measure(threads, this::streamingRoundTrip, ITERATIONS);
+
+        log.info("Bytes allocated per prediction round trip: generic Jackson binding {}, streaming codec {}",
+                genericBytes, streamingBytes);
+
+        assertTrue(streamingBytes < genericBytes,
+                "Streaming codec allocated " + streamingBytes + " bytes, generic binding " + genericBytes);
+    }
+
+    private long measure(ThreadMXBean threads, Runnable roundTrip, int iterations) {
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            roundTrip.run();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / iterations;
+    }
+
+    @Test
+    @DisplayName("CBOR should produce smaller request and response payloads than JSON")
+    void cbor_shouldProduceSmallerPayloadsThanJson() {
+        PredictionCodec cbor = PredictionCodec.cbor();
+        byte[] jsonResponse = encodedResponse(new JsonFactory());
+        byte[] cborResponse = encodedResponse(new CBORFactory());
+
+        int jsonRequestBytes = encodedRequestSize(codec);
+        int cborRequestBytes = encodedRequestSize(cbor);
+        timeRoundTrips(codec, jsonResponse, WARMUP_ITERATIONS);
+        timeRoundTrips(cbor, cborResponse, WARMUP_ITERATIONS);
+        long jsonNanos = timeRoundTrips(codec, jsonResponse, ITERATIONS);
+        long cborNanos = timeRoundTrips(cbor, cborResponse, ITERATIONS);
+
+        log.info("Prediction payload bytes (request/response): JSON {}/{}, CBOR {}/{}; ns per encode+decode: JSON {}, CBOR {}",
+                jsonRequestBytes, jsonResponse.length, cborRequestBytes, cborResponse.length, jsonNanos, cborNanos);
+
+        assertTrue(cborRequestBytes < jsonRequestBytes, "CBOR request " + cborRequestBytes + " bytes, JSON " + jsonRequestBytes);
+        assertTrue(cborResponse.length < jsonResponse.length, "CBOR response " + cborResponse.length + " bytes, JSON " + jsonResponse.length);
+    }
+
+    private int encodedRequestSize(PredictionCodec predictionCodec) {
+        DataBuffer buffer = predictionCodec.encode(request, bufferFactory);
+        try {
+            return buffer.readableByteCount();
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private long timeRoundTrips(PredictionCodec predictionCodec, byte[] responseBytes, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            DataBufferUtils.release(predictionCodec.encode(request, bufferFactory));
+            DataBuffer response = bufferFactory.allocateBuffer(responseBytes.length);
+            response.write(responseBytes);
+            try {
+                assertNotNull(predictionCodec.decode(response));
+            } finally {
+                DataBufferUtils.release(response);
+            }
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    /**
+     * Writes the benchmark response the way the model server would, with single-precision probabilities.
+     */
+    private static byte[] encodedResponse(JsonFactory factory) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("player1Name", "A");
+            generator.writeStringField("player2Name", "B");
+            generator.writeNumberField("player1WinProbability", 0.5f);
+            generator.writeNumberField("player2WinProbability", 0.5f);
+            generator.writeStringField("winnerName", "A");
+            generator.writeNumberField("winnerId", 1L);
+            generator.writeNumberField("confidence", 0.0f);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private void genericRoundTrip() {
+        Map<String, Object> body = Map.of(
+                "player1_id", request.getPlayer1Id(),
+                "player2_id", request.getPlayer2Id(),
+                "surface", request.getSurface(),
+                "tourney_level", request.getTourneyLevel(),
+                "best_of", request.getBestOf(),
+                "round", request.getRound()
+        );
+        DataBufferUtils.release(encoder.encodeValue(body, bufferFactory, MAP_TYPE, MediaType.APPLICATION_JSON, null));
+        DataBuffer response = responseBuffer();
+        try {
+            assertNotNull(decoder.decode(response, RESPONSE_TYPE, MediaType.APPLICATION_JSON, null));
+        } finally {
+            DataBufferUtils.release(response);
+        }
+    }
+
+    private void streamingRoundTrip() {
+        DataBufferUtils.release(codec.encode(request, bufferFactory));
+        DataBuffer response = responseBuffer();
+        try {
+            assertNotNull(codec.decode(response));
+        } finally {
+            DataBufferUtils.release(response);
+        }
+    }
+
+    private DataBuffer responseBuffer() {
+        DataBuffer buffer = bufferFactory.allocateBuffer(PREDICTION_JSON.length);
+        buffer.write(PREDICTION_JSON);
+        return buffer;
+    }
+
+    private static void assumeAllocationCounting(ThreadMXBean threads) {
+        assumeTrue(threads.isThreadAllocatedMemorySupported(),
+                "Thread allocation counting is not supported on this JVM");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+}
@@ -0,0 +1,107 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.model.PredictionSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prediction Codec Tests")
+public class PredictionCodecTest {
+
+    private final PredictionCodec codec = PredictionCodec.json();
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should encode a request with the snake_case fields expected by the model server")
+    void encode_shouldWriteSnakeCaseFields() throws Exception {
+        DataBuffer buffer = codec.encode(new PredictionRequest(1L, 2L, "Hard", "A", 3, "R32"), bufferFactory);
+
+        JsonNode body = objectMapper.readTree(buffer.toString(StandardCharsets.UTF_8));
+        assertEquals(1L, body.get("player1_id").asLong());
+        assertEquals(2L, body.get("player2_id").asLong());
+        assertEquals("Hard", body.get("surface").asText());
+        assertEquals("A", body.get("tourney_level").asText());
+        assertEquals(3, body.get("best_of").asInt());
+        assertEquals("R32", body.get("round").asText());
+        assertEquals(6, body.size());
+    }
+
+    @Test
+    @DisplayName("Should encode a batch as a JSON array in request order")
+    void encodeBatch_shouldWriteArray() throws Exception {
+        DataBuffer buffer = codec.encodeBatch(List.of(
+                new PredictionRequest(1L, 2L, "Hard", "A", 3, "R32"),
+                new PredictionRequest(3L, 4L, "Clay", "G", 5, "F")), bufferFactory);
+
+        JsonNode body = objectMapper.readTree(buffer.toString(StandardCharsets.UTF_8));
+        assertTrue(body.isArray());
+        assertEquals(2, body.size());
+        assertEquals(3L, body.get(1).get("player1_id").asLong());
+        assertEquals("F", body.get(1).get("round").asText());
+    }
+
+    @Test
+    @DisplayName("Should decode a response, skipping unknown fields and keeping nulls")
+    void decode_shouldReadKnownFields() {
+        PredictionResponse response = codec.decode(buffer("{\"player1Name\":\"A\",\"extra\":{\"nested\":[1,2]},"
+                + "\"player2Name\":\"B\",\"player1WinProbability\":0.7,\"player2WinProbability\":\"0.3\","
+                + "\"winnerName\":\"A\",\"winnerId\":42,\"confidence\":null}"));
+
+        assertEquals("A", response.getPlayer1Name());
+        assertEquals("B", response.getPlayer2Name());
+        assertEquals(0.7f, response.getPlayer1WinProbability());
+        assertEquals(0.3f, response.getPlayer2WinProbability());
+        assertEquals("A", response.getWinnerName());
+        assertEquals(42L, response.getWinnerId());
+        assertNull(response.getConfidence());
+        assertEquals(PredictionSource.MODEL, response.getSource());
+    }
+
+    @Test
+    @DisplayName("Should ignore a source sent by the upstream and mark the prediction as coming from the model")
+    void decode_shouldIgnoreUpstreamSource() {
+        PredictionResponse unknown = codec.decode(buffer("{\"player1Name\":\"A\",\"source\":\"ENSEMBLE_V2\"}"));
+        PredictionResponse spoofed = codec.decode(buffer("{\"player1Name\":\"A\",\"source\":\"ELO_FALLBACK\"}"));
+        PredictionResponse nested = codec.decode(buffer("{\"source\":{\"name\":\"STALE_CACHE\"},\"player1Name\":\"A\"}"));
+
+        assertEquals(PredictionSource.MODEL, unknown.getSource());
+        assertEquals("A", unknown.getPlayer1Name());
+        assertEquals(PredictionSource.MODEL, spoofed.getSource());
+        assertEquals(PredictionSource.MODEL, nested.getSource());
+        assertEquals("A", nested.getPlayer1Name());
+    }
+
+    @Test
+    @DisplayName("Should decode a batch response in order")
+    void decodeBatch_shouldReadArray() {
+        List<PredictionResponse> responses = codec.decodeBatch(buffer("[{\"player1Name\":\"A\"},{\"player1Name\":\"C\"},{}]"));
+
+        assertEquals(3, responses.size());
+        assertEquals("A", responses.get(0).getPlayer1Name());
+        assertEquals("C", responses.get(1).getPlayer1Name());
+        assertNull(responses.get(2).getPlayer1Name());
+    }
+
+    @Test
+    @DisplayName("Should reject a response that is not a JSON object")
+    void decode_shouldRejectNonObject() {
+        assertThrows(UncheckedIOException.class, () -> codec.decode(buffer("[1,2]")));
+        assertThrows(UncheckedIOException.class, () -> codec.decodeBatch(buffer("{}")));
+    }
+
+    private DataBuffer buffer(String json) {
+        return bufferFactory.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,195 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prediction Disk Cache Tests")
+public class PredictionDiskCacheTest {
+
+    private static final Duration MAX_AGE = Duration.ofHours(1);
+    private static final MatchupKey KEY = MatchupKey.of(new PredictionRequest(1L, 2L, "Hard", "G", 5, "F"));
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong epochMillis = new AtomicLong(1_700_000_000_000L);
+    private final List<PredictionDiskCache> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(PredictionDiskCache::close);
+    }
+
+    @Test
+    @DisplayName("Should read entries written before a restart, with their age")
+    void get_shouldSurviveRestart() {
+        PredictionDiskCache diskCache = open(10, "v1");
+        diskCache.put(KEY, new PredictionResponse("Player One", "Player Two", 0.7f, 0.3f, "Player Two", 2L, null));
+        diskCache.close();
+        epochMillis.addAndGet(Duration.ofMinutes(3).toMillis());
+
+        Optional<PredictionDiskCache.Stored> stored = open(10, "v1").get(KEY);
+
+        assertTrue(stored.isPresent());
+        PredictionResponse response = stored.get().response();
+        assertEquals("Player One", response.getPlayer1Name());
+        assertEquals("Player Two", response.getPlayer2Name());
+        assertEquals(0.7f, response.getPlayer1WinProbability());
+        assertEquals(0.3f, response.getPlayer2WinProbability());
+        assertEquals("Player Two", response.getWinnerName());
+        assertEquals(2L, response.getWinnerId());
+        assertNull(response.getConfidence());
+        assertEquals(Duration.ofMinutes(3).toNanos(), stored.get().ageNanos());
+    }
+
+    @Test
+    @DisplayName("Should drop entries written for another model version")
+    void open_shouldDropOutdatedModelVersion() {
+        PredictionDiskCache diskCache = open(10, "v1");
+        diskCache.put(KEY, response(0.5f));
+        diskCache.close();
+
+        PredictionDiskCache upgraded = open(10, "v2");
+
+        assertEquals(0, upgraded.size());
+        assertTrue(upgraded.get(KEY).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should drop entries older than the maximum age")
+    void get_shouldDropExpiredEntries() {
+        PredictionDiskCache diskCache = open(10, "v1");
+        diskCache.put(KEY, response(0.5f));
+
+        epochMillis.addAndGet(MAX_AGE.toMillis());
+
+        assertTrue(diskCache.get(KEY).isEmpty());
+        diskCache.close();
+        assertEquals(0, open(10, "v1").size());
+    }
+
+    @Test
+    @DisplayName("Should serve the newest record for a matchup after a restart")
+    void open_shouldKeepNewestRecordPerMatchup() {
+        PredictionDiskCache diskCache = open(10, "v1");
+        diskCache.put(KEY, response(0.5f));
+        diskCache.put(KEY, response(0.6f));
+        diskCache.close();
+
+        PredictionDiskCache reopened = open(10, "v1");
+
+        assertEquals(1, reopened.size());
+        assertEquals(0.6f, reopened.get(KEY).orElseThrow().response().getPlayer1WinProbability());
+    }
+
+    @Test
+    @DisplayName("Should compact the log when it is full, keeping the most recent entries")
+    void put_shouldCompactWhenFull() {
+        PredictionDiskCache diskCache = open(4, "v1");
+        for (long id = 10; id < 15; id++) {
+            epochMillis.incrementAndGet();
+            diskCache.put(key(id), response(0.5f));
+        }
+        diskCache.flush();
+
+        assertEquals(1, diskCache.getCompactionCount());
+        assertEquals(3, diskCache.size());
+        assertTrue(diskCache.get(key(10)).isEmpty());
+        assertTrue(diskCache.get(key(11)).isEmpty());
+        diskCache.close();
+
+        PredictionDiskCache reopened = open(4, "v1");
+        assertEquals(3, reopened.size());
+        for (long id = 12; id < 15; id++) {
+            assertTrue(reopened.get(key(id)).isPresent());
+        }
+    }
+
+    @Test
+    @DisplayName("Should count a failed compaction, skip the write and keep serving the current log")
+    void put_whenCompactionFails_shouldCountFailureInsteadOfThrowing() throws IOException {
+        Files.createDirectories(directory.resolve("prediction-cache.bin.compact"));
+        PredictionDiskCache diskCache = open(4, "v1");
+        for (long id = 10; id < 15; id++) {
+            epochMillis.incrementAndGet();
+            diskCache.put(key(id), response(0.5f));
+        }
+        diskCache.flush();
+
+        assertEquals(1, diskCache.getFailureCount());
+        assertEquals(0, diskCache.getCompactionCount());
+        assertEquals(4, diskCache.size());
+        assertTrue(diskCache.get(key(10)).isPresent());
+        assertTrue(diskCache.get(key(14)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stop at a torn record and keep everything written before it")
+    void open_shouldIgnoreTornRecord() throws IOException {
+        PredictionDiskCache diskCache = open(10, "v1");
+        diskCache.put(key(10), response(0.5f));
+        diskCache.put(key(11), response(0.5f));
+        diskCache.close();
+        try (RandomAccessFile file = new RandomAccessFile(path().toFile(), "rw")) {
+            long secondRecordName = 16 + PredictionDiskCache.RECORD_SIZE + 90;
+            file.seek(secondRecordName);
+            file.write('X');
+        }
+
+        PredictionDiskCache reopened = open(10, "v1");
+
+        assertEquals(1, reopened.size());
+        assertTrue(reopened.get(key(10)).isPresent());
+        assertTrue(reopened.get(key(11)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should warm a new prediction cache from disk without new writes")
+    void predictionCache_shouldBeWarmAfterRestart() {
+        PredictionDiskCache diskCache = open(10, "v1");
+        new PredictionCache(10, Duration.ofMinutes(30), Duration.ZERO, diskCache, System::nanoTime).put(KEY, response(0.8f));
+        diskCache.close();
+
+        PredictionDiskCache reopened = open(10, "v1");
+        PredictionCache restarted = new PredictionCache(10, Duration.ofMinutes(30), Duration.ZERO, reopened, System::nanoTime);
+
+        assertEquals(0.8f, restarted.get(KEY).orElseThrow().getPlayer1WinProbability());
+        assertEquals(1, restarted.stats().hits());
+        assertEquals(1, restarted.stats().diskLoads());
+        assertEquals(0, reopened.getAppendCount());
+    }
+
+    private PredictionDiskCache open(int maxEntries, String modelVersion) {
+        PredictionDiskCache diskCache = new PredictionDiskCache(true, path(), maxEntries, modelVersion, MAX_AGE, epochMillis::get);
+        opened.add(diskCache);
+        return diskCache;
+    }
+
+    private Path path() {
+        return directory.resolve("prediction-cache.bin");
+    }
+
+    private static MatchupKey key(long playerId) {
+        return MatchupKey.of(new PredictionRequest(playerId, playerId + 100, "Clay", "A", 3, "R32"));
+    }
+
+    private static PredictionResponse response(float player1WinProbability) {
+        return new PredictionResponse("One", "Two", player1WinProbability, 1 - player1WinProbability, "One", 1L, 0.1f);
+    }
+}
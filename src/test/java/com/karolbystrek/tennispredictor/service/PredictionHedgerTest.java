@@ -0,0 +1,111 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prediction Hedger Tests")
+public class PredictionHedgerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should answer from the hedge and cancel the slow original attempt")
+    void hedge_shouldUseFasterHedgeAndCancelOriginal() {
+        PredictionHedger hedger = new PredictionHedger(meterRegistry, true, 0.95, Duration.ofMillis(50), 0.05);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean originalCancelled = new AtomicBoolean();
+
+        long start = System.nanoTime();
+        String result = hedger.hedge(() -> attempts.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(5)).map(tick -> "original").doOnCancel(() -> originalCancelled.set(true))
+                : Mono.just("hedge")).block();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("hedge", result);
+        assertEquals(2, attempts.get());
+        assertTrue(originalCancelled.get());
+        assertTrue(elapsedMs < 2_000, "Hedged call took " + elapsedMs + " ms");
+        assertEquals(1, hedger.getHedgeCount());
+        assertEquals(1.0, meterRegistry.get("prediction.upstream.hedges.won").counter().count());
+        assertEquals(1, meterRegistry.get("prediction.upstream.latency").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should not hedge calls that answer before the hedge delay")
+    void hedge_shouldNotHedgeFastCalls() {
+        PredictionHedger hedger = new PredictionHedger(meterRegistry, true, 0.95, Duration.ofMillis(500), 0.05);
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("fast", hedger.hedge(() -> {
+                attempts.incrementAndGet();
+                return Mono.just("fast");
+            }).block());
+        }
+
+        assertEquals(10, attempts.get());
+        assertEquals(0, hedger.getHedgeCount());
+        assertEquals(10, meterRegistry.get("prediction.upstream.attempt").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should propagate an error from the original attempt without waiting for a hedge")
+    void hedge_shouldPropagateOriginalError() {
+        PredictionHedger hedger = new PredictionHedger(meterRegistry, true, 0.95, Duration.ofSeconds(5), 0.05);
+        AtomicInteger attempts = new AtomicInteger();
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class, () -> hedger.hedge(() -> {
+            attempts.incrementAndGet();
+            return Mono.<String>error(new PredictionServiceException("boom", 500));
+        }).block(Duration.ofSeconds(1)));
+
+        assertEquals(500, exception.getStatusCode());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Should cap extra attempts at the hedge budget when every call is slow")
+    void hedge_shouldRespectBudget() {
+        PredictionHedger hedger = new PredictionHedger(meterRegistry, true, 0.95, Duration.ofMillis(10), 0.05);
+        AtomicInteger attempts = new AtomicInteger();
+        int calls = 400;
+
+        Flux.range(0, calls)
+                .flatMap(i -> hedger.hedge(() -> {
+                    attempts.incrementAndGet();
+                    return Mono.delay(Duration.ofMillis(100)).thenReturn(i);
+                }), calls)
+                .blockLast(Duration.ofSeconds(10));
+
+        long hedges = attempts.get() - calls;
+        assertEquals(hedges, hedger.getHedgeCount());
+        assertTrue(hedges > 0);
+        assertTrue(hedges <= 10 + calls * 0.05, "Sent " + hedges + " hedges for " + calls + " calls");
+    }
+
+    @Test
+    @DisplayName("Should send exactly one attempt per call when hedging is disabled")
+    void hedge_shouldPassThroughWhenDisabled() {
+        PredictionHedger hedger = new PredictionHedger(meterRegistry, false, 0.95, Duration.ofMillis(1), 0.05);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.hedge(() -> {
+            attempts.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(100)).thenReturn("only");
+        }).block();
+
+        assertEquals("only", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0, hedger.getHedgeCount());
+    }
+}
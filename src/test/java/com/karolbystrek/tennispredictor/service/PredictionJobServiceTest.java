@@ -0,0 +1,181 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.BatchPredictionResult;
+import com.karolbystrek.tennispredictor.model.PredictionJob;
+import com.karolbystrek.tennispredictor.model.PredictionJobStatus;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Prediction Job Service Tests")
+public class PredictionJobServiceTest {
+
+    private final BatchPredictionService batchPredictionService = mock(BatchPredictionService.class);
+    private PredictionJobService predictionJobService;
+
+    @AfterEach
+    void tearDown() {
+        if (predictionJobService != null) {
+            predictionJobService.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should return a queued job immediately and complete it with results in request order")
+    void submit_ShouldCompleteJobWithOrderedResults() throws InterruptedException {
+        when(batchPredictionService.predictJobEntry(anyInt(), any())).thenAnswer(invocation -> {
+            int index = invocation.getArgument(0);
+            PredictionResponse response = new PredictionResponse("P" + index, "Q", 0.6f, 0.4f, "P" + index, 1L, 0.2f);
+            // Later entries finish first, so ordering comes from the job rather than completion time
+            return Mono.just(BatchPredictionResult.success(index, response)).delayElement(Duration.ofMillis(50L * (5 - index)));
+        });
+        predictionJobService = new PredictionJobService(batchPredictionService, 1, 10, 5, 100,
+                Duration.ofHours(1), Duration.ofSeconds(5), System::currentTimeMillis);
+
+        PredictionJob submitted = predictionJobService.submit(requests(5));
+
+        assertNotNull(submitted.getId());
+        assertEquals(5, submitted.getTotal());
+        assertNull(submitted.getResults());
+
+        PredictionJob completed = awaitCompletion(submitted.getId());
+        assertEquals(5, completed.getCompleted());
+        assertNotNull(completed.getStartedAt());
+        assertNotNull(completed.getCompletedAt());
+        assertEquals(List.of(0, 1, 2, 3, 4), completed.getResults().stream().map(BatchPredictionResult::getIndex).toList());
+        assertEquals("P3", completed.getResults().get(3).getPrediction().getPlayer1Name());
+    }
+
+    @Test
+    @DisplayName("Should keep at most concurrency-per-job predictions of a job in flight")
+    void submit_ShouldBoundInFlightPredictionsPerJob() throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(batchPredictionService.predictJobEntry(anyInt(), any())).thenAnswer(invocation -> {
+            int index = invocation.getArgument(0);
+            return Mono.defer(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return Mono.delay(Duration.ofMillis(20))
+                        .doOnNext(tick -> inFlight.decrementAndGet())
+                        .map(tick -> BatchPredictionResult.failure(index, 503, "unavailable"));
+            });
+        });
+        predictionJobService = new PredictionJobService(batchPredictionService, 1, 10, 3, 100,
+                Duration.ofHours(1), Duration.ofSeconds(5), System::currentTimeMillis);
+
+        PredictionJob completed = awaitCompletion(predictionJobService.submit(requests(12)).getId());
+
+        assertEquals(12, completed.getResults().size());
+        assertTrue(maxInFlight.get() <= 3, "At most 3 predictions should be in flight, saw " + maxInFlight.get());
+    }
+
+    @Test
+    @DisplayName("Should reject jobs with 429 and Retry-After once the queue is full")
+    void submit_WhenQueueIsFull_ShouldRejectWith429() throws InterruptedException {
+        Sinks.One<BatchPredictionResult> blocker = Sinks.one();
+        when(batchPredictionService.predictJobEntry(anyInt(), any())).thenReturn(blocker.asMono());
+        predictionJobService = new PredictionJobService(batchPredictionService, 1, 1, 1, 100,
+                Duration.ofHours(1), Duration.ofSeconds(7), System::currentTimeMillis);
+
+        String running = predictionJobService.submit(requests(1)).getId();
+        awaitStatus(running, PredictionJobStatus.RUNNING);
+        predictionJobService.submit(requests(1));
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class,
+                () -> predictionJobService.submit(requests(1)));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), exception.getStatusCode());
+        assertEquals(Duration.ofSeconds(7), exception.getRetryAfter().orElseThrow());
+        assertEquals(1, predictionJobService.getQueuedJobCount());
+        blocker.tryEmitValue(BatchPredictionResult.failure(0, 503, "unavailable"));
+    }
+
+    @Test
+    @DisplayName("Should reject jobs larger than the configured maximum with 400")
+    void submit_WhenJobIsTooLarge_ShouldRejectWith400() {
+        predictionJobService = new PredictionJobService(batchPredictionService, 1, 1, 1, 2,
+                Duration.ofHours(1), Duration.ofSeconds(5), System::currentTimeMillis);
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class,
+                () -> predictionJobService.submit(requests(3)));
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), exception.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should purge finished jobs once their retention has elapsed")
+    void purgeFinishedJobs_ShouldDropExpiredJobs() throws InterruptedException {
+        when(batchPredictionService.predictJobEntry(anyInt(), any()))
+                .thenReturn(Mono.just(BatchPredictionResult.failure(0, 404, "Player not found")));
+        AtomicLong epochMillis = new AtomicLong(1_700_000_000_000L);
+        predictionJobService = new PredictionJobService(batchPredictionService, 1, 1, 1, 100,
+                Duration.ofMinutes(10), Duration.ofSeconds(5), epochMillis::get);
+
+        String id = awaitCompletion(predictionJobService.submit(requests(1)).getId()).getId();
+
+        epochMillis.addAndGet(Duration.ofMinutes(5).toMillis());
+        predictionJobService.purgeFinishedJobs();
+        assertTrue(predictionJobService.find(id).isPresent());
+
+        epochMillis.addAndGet(Duration.ofMinutes(6).toMillis());
+        predictionJobService.purgeFinishedJobs();
+        assertTrue(predictionJobService.find(id).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should mark the job failed with the error when it fails as a whole")
+    void submit_WhenJobFails_ShouldMarkItFailed() throws InterruptedException {
+        when(batchPredictionService.predictJobEntry(anyInt(), any())).thenThrow(new IllegalStateException("prediction pipeline unavailable"));
+        predictionJobService = new PredictionJobService(batchPredictionService, 1, 10, 5, 100,
+                Duration.ofHours(1), Duration.ofSeconds(5), System::currentTimeMillis);
+
+        PredictionJob submitted = predictionJobService.submit(requests(3));
+
+        PredictionJob failed = awaitStatus(submitted.getId(), PredictionJobStatus.FAILED);
+        assertEquals("prediction pipeline unavailable", failed.getError());
+        assertNotNull(failed.getCompletedAt());
+        assertNull(failed.getResults());
+    }
+
+    private PredictionJob awaitCompletion(String id) throws InterruptedException {
+        return awaitStatus(id, PredictionJobStatus.COMPLETED);
+    }
+
+    private PredictionJob awaitStatus(String id, PredictionJobStatus status) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            PredictionJob job = predictionJobService.find(id).orElseThrow();
+            if (job.getStatus() == status) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        fail("Job " + id + " did not reach " + status);
+        return null;
+    }
+
+    private static List<PredictionRequest> requests(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new PredictionRequest((long) i + 1, (long) i + 100, "Hard", "G", 5, "R128"))
+                .toList();
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Simulates a small servlet worker pool in front of a model server that adds 500 ms of latency, and
+ * compares the blocking {@link PredictionService#predict} path with the non-blocking
+ * {@link PredictionService#predictAsync} path.
+ */
+@Tag("benchmark")
+@DisplayName("Prediction Load Tests")
+public class PredictionLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionLoadTest.class);
+    private static final long UPSTREAM_LATENCY_MS = 500;
+    private static final int WORKER_THREADS = 4;
+    private static final int CONCURRENT_REQUESTS = 16;
+
+    private MockWebServer mockWebServer;
+    private PredictionService predictionService;
+    private ExecutorService workerPool;
+    private long nextPlayerId = 1;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setResponseCode(HttpStatus.OK.value())
+                        .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .setBody("{\"player1Name\":\"A\",\"player2Name\":\"B\",\"player1WinProbability\":0.5,"
+                                + "\"player2WinProbability\":0.5,\"winnerName\":\"A\",\"winnerId\":1,\"confidence\":0.0}")
+                        .setHeadersDelay(UPSTREAM_LATENCY_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+        mockWebServer.start();
+        String baseUrl = String.format("http://localhost:%s", mockWebServer.getPort());
+        predictionService = PredictionServiceFixtures.predictionService(baseUrl)
+                .withoutCache()
+                .build();
+        workerPool = Executors.newFixedThreadPool(WORKER_THREADS);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        workerPool.shutdownNow();
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Non-blocking path should keep throughput when the upstream adds 500 ms of latency")
+    void predictAsync_shouldSustainThroughput_whenUpstreamIsSlow() {
+        predictionService.predictAsync(nextRequest()).block();
+
+        long blockingMs = timeBlockingRequests();
+        long nonBlockingMs = timeNonBlockingRequests();
+
+        double blockingThroughput = CONCURRENT_REQUESTS * 1000.0 / blockingMs;
+        double nonBlockingThroughput = CONCURRENT_REQUESTS * 1000.0 / nonBlockingMs;
+        log.info("{} requests, {} workers, {} ms upstream latency: blocking {} ms ({} req/s), non-blocking {} ms ({} req/s)",
+                CONCURRENT_REQUESTS, WORKER_THREADS, UPSTREAM_LATENCY_MS,
+                blockingMs, String.format("%.1f", blockingThroughput),
+                nonBlockingMs, String.format("%.1f", nonBlockingThroughput));
+
+        assertTrue(blockingMs >= UPSTREAM_LATENCY_MS * CONCURRENT_REQUESTS / WORKER_THREADS,
+                "Blocking path finished in " + blockingMs + " ms");
+        assertTrue(nonBlockingMs < UPSTREAM_LATENCY_MS * 3,
+                "Non-blocking path finished in " + nonBlockingMs + " ms");
+        assertTrue(nonBlockingThroughput > blockingThroughput * 2);
+    }
+
+    private long timeBlockingRequests() {
+        List<CompletableFuture<PredictionResponse>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            PredictionRequest request = nextRequest();
+            futures.add(CompletableFuture.supplyAsync(() -> predictionService.predictAsync(request).block(), workerPool));
+        }
+        futures.forEach(future -> assertNotNull(future.join()));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private long timeNonBlockingRequests() {
+        List<CompletableFuture<PredictionResponse>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            PredictionRequest request = nextRequest();
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> predictionService.predictAsync(request), workerPool)
+                    .thenCompose(Mono::toFuture));
+        }
+        futures.forEach(future -> assertNotNull(future.join()));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private PredictionRequest nextRequest() {
+        long player1Id = nextPlayerId++;
+        long player2Id = nextPlayerId++;
+        return new PredictionRequest(player1Id, player2Id, "Hard", "A", 3, "R32");
+    }
+}
@@ -0,0 +1,95 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.Player;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.repository.PlayerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Prediction Matrix Refresher Tests")
+public class PredictionMatrixRefresherTest {
+
+    private PlayerRepository playerRepository;
+    private PredictionService predictionService;
+    private PredictionMatrixStore predictionMatrixStore;
+
+    @BeforeEach
+    void setUp() {
+        playerRepository = mock(PlayerRepository.class);
+        predictionService = mock(PredictionService.class);
+        predictionMatrixStore = new PredictionMatrixStore();
+        when(playerRepository.findByRankIsNotNullOrderByRankAsc(any(Limit.class))).thenReturn(List.of(
+                player(30L), player(10L), player(20L)));
+        when(predictionService.fetchFromModel(any(PredictionRequest.class))).thenAnswer(invocation -> {
+            PredictionRequest request = invocation.getArgument(0);
+            if (request.getPlayer1Id() == 20L && request.getPlayer2Id() == 30L && "Clay".equals(request.getSurface())) {
+                return Mono.error(new PredictionServiceException("unavailable", 503));
+            }
+            float probability = request.getPlayer1Id() == 10L ? 0.7f : 0.55f;
+            return Mono.just(new PredictionResponse("P" + request.getPlayer1Id(), "P" + request.getPlayer2Id(),
+                    probability, 1 - probability, "P" + request.getPlayer1Id(), request.getPlayer1Id(), 0.4f));
+        });
+    }
+
+    @Test
+    @DisplayName("Should fetch every pair once per surface and publish the matrix")
+    void refreshMatrix_shouldPublishEveryPairPerSurface() {
+        refresher(true).refreshMatrix();
+
+        verify(playerRepository).findByRankIsNotNullOrderByRankAsc(Limit.of(3));
+        verify(predictionService, times(6)).fetchFromModel(any(PredictionRequest.class));
+        verify(predictionService, never()).fetchFromModel(argThat(request -> request.getPlayer1Id() > request.getPlayer2Id()));
+        PredictionMatrix matrix = predictionMatrixStore.current();
+        assertEquals(3, matrix.playerCount());
+        assertEquals(2, matrix.surfaceCount());
+
+        PredictionResponse reversed = predictionMatrixStore.lookup(new PredictionRequest(30L, 10L, "Hard", "A", 3, "R32")).orElseThrow();
+        assertEquals("P30", reversed.getPlayer1Name());
+        assertEquals("P10", reversed.getPlayer2Name());
+        assertEquals(0.3f, reversed.getPlayer1WinProbability(), 1e-6f);
+        assertEquals(10L, reversed.getWinnerId());
+    }
+
+    @Test
+    @DisplayName("Should leave out matchups the model failed to predict and keep the rest")
+    void refreshMatrix_shouldSkipFailedMatchups() {
+        refresher(true).refreshMatrix();
+
+        assertTrue(predictionMatrixStore.lookup(new PredictionRequest(20L, 30L, "Clay", "A", 3, "R32")).isEmpty());
+        assertTrue(predictionMatrixStore.lookup(new PredictionRequest(20L, 30L, "Hard", "A", 3, "R32")).isPresent());
+        assertTrue(predictionMatrixStore.lookup(new PredictionRequest(10L, 30L, "Clay", "A", 3, "R32")).isPresent());
+        assertTrue(predictionMatrixStore.lookup(new PredictionRequest(10L, 99L, "Clay", "A", 3, "R32")).isEmpty());
+        assertTrue(predictionMatrixStore.lookup(new PredictionRequest(10L, 30L, "Grass", "A", 3, "R32")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not call the repository or the model when disabled")
+    void refreshMatrix_shouldDoNothingWhenDisabled() {
+        refresher(false).refreshMatrix();
+
+        verifyNoInteractions(playerRepository, predictionService);
+        assertSame(PredictionMatrix.EMPTY, predictionMatrixStore.current());
+    }
+
+    private PredictionMatrixRefresher refresher(boolean enabled) {
+        return new PredictionMatrixRefresher(playerRepository, predictionService, predictionMatrixStore, enabled,
+                3, List.of("Hard", "Clay"), "A", 3, "R32", 2);
+    }
+
+    private static Player player(long playerId) {
+        Player player = new Player();
+        player.setPlayerId(playerId);
+        return player;
+    }
+}
@@ -0,0 +1,110 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.repository.PlayerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Shared test wiring for {@link PredictionService}. Every collaborator defaults to what most tests want: a small
+ * cache, no batching or hedging, no Elo fallback and an upstream guard that never trips. Tests override only the
+ * collaborators they exercise, so a new constructor argument is added here instead of at every call site.
+ */
+final class PredictionServiceFixtures {
+
+    static final String API_KEY = "test-api-key";
+    static final String PREDICT_PATH = "/predict";
+    static final String BATCH_PATH = "/predict/batch";
+
+    private PredictionServiceFixtures() {
+    }
+
+    static Builder predictionService(String baseUrl) {
+        return new Builder(baseUrl);
+    }
+
+    static PredictionUpstreamGuard permissiveUpstreamGuard() {
+        return new PredictionUpstreamGuard(5, Duration.ofSeconds(10), 2, 1000, 1, 1000, Duration.ofSeconds(10), 0.9, Duration.ofSeconds(1));
+    }
+
+    static PredictionHedger disabledHedger() {
+        return new PredictionHedger(new SimpleMeterRegistry(), false, 0.95, Duration.ofMillis(50), 0.05);
+    }
+
+    static final class Builder {
+
+        private final String baseUrl;
+        private WebClient.Builder webClientBuilder = WebClient.builder();
+        private Duration timeout = Duration.ofSeconds(10);
+        private PredictionCache predictionCache = new PredictionCache(100, Duration.ofMinutes(5));
+        private PredictionMatrixStore predictionMatrixStore = new PredictionMatrixStore();
+        private PredictionUpstreamGuard upstreamGuard = permissiveUpstreamGuard();
+        private PredictionHedger hedger = disabledHedger();
+        private EloPredictionEngine eloPredictionEngine = new EloPredictionEngine(mock(PlayerRepository.class), false);
+        private PredictionAdmission predictionAdmission = new PredictionAdmission(64, 256, Duration.ofSeconds(2), Duration.ofSeconds(1));
+        private boolean batching;
+
+        private Builder(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        Builder webClientBuilder(WebClient.Builder webClientBuilder) {
+            this.webClientBuilder = webClientBuilder;
+            return this;
+        }
+
+        Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        Builder predictionCache(PredictionCache predictionCache) {
+            this.predictionCache = predictionCache;
+            return this;
+        }
+
+        Builder withoutCache() {
+            return predictionCache(new PredictionCache(0, Duration.ZERO));
+        }
+
+        Builder predictionMatrixStore(PredictionMatrixStore predictionMatrixStore) {
+            this.predictionMatrixStore = predictionMatrixStore;
+            return this;
+        }
+
+        Builder upstreamGuard(PredictionUpstreamGuard upstreamGuard) {
+            this.upstreamGuard = upstreamGuard;
+            return this;
+        }
+
+        Builder hedger(PredictionHedger hedger) {
+            this.hedger = hedger;
+            return this;
+        }
+
+        Builder eloPredictionEngine(EloPredictionEngine eloPredictionEngine) {
+            this.eloPredictionEngine = eloPredictionEngine;
+            return this;
+        }
+
+        Builder predictionAdmission(PredictionAdmission predictionAdmission) {
+            this.predictionAdmission = predictionAdmission;
+            return this;
+        }
+
+        Builder batching(boolean batching) {
+            this.batching = batching;
+            return this;
+        }
+
+        PredictionService build() {
+            return new PredictionService(
+                    new PredictionClient(webClientBuilder, baseUrl, API_KEY, PREDICT_PATH, BATCH_PATH, timeout),
+                    predictionCache, predictionMatrixStore, upstreamGuard, hedger, eloPredictionEngine,
+                    predictionAdmission, batching, 32, Duration.ofMillis(5));
+        }
+    }
+}
@@ -6,7 +6,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.karolbystrek.tennispredictor.exceptions.PlayerNotFoundException;
 import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
 import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.Player;
 import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.model.PredictionSource;
+import com.karolbystrek.tennispredictor.repository.PlayerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -18,28 +22,57 @@ import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @DisplayName("Prediction Service Tests")
 public class PredictionServiceTest {
 
     private final static String TEST_API_KEY = "test-api-key";
     private final static String TEST_PREDICT_PATH = "/predict";
+    private final static Duration TEST_TIMEOUT = Duration.ofSeconds(1);
+    private final static long RATED_PLAYER1_ID = 31L;
+    private final static long RATED_PLAYER2_ID = 32L;
 
     private static MockWebServer mockWebServer;
     private static ObjectMapper objectMapper;
 
+    private PredictionMatrixStore predictionMatrixStore;
     private PredictionService predictionService;
 
     @BeforeAll
-    static void setUpServer() throws IOException {
+    static void setUpServer() throws IOException, InterruptedException {
         mockWebServer = new MockWebServer();
         objectMapper = new ObjectMapper();
         mockWebServer.start();
+        // The first call pays for starting Netty, which must not count against the short TEST_TIMEOUT
+        mockWebServer.enqueue(predictionResponse(new PredictionResponse("Warm", "Up", 0.5f, 0.5f, "Warm", 1L, 0.0f)));
+        PredictionServiceFixtures.predictionService(String.format("http://localhost:%s", mockWebServer.getPort()))
+                .withoutCache()
+                .build()
+                .predictAsync(new PredictionRequest(1L, 2L, "Hard", "G", 3, "F"))
+                .block();
+        mockWebServer.takeRequest();
     }
 
     @AfterAll
@@ -50,8 +83,220 @@ public class PredictionServiceTest {
     @BeforeEach
     void setUp() {
         String baseUrl = String.format("http://localhost:%s", mockWebServer.getPort());
-        WebClient.Builder webClientBuilder = WebClient.builder();
-        predictionService = new PredictionService(webClientBuilder, baseUrl, TEST_API_KEY, TEST_PREDICT_PATH);
+        PredictionCache predictionCache = new PredictionCache(100, Duration.ofMinutes(5));
+        PlayerRepository playerRepository = mock(PlayerRepository.class);
+        when(playerRepository.findAll()).thenReturn(List.of(
+                ratedPlayer(RATED_PLAYER1_ID, "Rated", "One", 2100),
+                ratedPlayer(RATED_PLAYER2_ID, "Rated", "Two", 1900)));
+        EloPredictionEngine eloPredictionEngine = new EloPredictionEngine(playerRepository, true);
+        eloPredictionEngine.refreshRatings();
+        predictionMatrixStore = new PredictionMatrixStore();
+        predictionService = PredictionServiceFixtures.predictionService(baseUrl)
+                .timeout(TEST_TIMEOUT)
+                .predictionCache(predictionCache)
+                .predictionMatrixStore(predictionMatrixStore)
+                .eloPredictionEngine(eloPredictionEngine)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should serve an Elo fallback prediction when the API is unavailable (503)")
+    void predict_shouldServeEloFallback_whenApiIsUnavailable() throws InterruptedException {
+        PredictionRequest request = new PredictionRequest(RATED_PLAYER2_ID, RATED_PLAYER1_ID, "Hard", "G", 5, "F");
+
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody("{\"error\":\"Service unavailable\"}"));
+
+        PredictionResponse response = predictionService.predictAsync(request).block();
+
+        assertEquals(PredictionSource.ELO_FALLBACK, response.getSource());
+        assertEquals("Rated Two", response.getPlayer1Name());
+        assertEquals("Rated One", response.getPlayer2Name());
+        assertTrue(response.getPlayer2WinProbability() > response.getPlayer1WinProbability());
+        assertEquals(RATED_PLAYER1_ID, response.getWinnerId());
+        assertEquals(1, predictionService.getFallbackPredictionCount());
+        mockWebServer.takeRequest();
+    }
+
+    @Test
+    @DisplayName("Should throw PredictionServiceException with 504 when the API does not answer in time")
+    void predict_shouldThrowGatewayTimeout_whenApiIsTooSlow() throws IOException {
+        PredictionRequest request = new PredictionRequest(1L, 2L, "Hard", "G", 3, "F");
+
+        try (MockWebServer slowServer = new MockWebServer()) {
+            slowServer.enqueue(new MockResponse()
+                    .setResponseCode(HttpStatus.OK.value())
+                    .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .setBody("{}")
+                    .setHeadersDelay(TEST_TIMEOUT.toMillis() * 2, TimeUnit.MILLISECONDS));
+            slowServer.start();
+            PredictionService slowPredictionService = PredictionServiceFixtures
+                    .predictionService(String.format("http://localhost:%s", slowServer.getPort()))
+                    .timeout(TEST_TIMEOUT)
+                    .build();
+
+            PredictionServiceException exception = assertThrows(
+                    PredictionServiceException.class,
+                    () -> slowPredictionService.predictAsync(request).block());
+
+            assertEquals(HttpStatus.GATEWAY_TIMEOUT.value(), exception.getStatusCode());
+            assertTrue(exception.getMessage().contains("timed out"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer from the precomputed matrix without calling the API when the configuration matches")
+    void predict_shouldServePrecomputedMatchupFromMatrix() {
+        PredictionResponse modelResponse = new PredictionResponse("Forty One", "Forty Two", 0.8f, 0.2f, "Forty One", 41L, 0.6f);
+        predictionMatrixStore.replace(PredictionMatrix.builder(new long[]{41L, 42L}, "A", 3, "R32")
+                .record("Hard", 41L, 42L, modelResponse)
+                .build());
+        int requestCountBefore = mockWebServer.getRequestCount();
+
+        PredictionResponse reversed = predictionService.predictAsync(new PredictionRequest(42L, 41L, "hard", "a", 3, "r32")).block();
+
+        assertEquals(0, mockWebServer.getRequestCount() - requestCountBefore);
+        assertEquals(1, predictionMatrixStore.getHitCount());
+        assertEquals("Forty Two", reversed.getPlayer1Name());
+        assertEquals(0.2f, reversed.getPlayer1WinProbability(), 1e-6f);
+        assertEquals(0.8f, reversed.getPlayer2WinProbability(), 1e-6f);
+        assertEquals(41L, reversed.getWinnerId());
+        assertEquals(0.6f, reversed.getConfidence());
+        assertTrue(predictionMatrixStore.lookup(new PredictionRequest(41L, 42L, "Hard", "A", 5, "R32")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should fail fast with 503 and Retry-After once the circuit opens after repeated upstream failures")
+    void predict_shouldFailFast_whenCircuitIsOpen() throws IOException {
+        try (MockWebServer failingServer = new MockWebServer()) {
+            for (int i = 0; i < 2; i++) {
+                failingServer.enqueue(new MockResponse()
+                        .setResponseCode(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                        .setBody("{\"error\":\"boom\"}"));
+            }
+            failingServer.start();
+            PredictionService guardedPredictionService = PredictionServiceFixtures
+                    .predictionService(String.format("http://localhost:%s", failingServer.getPort()))
+                    .upstreamGuard(new PredictionUpstreamGuard(2, Duration.ofSeconds(30), 1, 10, 1, 10, Duration.ofSeconds(10), 0.9, Duration.ofSeconds(1)))
+                    .build();
+
+            for (int i = 0; i < 2; i++) {
+                PredictionRequest request = new PredictionRequest(50L + i, 60L, "Hard", "G", 3, "F");
+                assertThrows(PredictionServiceException.class, () -> guardedPredictionService.predictAsync(request).block());
+            }
+            PredictionServiceException rejected = assertThrows(PredictionServiceException.class,
+                    () -> guardedPredictionService.predictAsync(new PredictionRequest(70L, 80L, "Hard", "G", 3, "F")).block());
+
+            assertEquals(2, failingServer.getRequestCount());
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), rejected.getStatusCode());
+            assertTrue(rejected.getRetryAfter().isPresent());
+            assertTrue(rejected.getRetryAfter().get().compareTo(Duration.ofSeconds(25)) > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve a stale prediction while the API is unavailable and refresh it at batch priority once the API recovers")
+    void predict_shouldServeStalePrediction_andRevalidateAfterRecovery() throws IOException, InterruptedException {
+        AtomicLong nanoTime = new AtomicLong();
+        PredictionCache staleCache = new PredictionCache(100, Duration.ofMinutes(5), Duration.ofHours(1), nanoTime::get);
+        MatchupKey key = MatchupKey.of(new PredictionRequest(10L, 11L, "Hard", "G", 3, "F"));
+        PredictionAdmission predictionAdmission = spy(new PredictionAdmission(64, 256, Duration.ofSeconds(2), Duration.ofSeconds(1)));
+        try (MockWebServer flakyServer = new MockWebServer()) {
+            flakyServer.enqueue(predictionResponse(new PredictionResponse("Ten", "Eleven", 0.6f, 0.4f, "Ten", 10L, 0.2f)));
+            flakyServer.enqueue(new MockResponse().setResponseCode(HttpStatus.SERVICE_UNAVAILABLE.value()));
+            flakyServer.enqueue(predictionResponse(new PredictionResponse("Twelve", "Thirteen", 0.5f, 0.5f, "Twelve", 12L, 0.0f)));
+            flakyServer.enqueue(predictionResponse(new PredictionResponse("Ten", "Eleven", 0.65f, 0.35f, "Ten", 10L, 0.3f)));
+            flakyServer.start();
+            PredictionService staleServingPredictionService = PredictionServiceFixtures
+                    .predictionService(String.format("http://localhost:%s", flakyServer.getPort()))
+                    .predictionCache(staleCache)
+                    .predictionAdmission(predictionAdmission)
+                    .build();
+
+            staleServingPredictionService.predictAsync(new PredictionRequest(10L, 11L, "Hard", "G", 3, "F")).block();
+            nanoTime.addAndGet(Duration.ofMinutes(10).toNanos());
+            PredictionResponse stale = staleServingPredictionService.predictAsync(new PredictionRequest(11L, 10L, "Hard", "G", 3, "F")).block();
+
+            assertEquals(PredictionSource.STALE_CACHE, stale.getSource());
+            assertEquals("Eleven", stale.getPlayer1Name());
+            assertEquals(0.4f, stale.getPlayer1WinProbability());
+            assertEquals(1, staleServingPredictionService.getStalePredictionCount());
+            assertEquals(1, staleServingPredictionService.getPendingRevalidationCount());
+
+            staleServingPredictionService.predictAsync(new PredictionRequest(12L, 13L, "Hard", "G", 3, "F")).block();
+            long deadline = System.nanoTime() + TEST_TIMEOUT.toNanos();
+            while (staleServingPredictionService.getPendingRevalidationCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(0, staleServingPredictionService.getPendingRevalidationCount());
+            assertEquals(4, flakyServer.getRequestCount());
+            assertEquals(0.65f, staleCache.get(key).orElseThrow().getPlayer1WinProbability());
+            verify(predictionAdmission).admit(eq(PredictionPriority.BATCH), any());
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer from a hedged request when the first upstream request is slow")
+    void predict_shouldUseHedgedRequest_whenFirstRequestIsSlow() throws IOException, JsonProcessingException {
+        String body = objectMapper.writeValueAsString(new PredictionResponse("Ninety", "Ninety One", 0.5f, 0.5f, "Ninety", 90L, 0.0f));
+        try (MockWebServer slowOnceServer = new MockWebServer()) {
+            slowOnceServer.enqueue(new MockResponse()
+                    .setResponseCode(HttpStatus.OK.value())
+                    .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .setBody(body)
+                    .setHeadersDelay(5, TimeUnit.SECONDS));
+            slowOnceServer.enqueue(new MockResponse()
+                    .setResponseCode(HttpStatus.OK.value())
+                    .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .setBody(body));
+            slowOnceServer.start();
+            PredictionHedger hedger = new PredictionHedger(new SimpleMeterRegistry(), true, 0.95, Duration.ofMillis(100), 0.05);
+            PredictionService hedgedPredictionService = PredictionServiceFixtures
+                    .predictionService(String.format("http://localhost:%s", slowOnceServer.getPort()))
+                    .hedger(hedger)
+                    .build();
+
+            long start = System.nanoTime();
+            PredictionResponse response = hedgedPredictionService.predictAsync(new PredictionRequest(90L, 91L, "Hard", "G", 3, "F")).block();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals("Ninety", response.getPlayer1Name());
+            assertEquals(2, slowOnceServer.getRequestCount());
+            assertEquals(1, hedger.getHedgeCount());
+            assertTrue(elapsedMs < 4_000, "Hedged prediction took " + elapsedMs + " ms");
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve repeated and reversed matchups from the cache without calling the API again")
+    void predict_shouldServeRepeatedMatchupFromCache() throws JsonProcessingException, InterruptedException {
+        PredictionRequest request = new PredictionRequest(1L, 2L, "Hard", "G", 3, "F");
+        PredictionRequest reversedRequest = new PredictionRequest(2L, 1L, "Hard", "G", 3, "F");
+        PredictionResponse upstreamResponse = new PredictionResponse("Player One", "Player Two", 0.7f, 0.3f, "Player One", 1L, 0.5f);
+
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(HttpStatus.OK.value())
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(objectMapper.writeValueAsString(upstreamResponse)));
+        int requestCountBefore = mockWebServer.getRequestCount();
+
+        PredictionResponse first = predictionService.predictAsync(request).block();
+        PredictionResponse repeated = predictionService.predictAsync(request).block();
+        PredictionResponse reversed = predictionService.predictAsync(reversedRequest).block();
+
+        assertEquals(1, mockWebServer.getRequestCount() - requestCountBefore);
+        mockWebServer.takeRequest();
+
+        assertEquals(first.getPlayer1WinProbability(), repeated.getPlayer1WinProbability());
+        assertEquals("Player Two", reversed.getPlayer1Name());
+        assertEquals("Player One", reversed.getPlayer2Name());
+        assertEquals(0.3f, reversed.getPlayer1WinProbability());
+        assertEquals(0.7f, reversed.getPlayer2WinProbability());
+        assertEquals(1L, reversed.getWinnerId());
+        assertEquals("Player One", reversed.getWinnerName());
     }
 
     @Test
@@ -66,7 +311,7 @@ public class PredictionServiceTest {
                 .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .setBody(jsonResponse));
 
-        PredictionResponse actualResponse = predictionService.predict(request);
+        PredictionResponse actualResponse = predictionService.predictAsync(request).block();
 
         assertNotNull(actualResponse);
         assertEquals(expectedResponse.getPlayer1Name(), actualResponse.getPlayer1Name());
@@ -84,6 +329,55 @@ public class PredictionServiceTest {
         assertEquals(MediaType.APPLICATION_JSON_VALUE, recordedRequest.getHeader(HttpHeaders.CONTENT_TYPE));
     }
 
+    @Test
+    @DisplayName("Should send a single upstream call for identical concurrent requests")
+    void predict_shouldCoalesceIdenticalConcurrentRequests() throws Exception {
+        PredictionRequest request = new PredictionRequest(11L, 12L, "Clay", "M", 3, "QF");
+        PredictionRequest reversedRequest = new PredictionRequest(12L, 11L, "Clay", "M", 3, "QF");
+        PredictionResponse upstreamResponse = new PredictionResponse("Eleven", "Twelve", 0.6f, 0.4f, "Eleven", 11L, 0.2f);
+
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(HttpStatus.OK.value())
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(objectMapper.writeValueAsString(upstreamResponse))
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        int requestCountBefore = mockWebServer.getRequestCount();
+
+        List<PredictionResponse> responses = runConcurrently(8, i -> predictionService.predictAsync(i % 2 == 0 ? request : reversedRequest).block());
+
+        assertEquals(1, mockWebServer.getRequestCount() - requestCountBefore);
+        mockWebServer.takeRequest();
+        for (int i = 0; i < responses.size(); i++) {
+            float expectedPlayer1Probability = i % 2 == 0 ? 0.6f : 0.4f;
+            assertEquals(expectedPlayer1Probability, responses.get(i).getPlayer1WinProbability());
+        }
+        assertEquals(0, predictionService.getInFlightPredictionCount());
+    }
+
+    @Test
+    @DisplayName("Should propagate the same mapped exception to every coalesced caller")
+    void predict_shouldShareMappedException_withCoalescedCallers() throws Exception {
+        PredictionRequest request = new PredictionRequest(21L, 22L, "Grass", "A", 3, "R32");
+
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody("{\"error\":\"Service unavailable\"}")
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        int requestCountBefore = mockWebServer.getRequestCount();
+
+        List<PredictionServiceException> exceptions = runConcurrently(6, i -> assertThrows(
+                PredictionServiceException.class,
+                () -> predictionService.predictAsync(request).block()));
+
+        assertEquals(1, mockWebServer.getRequestCount() - requestCountBefore);
+        mockWebServer.takeRequest();
+        for (PredictionServiceException exception : exceptions) {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getStatusCode());
+            assertSame(exceptions.get(0), exception);
+        }
+    }
+
     @Test
     @DisplayName("Should throw PredictionServiceException when API returns Bad Request (400)")
     void predict_shouldThrowPredictionServiceException_whenApiReturnsBadRequest() throws InterruptedException {
@@ -97,7 +391,7 @@ public class PredictionServiceTest {
 
         PredictionServiceException exception = assertThrows(
                 PredictionServiceException.class,
-                () -> predictionService.predict(request)
+                () -> predictionService.predictAsync(request).block()
         );
 
         assertNotNull(exception);
@@ -125,7 +419,7 @@ public class PredictionServiceTest {
 
         PlayerNotFoundException exception = assertThrows(
                 PlayerNotFoundException.class,
-                () -> predictionService.predict(request));
+                () -> predictionService.predictAsync(request).block());
 
         assertNotNull(exception);
         assertTrue(exception.getMessage().contains("Player not found"));
@@ -151,7 +445,7 @@ public class PredictionServiceTest {
 
         PredictionServiceException exception = assertThrows(
                 PredictionServiceException.class,
-                () -> predictionService.predict(request)
+                () -> predictionService.predictAsync(request).block()
         );
 
         assertNotNull(exception);
@@ -179,7 +473,7 @@ public class PredictionServiceTest {
 
         PredictionServiceException exception = assertThrows(
                 PredictionServiceException.class,
-                () -> predictionService.predict(request)
+                () -> predictionService.predictAsync(request).block()
         );
 
         assertNotNull(exception);
@@ -207,7 +501,7 @@ public class PredictionServiceTest {
 
         PredictionServiceException exception = assertThrows(
                 PredictionServiceException.class,
-                () -> predictionService.predict(request)
+                () -> predictionService.predictAsync(request).block()
         );
 
         assertNotNull(exception);
@@ -221,4 +515,46 @@ public class PredictionServiceTest {
         assertEquals(TEST_API_KEY, recordedRequest.getHeader("X-API-KEY"));
         assertEquals(MediaType.APPLICATION_JSON_VALUE, recordedRequest.getHeader(HttpHeaders.CONTENT_TYPE));
     }
+
+    private static MockResponse predictionResponse(PredictionResponse response) throws JsonProcessingException {
+        return new MockResponse()
+                .setResponseCode(HttpStatus.OK.value())
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody(objectMapper.writeValueAsString(response));
+    }
+
+    private static <T> List<T> runConcurrently(int callers, IntFunction<T> call) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                int caller = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.apply(caller);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            throw new AssertionError("Concurrent prediction calls did not finish in time", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Player ratedPlayer(long playerId, String firstName, String lastName, int elo) {
+        Player player = new Player();
+        player.setPlayerId(playerId);
+        player.setFirstName(firstName);
+        player.setLastName(lastName);
+        player.setElo(elo);
+        player.setEloHard(elo);
+        return player;
+    }
 }
@@ -0,0 +1,74 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prediction Upstream Guard Tests")
+public class PredictionUpstreamGuardTest {
+
+    private CircuitBreaker circuitBreaker;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private PredictionUpstreamGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new CircuitBreaker(1, Duration.ofSeconds(10), 1, System::nanoTime);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(1, 1, 1, Duration.ofSeconds(1), 0.9);
+        guard = new PredictionUpstreamGuard(circuitBreaker, concurrencyLimiter, Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Should settle the permits when the call supplier throws")
+    void protect_whenSupplierThrows_shouldReleasePermits() {
+        Mono<String> call = guard.protect(() -> {
+            throw new IllegalStateException("could not build request");
+        });
+
+        assertThrows(IllegalStateException.class, call::block);
+
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should settle a successful call once even when it is cancelled after its value")
+    void protect_whenCancelledAfterValue_shouldSettleOnce() {
+        assertEquals("prediction", guard.protect(() -> Mono.just("prediction")).flux().next().block());
+
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals("next", guard.protect(() -> Mono.just("next")).block());
+    }
+
+    @Test
+    @DisplayName("Should hand the permits back when the call is cancelled before it completes")
+    void protect_whenCancelled_shouldReleasePermits() {
+        Disposable subscription = guard.protect(Mono::never).subscribe();
+        assertEquals(1, concurrencyLimiter.getInFlight());
+
+        subscription.dispose();
+
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should reject calls beyond the concurrency limit with a 503")
+    void protect_beyondLimit_shouldReject() {
+        Mono<Long> both = Mono.zip(guard.protect(() -> Mono.delay(Duration.ofMillis(50))), guard.protect(() -> Mono.just(1L)))
+                .map(pair -> pair.getT1() + pair.getT2());
+
+        PredictionServiceException e = assertThrows(PredictionServiceException.class, both::block);
+        assertEquals(503, e.getStatusCode());
+
+        assertEquals(0, concurrencyLimiter.getInFlight());
+    }
+}
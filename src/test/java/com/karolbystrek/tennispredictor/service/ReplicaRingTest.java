@@ -0,0 +1,115 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Replica Ring Tests")
+public class ReplicaRingTest {
+
+    private static final List<String> URLS = List.of("http://a:5000", "http://b:5000", "http://c:5000");
+    private static final int MATCHUPS = 3000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("Should route a matchup to the same replica in either player order and across restarts")
+    void select_shouldBeStablePerMatchup() {
+        ReplicaRing ring = ring(1);
+        MatchupKey key = MatchupKey.of(new PredictionRequest(7L, 42L, "Hard", "A", 3, "R32"));
+
+        ReplicaRing.Replica replica = ring.select(key);
+
+        assertSame(replica, ring.select(MatchupKey.of(new PredictionRequest(42L, 7L, "hard", "A", 3, "R32"))));
+        assertEquals(replica.url(), ring(1).select(key).url());
+    }
+
+    @Test
+    @DisplayName("Should spread matchups roughly evenly over the replicas")
+    void select_shouldSpreadLoad() {
+        ReplicaRing ring = ring(1);
+
+        Map<String, Integer> counts = counts(ring);
+
+        assertEquals(URLS.size(), counts.size());
+        counts.values().forEach(count -> assertTrue(count > MATCHUPS / URLS.size() / 2, "Unbalanced ring: " + counts));
+    }
+
+    @Test
+    @DisplayName("Should only move the matchups of an ejected replica")
+    void select_shouldOnlyRemapEjectedReplica() {
+        ReplicaRing ring = ring(2);
+        Map<MatchupKey, String> before = new HashMap<>();
+        for (int i = 0; i < MATCHUPS; i++) {
+            MatchupKey key = key(i);
+            before.put(key, ring.select(key).url());
+        }
+        ReplicaRing.Replica ejected = ring.replicas().get(0);
+
+        ring.onFailure(ejected);
+        ring.onFailure(ejected);
+
+        assertEquals(2, ring.availableCount());
+        before.forEach((key, url) -> {
+            String now = ring.select(key).url();
+            if (url.equals(ejected.url())) {
+                assertNotEquals(ejected.url(), now);
+            } else {
+                assertEquals(url, now);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Should readmit an ejected replica after the ejection duration or a success")
+    void eject_shouldExpireOrBeClearedBySuccess() {
+        ReplicaRing ring = ring(1);
+        ReplicaRing.Replica replica = ring.replicas().get(1);
+
+        ring.onHealthCheckFailure(replica);
+        assertEquals(2, ring.availableCount());
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertEquals(3, ring.availableCount());
+
+        ring.onHealthCheckFailure(replica);
+        ring.onSuccess(replica);
+        assertEquals(3, ring.availableCount());
+    }
+
+    @Test
+    @DisplayName("Should fail open to the owner when every replica is ejected")
+    void select_shouldFailOpenWhenAllEjected() {
+        ReplicaRing ring = ring(1);
+        MatchupKey key = key(1);
+        ReplicaRing.Replica owner = ring.select(key);
+
+        ring.replicas().forEach(ring::onHealthCheckFailure);
+
+        assertEquals(0, ring.availableCount());
+        assertSame(owner, ring.select(key));
+    }
+
+    private ReplicaRing ring(int failureThreshold) {
+        return new ReplicaRing(URLS, 100, failureThreshold, Duration.ofSeconds(30), clock::get);
+    }
+
+    private static Map<String, Integer> counts(ReplicaRing ring) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < MATCHUPS; i++) {
+            counts.merge(ring.select(key(i)).url(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static MatchupKey key(int i) {
+        return MatchupKey.of(new PredictionRequest((long) i, (long) i + 100_000, "Hard", "A", 3, "R32"));
+    }
+}
@@ -0,0 +1,209 @@
+package com.karolbystrek.tennispredictor.service;
+
+import com.karolbystrek.tennispredictor.exceptions.PredictionServiceException;
+import com.karolbystrek.tennispredictor.model.PlayerTournamentOdds;
+import com.karolbystrek.tennispredictor.model.PredictionRequest;
+import com.karolbystrek.tennispredictor.model.PredictionResponse;
+import com.karolbystrek.tennispredictor.model.TournamentSimulationRequest;
+import com.karolbystrek.tennispredictor.model.TournamentSimulationResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Tournament Simulation Service Tests")
+public class TournamentSimulationServiceTest {
+
+    private PredictionService predictionService;
+    private PredictionAdmission predictionAdmission;
+    private EloPredictionEngine eloPredictionEngine;
+    private TournamentSimulationService tournamentSimulationService;
+
+    @BeforeEach
+    void setUp() {
+        predictionService = mock(PredictionService.class);
+        predictionAdmission = spy(new PredictionAdmission(64, 64, Duration.ofSeconds(5), Duration.ofSeconds(1)));
+        eloPredictionEngine = mock(EloPredictionEngine.class);
+        tournamentSimulationService = new TournamentSimulationService(predictionService, predictionAdmission, eloPredictionEngine, 0, 8, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tournamentSimulationService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should name rounds by the number of players remaining")
+    void roundNames_shouldUseConventionalLabels() {
+        assertEquals(List.of("R32", "R16", "QF", "SF", "F"), TournamentSimulationService.roundNames(32));
+        assertEquals(List.of("F"), TournamentSimulationService.roundNames(2));
+    }
+
+    @Test
+    @DisplayName("Should give the title to a player who wins every matchup")
+    void simulate_shouldCrownDominantPlayer() {
+        int drawSize = 8;
+        float[] matrix = matrix(drawSize, 0.5f);
+        for (int opponent = 1; opponent < drawSize; opponent++) {
+            matrix[opponent] = 1.0f;
+            matrix[opponent * drawSize] = 0.0f;
+        }
+
+        double[][] reach = tournamentSimulationService.simulateReachProbabilities(matrix, drawSize, 5_000);
+
+        assertEquals(1.0, reach[0][3], 1e-9);
+        assertEquals(0.0, reach[1][1], 1e-9);
+        for (int player = 1; player < drawSize; player++) {
+            assertEquals(0.0, reach[player][3], 1e-9);
+        }
+    }
+
+    @Test
+    @DisplayName("Should give every player an equal title chance when all matchups are even")
+    void simulate_shouldSpreadTitleEvenlyForEvenMatchups() {
+        int drawSize = 16;
+        int simulations = 200_000;
+
+        double[][] reach = tournamentSimulationService.simulateReachProbabilities(matrix(drawSize, 0.5f), drawSize, simulations);
+
+        double titleTotal = 0;
+        for (double[] playerReach : reach) {
+            assertEquals(1.0, playerReach[0], 1e-9);
+            assertEquals(0.5, playerReach[1], 0.01);
+            assertEquals(1.0 / drawSize, playerReach[4], 0.005);
+            titleTotal += playerReach[4];
+        }
+        assertEquals(1.0, titleTotal, 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should simulate a 128-player draw 100000 times within a few seconds")
+    void simulate_shouldHandleFullDrawQuickly() {
+        int drawSize = 128;
+        float[] matrix = new float[drawSize * drawSize];
+        for (int i = 0; i < drawSize; i++) {
+            for (int j = 0; j < drawSize; j++) {
+                matrix[i * drawSize + j] = (float) (1.0 / (1.0 + Math.pow(10, (i - j) / 40.0)));
+            }
+        }
+
+        long start = System.nanoTime();
+        double[][] reach = tournamentSimulationService.simulateReachProbabilities(matrix, drawSize, 100_000);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 5_000, "Simulation took " + elapsedMs + " ms");
+        assertTrue(reach[0][7] > reach[drawSize - 1][7]);
+        assertEquals(1.0, Arrays.stream(reach).mapToDouble(playerReach -> playerReach[7]).sum(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should fetch every possible matchup once at batch priority and label it with the round it would be played in")
+    void simulate_shouldFetchEveryMatchupThroughPredictionService() {
+        when(predictionService.predictAsync(any(PredictionRequest.class))).thenAnswer(invocation -> {
+            PredictionRequest request = invocation.getArgument(0);
+            float probability = request.getPlayer1Id() < request.getPlayer2Id() ? 0.75f : 0.25f;
+            return Mono.just(new PredictionResponse("P" + request.getPlayer1Id(), "P" + request.getPlayer2Id(),
+                    probability, 1 - probability, null, null, 0.5f));
+        });
+        TournamentSimulationRequest request = new TournamentSimulationRequest(
+                List.of(10L, 20L, 30L, 40L), "Hard", "G", 5, 20_000);
+
+        TournamentSimulationResult result = tournamentSimulationService.simulate(request).block();
+
+        assertNotNull(result);
+        assertEquals(List.of("SF", "F", "W"), result.getRounds());
+        assertEquals(4, result.getPlayers().size());
+        verify(predictionService, times(6)).predictAsync(any(PredictionRequest.class));
+        verify(predictionAdmission, times(6)).admitWithRetries(eq(PredictionPriority.BATCH), eq(2L), any());
+        assertEquals(0, predictionAdmission.getInFlightCount());
+        verify(predictionService).predictAsync(argThat(r -> r.getPlayer1Id() == 10L && r.getPlayer2Id() == 20L && "SF".equals(r.getRound())));
+        verify(predictionService).predictAsync(argThat(r -> r.getPlayer1Id() == 10L && r.getPlayer2Id() == 30L && "F".equals(r.getRound())));
+
+        PlayerTournamentOdds favourite = result.getPlayers().get(0);
+        assertEquals(10L, favourite.getPlayerId());
+        assertEquals("P10", favourite.getPlayerName());
+        assertEquals(0.75 * 0.75, favourite.getTitleProbability(), 0.02);
+        assertEquals(favourite.getTitleProbability(), favourite.getReachProbabilities().get("W"));
+        assertEquals(0.75, favourite.getReachProbabilities().get("F"), 0.02);
+    }
+
+    @Test
+    @DisplayName("Should score a matchup with the Elo estimate when admission keeps rejecting it")
+    void simulate_WhenPairRejectedByAdmission_ShouldFallBackToElo() {
+        when(predictionService.predictAsync(any(PredictionRequest.class))).thenAnswer(invocation -> {
+            PredictionRequest request = invocation.getArgument(0);
+            return Mono.just(new PredictionResponse("P" + request.getPlayer1Id(), "P" + request.getPlayer2Id(),
+                    0.5f, 0.5f, null, null, 0.5f));
+        });
+        doReturn(Mono.error(new PredictionServiceException("Prediction queue is full", 429, Duration.ofSeconds(1))))
+                .doCallRealMethod()
+                .when(predictionAdmission).admitWithRetries(eq(PredictionPriority.BATCH), anyLong(), any());
+        when(eloPredictionEngine.predict(argThat(r -> r.getPlayer1Id() == 10L && r.getPlayer2Id() == 20L)))
+                .thenReturn(Optional.of(new PredictionResponse("P10", "P20", 1.0f, 0.0f, "P10", null, 1.0f)));
+        TournamentSimulationRequest request = new TournamentSimulationRequest(List.of(10L, 20L), "Hard", "G", 5, 1_000);
+        TournamentSimulationRequest largerRequest = new TournamentSimulationRequest(List.of(10L, 20L, 30L, 40L), "Hard", "G", 5, 1_000);
+
+        TournamentSimulationResult result = tournamentSimulationService.simulate(request).block();
+        TournamentSimulationResult largerResult = tournamentSimulationService.simulate(largerRequest).block();
+
+        assertNotNull(result);
+        assertEquals(1.0, result.getPlayers().get(0).getTitleProbability(), 1e-9);
+        assertEquals("P10", result.getPlayers().get(0).getPlayerName());
+        assertNotNull(largerResult);
+        assertEquals(4, largerResult.getPlayers().size());
+        verify(eloPredictionEngine, times(1)).predict(any(PredictionRequest.class));
+        verify(predictionService, times(6)).predictAsync(any(PredictionRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should fail the simulation when a rejected matchup has no Elo estimate either")
+    void simulate_WhenRejectedPairHasNoEloEstimate_ShouldFail() {
+        doReturn(Mono.error(new PredictionServiceException("Prediction queue is full", 429, Duration.ofSeconds(1))))
+                .when(predictionAdmission).admitWithRetries(eq(PredictionPriority.BATCH), anyLong(), any());
+        when(eloPredictionEngine.predict(any(PredictionRequest.class))).thenReturn(Optional.empty());
+        TournamentSimulationRequest request = new TournamentSimulationRequest(List.of(10L, 20L), "Hard", "G", 5, 1_000);
+
+        PredictionServiceException exception = assertThrows(PredictionServiceException.class,
+                () -> tournamentSimulationService.simulate(request).block());
+
+        assertEquals(429, exception.getStatusCode());
+        verifyNoInteractions(predictionService);
+    }
+
+    @Test
+    @DisplayName("Should reject draws whose size is not a power of two or that repeat a player")
+    void simulate_shouldRejectInvalidDraws() {
+        TournamentSimulationRequest oddDraw = new TournamentSimulationRequest(
+                LongStream.rangeClosed(1, 6).boxed().toList(), "Hard", "G", 3, 100);
+        TournamentSimulationRequest duplicateDraw = new TournamentSimulationRequest(
+                List.of(1L, 2L, 3L, 1L), "Hard", "G", 3, 100);
+
+        PredictionServiceException oddException = assertThrows(PredictionServiceException.class,
+                () -> tournamentSimulationService.simulate(oddDraw));
+        PredictionServiceException duplicateException = assertThrows(PredictionServiceException.class,
+                () -> tournamentSimulationService.simulate(duplicateDraw));
+
+        assertEquals(400, oddException.getStatusCode());
+        assertEquals(400, duplicateException.getStatusCode());
+        verifyNoInteractions(predictionService);
+    }
+
+    private static float[] matrix(int drawSize, float probability) {
+        float[] matrix = new float[drawSize * drawSize];
+        Arrays.fill(matrix, probability);
+        return matrix;
+    }
+}